@@ -14,6 +14,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
@@ -60,7 +61,8 @@ public class GitHubRepositoryStoreTest extends ProviderTestCase2<GitHubProvider>
         final MockContentResolver contentResolver = new MockContentResolver();
         contentResolver.addProvider(GitHubProvider.AUTHORITY, contentProvider);
 
-        gitHubRepositoryStore = new GitHubRepositoryStore(contentResolver, gson);
+        gitHubRepositoryStore = new GitHubRepositoryStore(contentResolver, gson,
+                new File(getContext().getCacheDir(), "test_write_times.snapshot"));
         testObserver = new TestObserver<>();
         
         super.setUp();
@@ -15,7 +15,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.observers.TestObserver;
@@ -94,6 +97,30 @@ public class GitHubRepositoryStoreCoreTest extends ProviderTestCase2<GitHubProvi
                 .assertValue(value2);
     }
 
+    @Test
+    public void putAll_StoresValues_AndReturnsResultPerId() throws InterruptedException {
+        final GitHubRepository value1 = create(100, "test name 1");
+        final GitHubRepository value2 = create(200, "test name 2");
+        final Map<Integer, GitHubRepository> values = new LinkedHashMap<>();
+        values.put(100, value1);
+        values.put(200, value2);
+        TestObserver<List<GitHubRepository>> testObserver = new TestObserver<>();
+
+        gitHubRepositoryStoreCore.put(100, value1);
+        Thread.sleep(PROVIDER_WAIT_TIME);
+        gitHubRepositoryStoreCore.putAll(values)
+                .test()
+                .awaitDone(PROVIDER_WAIT_TIME, TimeUnit.MILLISECONDS)
+                .assertNoErrors()
+                .assertValue(results -> !results.get(100) && results.get(200));
+        gitHubRepositoryStoreCore.getCached().subscribe(testObserver);
+
+        testObserver.awaitDone(PROVIDER_WAIT_TIME, TimeUnit.MILLISECONDS)
+                .assertComplete()
+                .assertNoErrors()
+                .assertValue(asList(value1, value2));
+    }
+
     // GET CACHED
 
     @Test
@@ -113,6 +140,23 @@ public class GitHubRepositoryStoreCoreTest extends ProviderTestCase2<GitHubProvi
                 .assertValue(value1);
     }
 
+    @Test
+    public void getCached_WithIds_EmitsFoundValues_AndCompletes() throws InterruptedException {
+        final GitHubRepository value1 = create(100, "test name 1");
+        final GitHubRepository value2 = create(200, "test name 2");
+
+        gitHubRepositoryStoreCore.put(100, value1);
+        gitHubRepositoryStoreCore.put(200, value2);
+        Thread.sleep(PROVIDER_WAIT_TIME);
+
+        gitHubRepositoryStoreCore.getCached(asList(200, 300))
+                .test()
+                .awaitDone(PROVIDER_WAIT_TIME, TimeUnit.MILLISECONDS)
+                .assertComplete()
+                .assertNoErrors()
+                .assertValue(Collections.singletonMap(200, value2));
+    }
+
     // GET STREAM
 
     @Test
@@ -70,6 +70,16 @@ public final class DataStoreModule {
         return dataLayer::getGitHubRepository;
     }
 
+    @Provides
+    public DataFunctions.GetGitHubRepositories provideGetGitHubRepositories(DataLayer dataLayer) {
+        return dataLayer::getGitHubRepositories;
+    }
+
+    @Provides
+    public DataFunctions.GetGitHubRepositoryChanges provideGetGitHubRepositoryChanges(DataLayer dataLayer) {
+        return dataLayer::getGitHubRepositoryChanges;
+    }
+
     @Provides
     @Singleton
     public DataLayer provideApplicationDataLayer(@ForApplication Context context,
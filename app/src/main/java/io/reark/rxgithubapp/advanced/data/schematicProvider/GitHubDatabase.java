@@ -32,6 +32,10 @@ import net.simonvt.schematic.annotation.Database;
 import net.simonvt.schematic.annotation.OnUpgrade;
 import net.simonvt.schematic.annotation.Table;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import io.reark.reark.utils.Log;
 
 @Database(version = GitHubDatabase.VERSION)
@@ -39,29 +43,54 @@ public final class GitHubDatabase {
 
     private static final String TAG = GitHubDatabase.class.getSimpleName();
 
-    public static final int VERSION = 2;
+    public static final int VERSION = 3;
 
     @Table(GitHubRepositoryColumns.class) public static final String GITHUB_REPOSITORIES = "repositories";
     @Table(GitHubRepositorySearchColumns.class) public static final String GITHUB_REPOSITORY_SEARCHES = "repositorySearches";
     @Table(NetworkRequestStatusColumns.class) public static final String NETWORK_REQUEST_STATUSES = "networkRequestStatuses";
     @Table(UserSettingsColumns.class) public static final String USER_SETTINGS = "userSettings";
 
-    private static final String[] MIGRATIONS = {
+    private static final String[][] MIGRATIONS = {
             // Version 1 -> 2: request format was changed
-            "DELETE FROM " + NETWORK_REQUEST_STATUSES + ";"
+            { "DELETE FROM " + NETWORK_REQUEST_STATUSES + ";" },
+            // Version 2 -> 3: primary keys replace on conflict
+            concat(replaceOnConflict(GITHUB_REPOSITORIES, "INTEGER"),
+                   replaceOnConflict(GITHUB_REPOSITORY_SEARCHES, "TEXT"),
+                   replaceOnConflict(NETWORK_REQUEST_STATUSES, "INTEGER"),
+                   replaceOnConflict(USER_SETTINGS, "INTEGER"))
     };
 
+    private static String[] replaceOnConflict(String table, String idType) {
+        // SQLite can't alter a constraint, so the table is recreated with its rows.
+        return new String[] {
+                "ALTER TABLE " + table + " RENAME TO " + table + "_old;",
+                "CREATE TABLE " + table + " (id " + idType + " PRIMARY KEY ON CONFLICT REPLACE, json TEXT);",
+                "INSERT INTO " + table + " (id, json) SELECT id, json FROM " + table + "_old;",
+                "DROP TABLE " + table + "_old;"
+        };
+    }
+
+    private static String[] concat(String[]... statements) {
+        List<String> all = new ArrayList<>();
+        for (String[] part : statements) {
+            all.addAll(Arrays.asList(part));
+        }
+        return all.toArray(new String[all.size()]);
+    }
+
     @OnUpgrade
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         for (int i = oldVersion; i < newVersion; i++) {
-            String migration = MIGRATIONS[i - 1];
+            String[] migration = MIGRATIONS[i - 1];
             db.beginTransaction();
 
             try {
-                db.execSQL(migration);
+                for (String statement : migration) {
+                    db.execSQL(statement);
+                }
                 db.setTransactionSuccessful();
             } catch (SQLException e) {
-                Log.e(TAG, String.format("Error executing database migration: %s", migration), e);
+                Log.e(TAG, String.format("Error executing database migration: %s", Arrays.toString(migration)), e);
             } finally {
                 db.endTransaction();
             }
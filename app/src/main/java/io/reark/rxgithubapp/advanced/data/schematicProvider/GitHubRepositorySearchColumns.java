@@ -25,10 +25,11 @@
  */
 package io.reark.rxgithubapp.advanced.data.schematicProvider;
 
+import net.simonvt.schematic.annotation.ConflictResolutionType;
 import net.simonvt.schematic.annotation.DataType;
 import net.simonvt.schematic.annotation.PrimaryKey;
 
 public interface GitHubRepositorySearchColumns {
-    @DataType(DataType.Type.TEXT) @PrimaryKey String SEARCH = "id";
+    @DataType(DataType.Type.TEXT) @PrimaryKey(onConflict = ConflictResolutionType.REPLACE) String SEARCH = "id";
     @DataType(DataType.Type.TEXT) String JSON = "json";
 }
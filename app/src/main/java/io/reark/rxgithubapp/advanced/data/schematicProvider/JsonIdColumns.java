@@ -25,10 +25,12 @@
  */
 package io.reark.rxgithubapp.advanced.data.schematicProvider;
 
+import net.simonvt.schematic.annotation.ConflictResolutionType;
 import net.simonvt.schematic.annotation.DataType;
 import net.simonvt.schematic.annotation.PrimaryKey;
 
 public interface JsonIdColumns {
-    @DataType(DataType.Type.INTEGER) @PrimaryKey String ID = "id";
+    // Inserting an existing id replaces the row, which lets stores upsert without a read.
+    @DataType(DataType.Type.INTEGER) @PrimaryKey(onConflict = ConflictResolutionType.REPLACE) String ID = "id";
     @DataType(DataType.Type.TEXT) String JSON = "json";
 }
@@ -30,17 +30,45 @@ import android.support.annotation.NonNull;
 
 import com.google.gson.Gson;
 
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
 import io.reark.reark.data.stores.DefaultStore;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+import io.reark.reark.data.stores.cores.TieredStoreCore;
+import io.reark.reark.data.stores.cores.codec.LongCodec;
 import io.reark.rxgithubapp.advanced.data.stores.cores.GitHubRepositoryStoreCore;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
 
 public class GitHubRepositoryStore
         extends DefaultStore<Integer, GitHubRepository, GitHubRepository> {
 
-    public GitHubRepositoryStore(@NonNull final ContentResolver contentResolver, @NonNull final Gson gson) {
-        super(new GitHubRepositoryStoreCore(contentResolver, gson),
+    private static final long TIME_TO_LIVE_MINUTES = 5;
+
+    private static final int MAX_CACHED_REPOSITORIES = 200;
+
+    // About one frame, so that a burst of updates to a repository rebinds its view once.
+    private static final long CONFLATION_WINDOW_MS = 16;
+
+    public GitHubRepositoryStore(@NonNull final ContentResolver contentResolver,
+                                 @NonNull final Gson gson,
+                                 @NonNull final File writeTimesSnapshotFile) {
+        super(new TieredStoreCore.Builder<Integer, GitHubRepository>()
+                        .persistentCore(new GitHubRepositoryStoreCore(contentResolver, gson))
+                        .idForItem(GitHubRepository::getId)
+                        .maxSize(MAX_CACHED_REPOSITORIES)
+                        .build(),
                 GitHubRepository::getId,
                 repository -> repository != null ? repository : GitHubRepository.none(),
-                GitHubRepository::none);
+                GitHubRepository::none,
+                TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES,
+                // The repositories outlive the process, and so must their write times.
+                new MemoryStoreCore.Builder<Integer, Long>()
+                        .putMergeFunction(Math::max)
+                        .valueCodec(new LongCodec())
+                        .snapshotFile(writeTimesSnapshotFile)
+                        .build());
+
+        setConflationWindow(CONFLATION_WINDOW_MS, TimeUnit.MILLISECONDS);
     }
 }
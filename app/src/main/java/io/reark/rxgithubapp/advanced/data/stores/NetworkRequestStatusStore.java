@@ -34,6 +34,11 @@ import io.reark.reark.data.stores.DefaultStore;
 import io.reark.reark.pojo.NetworkRequestStatus;
 import io.reark.rxgithubapp.advanced.data.stores.cores.NetworkRequestStatusStoreCore;
 
+/**
+ * Keeps the latest status of each network request, with the hash code of the request Uri as the
+ * id. Two Uris with the same hash code share one status. Listeners filtering by their listener id
+ * ignore the status of the other request, but may miss their own when the other one replaces it.
+ */
 public class NetworkRequestStatusStore
         extends DefaultStore<Integer, NetworkRequestStatus, NetworkRequestStatus> {
 
@@ -26,18 +26,24 @@
 package io.reark.rxgithubapp.advanced.data.stores;
 
 import android.content.ContentResolver;
+import android.content.Context;
 
 import com.google.gson.Gson;
 
+import java.io.File;
+
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
 import io.reark.rxgithubapp.advanced.data.DataLayer;
+import io.reark.rxgithubapp.shared.injections.ForApplication;
 
 @Module
 public final class StoreModule {
 
+    private static final String REPOSITORY_WRITE_TIMES_SNAPSHOT = "repository_write_times.snapshot";
+
     @Provides
     @Singleton
     public NetworkRequestStatusStore provideNetworkRequestStatusStore(ContentResolver contentResolver, Gson gson) {
@@ -46,8 +52,11 @@ public final class StoreModule {
 
     @Provides
     @Singleton
-    public GitHubRepositoryStore provideGitHubRepositoryStore(ContentResolver contentResolver, Gson gson) {
-        return new GitHubRepositoryStore(contentResolver, gson);
+    public GitHubRepositoryStore provideGitHubRepositoryStore(@ForApplication Context context,
+                                                              ContentResolver contentResolver,
+                                                              Gson gson) {
+        return new GitHubRepositoryStore(contentResolver, gson,
+                new File(context.getCacheDir(), REPOSITORY_WRITE_TIMES_SNAPSHOT));
     }
 
     @Provides
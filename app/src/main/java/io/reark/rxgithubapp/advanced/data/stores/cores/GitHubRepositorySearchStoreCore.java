@@ -70,6 +70,18 @@ public class GitHubRepositorySearchStoreCore extends ContentProviderStoreCore<St
         return new String[] { GitHubRepositorySearchColumns.SEARCH, GitHubRepositorySearchColumns.JSON };
     }
 
+    @NonNull
+    @Override
+    protected String getIdColumn() {
+        return GitHubRepositorySearchColumns.SEARCH;
+    }
+
+    @Override
+    protected boolean isUpsertEnabled() {
+        // New values always win, so the current value doesn't need to be read.
+        return true;
+    }
+
     @NonNull
     @Override
     protected ContentValues getContentValuesForItem(@NonNull final GitHubRepositorySearch item) {
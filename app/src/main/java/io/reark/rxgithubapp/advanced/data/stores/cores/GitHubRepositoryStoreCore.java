@@ -70,6 +70,12 @@ public class GitHubRepositoryStoreCore extends ContentProviderStoreCore<Integer,
         return new String[] { JsonIdColumns.ID, JsonIdColumns.JSON };
     }
 
+    @NonNull
+    @Override
+    protected String getIdColumn() {
+        return JsonIdColumns.ID;
+    }
+
     @NonNull
     @Override
     protected ContentValues getContentValuesForItem(@NonNull final GitHubRepository item) {
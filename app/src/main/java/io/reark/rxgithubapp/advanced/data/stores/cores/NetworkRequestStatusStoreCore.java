@@ -82,6 +82,18 @@ public class NetworkRequestStatusStoreCore extends ContentProviderStoreCore<Inte
         return new String[] { NetworkRequestStatusColumns.ID, NetworkRequestStatusColumns.JSON };
     }
 
+    @NonNull
+    @Override
+    protected String getIdColumn() {
+        return NetworkRequestStatusColumns.ID;
+    }
+
+    @Override
+    protected boolean isUpsertEnabled() {
+        // New values always win, so the current value doesn't need to be read.
+        return true;
+    }
+
     @NonNull
     @Override
     protected ContentValues getContentValuesForItem(@NonNull final NetworkRequestStatus item) {
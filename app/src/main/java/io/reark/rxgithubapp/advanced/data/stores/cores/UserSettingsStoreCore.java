@@ -73,6 +73,12 @@ public class UserSettingsStoreCore extends ContentProviderStoreCore<Integer, Use
         return new String[] { UserSettingsColumns.ID, UserSettingsColumns.JSON };
     }
 
+    @NonNull
+    @Override
+    protected String getIdColumn() {
+        return UserSettingsColumns.ID;
+    }
+
     @NonNull
     @Override
     protected ContentValues getContentValuesForItem(@NonNull final UserSettings item) {
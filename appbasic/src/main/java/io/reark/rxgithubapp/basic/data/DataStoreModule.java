@@ -51,6 +51,16 @@ public final class DataStoreModule {
         return dataLayer::getGitHubRepository;
     }
 
+    @Provides
+    public DataFunctions.GetGitHubRepositories provideGetGitHubRepositories(DataLayer dataLayer) {
+        return dataLayer::getGitHubRepositories;
+    }
+
+    @Provides
+    public DataFunctions.GetGitHubRepositoryChanges provideGetGitHubRepositoryChanges(DataLayer dataLayer) {
+        return dataLayer::getGitHubRepositoryChanges;
+    }
+
     @Provides
     public DataFunctions.GetGitHubRepositorySearch provideGitHubRepositorySearch(DataLayer dataLayer) {
         return dataLayer::fetchAndGetGitHubRepositorySearch;
@@ -25,14 +25,24 @@
  */
 package io.reark.rxgithubapp.basic.data.stores;
 
-import io.reark.reark.data.stores.MemoryStore;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+
+import io.reark.reark.data.stores.DefaultStore;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+import io.reark.rxgithubapp.shared.data.GitHubRepositorySearchCodec;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepositorySearch;
 
 public class GitHubRepositorySearchStore
-        extends MemoryStore<String, GitHubRepositorySearch, GitHubRepositorySearch> {
+        extends DefaultStore<String, GitHubRepositorySearch, GitHubRepositorySearch> {
 
-    public GitHubRepositorySearchStore() {
-        super(GitHubRepositorySearch::getSearch,
+    public GitHubRepositorySearchStore(@NonNull final File snapshotFile) {
+        super(new MemoryStoreCore.Builder<String, GitHubRepositorySearch>()
+                        .valueCodec(new GitHubRepositorySearchCodec())
+                        .snapshotFile(snapshotFile)
+                        .build(),
+                GitHubRepositorySearch::getSearch,
                 search -> search != null ? search : GitHubRepositorySearch.none(),
                 GitHubRepositorySearch::none);
     }
@@ -25,17 +25,42 @@
  */
 package io.reark.rxgithubapp.basic.data.stores;
 
-import io.reark.reark.data.stores.MemoryStore;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import io.reark.reark.data.stores.DefaultStore;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+import io.reark.reark.data.stores.cores.eviction.LruEvictionPolicy;
+import io.reark.rxgithubapp.shared.data.GitHubRepositoryCodec;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
 
 public class GitHubRepositoryStore
-        extends MemoryStore<Integer, GitHubRepository, GitHubRepository> {
+        extends DefaultStore<Integer, GitHubRepository, GitHubRepository> {
+
+    // Every search result page is put into this store, so keep only the most recently used ones.
+    private static final int MAX_CACHED_REPOSITORIES = 1000;
+
+    // Enough for the repositories on screen.
+    private static final int HOT_CACHE_SIZE = 20;
+
+    private static final long TIME_TO_LIVE_MINUTES = 5;
 
-    public GitHubRepositoryStore() {
-        // Use a custom merge function for put values.
-        super((oldItem, newItem) -> new GitHubRepository(oldItem).overwrite(newItem),
+    public GitHubRepositoryStore(@NonNull final File snapshotFile) {
+        // Use a custom merge function for put values, and keep the repositories encoded with
+        // only the most recently read ones as objects. The repositories are restored from the
+        // snapshot on the next start, but expire right away so that they get refreshed.
+        super(new MemoryStoreCore.Builder<Integer, GitHubRepository>()
+                        .putMergeFunction((oldItem, newItem) -> new GitHubRepository(oldItem).overwrite(newItem))
+                        .evictionPolicy(new LruEvictionPolicy<>(MAX_CACHED_REPOSITORIES))
+                        .valueCodec(new GitHubRepositoryCodec())
+                        .hotCacheSize(HOT_CACHE_SIZE)
+                        .snapshotFile(snapshotFile)
+                        .build(),
                 GitHubRepository::getId,
                 repository -> repository != null ? repository : GitHubRepository.none(),
-                GitHubRepository::none);
+                GitHubRepository::none,
+                TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES);
     }
 }
@@ -25,14 +25,21 @@
  */
 package io.reark.rxgithubapp.basic.data.stores;
 
-import io.reark.reark.data.stores.MemoryStore;
+import io.reark.reark.data.stores.DefaultStore;
+import io.reark.reark.data.stores.cores.IntMemoryStoreCore;
 import io.reark.reark.pojo.NetworkRequestStatus;
 
+/**
+ * Keeps the latest status of each network request, with the hash code of the request Uri as the
+ * id. Two Uris with the same hash code share one status. Listeners filtering by their listener id
+ * ignore the status of the other request, but may miss their own when the other one replaces it.
+ */
 public class NetworkRequestStatusStore
-        extends MemoryStore<Integer, NetworkRequestStatus, NetworkRequestStatus> {
+        extends DefaultStore<Integer, NetworkRequestStatus, NetworkRequestStatus> {
 
     public NetworkRequestStatusStore() {
-        super(status -> status.getUri().hashCode(),
+        super(new IntMemoryStoreCore<>(),
+                status -> status.getUri().hashCode(),
                 status -> status == null ? NetworkRequestStatus.none() : status,
                 NetworkRequestStatus::none);
     }
@@ -25,15 +25,26 @@
  */
 package io.reark.rxgithubapp.basic.data.stores;
 
+import android.content.Context;
+
+import java.io.File;
+
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
 import io.reark.rxgithubapp.basic.data.DataLayer;
+import io.reark.rxgithubapp.shared.injections.ForApplication;
 
 @Module
 public final class StoreModule {
 
+    // Renamed whenever the encoding of the repositories changes, so that an older snapshot is not
+    // decoded with the new codec.
+    private static final String REPOSITORIES_SNAPSHOT = "repositories-2.snapshot";
+
+    private static final String SEARCHES_SNAPSHOT = "searches.snapshot";
+
     @Provides
     @Singleton
     public NetworkRequestStatusStore provideNetworkRequestStatusStore() {
@@ -42,14 +53,14 @@ public final class StoreModule {
 
     @Provides
     @Singleton
-    public GitHubRepositoryStore provideGitHubRepositoryStore() {
-        return new GitHubRepositoryStore();
+    public GitHubRepositoryStore provideGitHubRepositoryStore(@ForApplication Context context) {
+        return new GitHubRepositoryStore(new File(context.getCacheDir(), REPOSITORIES_SNAPSHOT));
     }
 
     @Provides
     @Singleton
-    public GitHubRepositorySearchStore provideGitHubRepositorySearchStore() {
-        return new GitHubRepositorySearchStore();
+    public GitHubRepositorySearchStore provideGitHubRepositorySearchStore(@ForApplication Context context) {
+        return new GitHubRepositorySearchStore(new File(context.getCacheDir(), SEARCHES_SNAPSHOT));
     }
 
     @Provides
@@ -25,14 +25,16 @@
  */
 package io.reark.rxgithubapp.basic.data.stores;
 
-import io.reark.reark.data.stores.MemoryStore;
+import io.reark.reark.data.stores.DefaultStore;
+import io.reark.reark.data.stores.cores.IntMemoryStoreCore;
 import io.reark.rxgithubapp.shared.pojo.UserSettings;
 
 public class UserSettingsStore
-        extends MemoryStore<Integer, UserSettings, UserSettings> {
+        extends DefaultStore<Integer, UserSettings, UserSettings> {
 
     public UserSettingsStore(final int userId) {
-        super(__ -> userId,
+        super(new IntMemoryStoreCore<>(),
+                __ -> userId,
                 user -> user != null ? user : UserSettings.none(),
                 UserSettings::none);
     }
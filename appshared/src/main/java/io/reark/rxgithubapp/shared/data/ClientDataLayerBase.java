@@ -28,7 +28,10 @@ package io.reark.rxgithubapp.shared.data;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.reactivex.Observable;
 import io.reark.reark.data.DataStreamNotification;
@@ -113,8 +116,19 @@ public abstract class ClientDataLayerBase extends DataLayerBase {
         checkNotNull(repositoryId);
         Log.d(TAG, "fetchAndGetGitHubRepository(" + repositoryId + ")");
 
-        int listenerId = fetchGitHubRepository(repositoryId);
-        return getGitHubRepository(listenerId, repositoryId);
+        // The stored repository is emitted right away. It is fetched only if it has expired, and
+        // the network statuses are only followed for that fetch.
+        return Observable.defer(() -> {
+            final AtomicReference<Integer> listenerId = new AtomicReference<>();
+
+            return gitHubRepositoryStore
+                    .getOnceAndStream(repositoryId, id -> listenerId.set(fetchGitHubRepository(id)))
+                    .publish(repositories -> DataLayerUtils.createDataStreamNotificationObservable(
+                            // The first item is read after the fetch has been started.
+                            repositories.take(1)
+                                    .flatMap(__ -> getGitHubRepositoryStatus(listenerId.get(), repositoryId)),
+                            repositories.filter(GitHubRepository::isSome)));
+        });
     }
 
     @NonNull
@@ -125,26 +139,55 @@ public abstract class ClientDataLayerBase extends DataLayerBase {
     }
 
     @NonNull
-    private Observable<DataStreamNotification<GitHubRepository>> getGitHubRepository(
+    public Observable<List<GitHubRepository>> getGitHubRepositories(@NonNull final List<Integer> repositoryIds) {
+        checkNotNull(repositoryIds);
+
+        Log.d(TAG, "getGitHubRepositories(" + repositoryIds.size() + ")");
+
+        return gitHubRepositoryStore
+                .getOnce(repositoryIds)
+                .map(repositories -> {
+                    final List<GitHubRepository> list = new ArrayList<>(repositories.size());
+                    for (GitHubRepository repository : repositories.values()) {
+                        if (repository.isSome()) {
+                            list.add(repository);
+                        }
+                    }
+                    return list;
+                })
+                .toObservable();
+    }
+
+    /**
+     * Returns the repositories with the ids as they are put into the store, without reading the
+     * stored ones.
+     */
+    @NonNull
+    public Observable<GitHubRepository> getGitHubRepositoryChanges(@NonNull final List<Integer> repositoryIds) {
+        checkNotNull(repositoryIds);
+
+        return Observable.fromIterable(repositoryIds)
+                .flatMap(gitHubRepositoryStore::getStream)
+                .filter(GitHubRepository::isSome);
+    }
+
+    @NonNull
+    private Observable<NetworkRequestStatus> getGitHubRepositoryStatus(
             @Nullable Integer listenerId, @NonNull final Integer repositoryId) {
 
         checkNotNull(repositoryId);
 
-        Log.d(TAG, "getGitHubRepository(" + repositoryId + ")");
-
-        final Observable<NetworkRequestStatus> networkRequestStatusObservable =
-                networkRequestStatusStore
-                        .getOnceAndStream(GitHubRepositoryFetcher.getUniqueId(repositoryId).hashCode())
-                        .filter(NetworkRequestStatus::isSome)
-                        .filter(status -> status.forListener(listenerId));
+        Log.d(TAG, "getGitHubRepositoryStatus(" + listenerId + ", " + repositoryId + ")");
 
-        final Observable<GitHubRepository> gitHubRepositoryObservable =
-                gitHubRepositoryStore
-                        .getOnceAndStream(repositoryId)
-                        .filter(GitHubRepository::isSome);
+        // Without a fetch of our own, the stored statuses are of fetches of other listeners.
+        if (listenerId == null) {
+            return Observable.empty();
+        }
 
-        return DataLayerUtils.createDataStreamNotificationObservable(
-                networkRequestStatusObservable, gitHubRepositoryObservable);
+        return networkRequestStatusStore
+                .getOnceAndStream(GitHubRepositoryFetcher.getUniqueId(repositoryId).hashCode())
+                .filter(NetworkRequestStatus::isSome)
+                .filter(status -> status.forListener(listenerId));
     }
 
     protected abstract int fetchGitHubRepository(@NonNull final Integer repositoryId);
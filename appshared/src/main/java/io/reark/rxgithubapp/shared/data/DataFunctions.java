@@ -27,6 +27,8 @@ package io.reark.rxgithubapp.shared.data;
 
 import android.support.annotation.NonNull;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 import io.reark.reark.data.DataStreamNotification;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
@@ -48,6 +50,16 @@ public class DataFunctions {
         Observable<GitHubRepository> call(int repositoryId);
     }
 
+    public interface GetGitHubRepositories {
+        @NonNull
+        Observable<List<GitHubRepository>> call(@NonNull final List<Integer> repositoryIds);
+    }
+
+    public interface GetGitHubRepositoryChanges {
+        @NonNull
+        Observable<GitHubRepository> call(@NonNull final List<Integer> repositoryIds);
+    }
+
     public interface FetchAndGetGitHubRepository {
         @NonNull
         Observable<DataStreamNotification<GitHubRepository>> call(int repositoryId);
@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.rxgithubapp.shared.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import io.reark.reark.data.stores.cores.codec.ValueCodec;
+import io.reark.rxgithubapp.shared.pojo.GitHubOwner;
+import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
+
+/**
+ * Encodes repositories field by field into a compact binary form for memory store cores.
+ *
+ * Repositories parsed from JSON may lack their name or owner even though the fields are marked
+ * non-null. Such strings are encoded with a flag telling that they are absent, and decoded as
+ * empty, which the merges of the pojos treat the same as missing.
+ */
+public class GitHubRepositoryCodec implements ValueCodec<GitHubRepository> {
+
+    // Most repositories encode to well under this.
+    private static final int INITIAL_BUFFER_SIZE = 128;
+
+    @NonNull
+    @Override
+    @SuppressWarnings("ConstantConditions")
+    public byte[] encode(@NonNull final GitHubRepository item) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        final DataOutputStream output = new DataOutputStream(bytes);
+
+        try {
+            final GitHubOwner owner = item.getOwner();
+
+            output.writeInt(item.getId());
+            writeNullableString(output, item.getName());
+            output.writeInt(item.getStargazersCount());
+            output.writeInt(item.getForksCount());
+            writeNullableString(output, owner != null ? owner.getAvatarUrl() : null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode " + item.getId(), e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @NonNull
+    @Override
+    public GitHubRepository decode(@NonNull final byte[] bytes) {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        try {
+            return new GitHubRepository(
+                    input.readInt(),
+                    readNullableString(input),
+                    input.readInt(),
+                    input.readInt(),
+                    new GitHubOwner(readNullableString(input)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode repository", e);
+        }
+    }
+
+    private static void writeNullableString(@NonNull final DataOutputStream output,
+                                            @Nullable final String value) throws IOException {
+        output.writeBoolean(value != null);
+
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    @NonNull
+    private static String readNullableString(@NonNull final DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : "";
+    }
+}
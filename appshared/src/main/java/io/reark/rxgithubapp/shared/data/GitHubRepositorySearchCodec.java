@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.rxgithubapp.shared.data;
+
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reark.reark.data.stores.cores.codec.ValueCodec;
+import io.reark.rxgithubapp.shared.pojo.GitHubRepositorySearch;
+
+/**
+ * Encodes repository searches into a compact binary form for memory store cores.
+ */
+public class GitHubRepositorySearchCodec implements ValueCodec<GitHubRepositorySearch> {
+
+    @NonNull
+    @Override
+    public byte[] encode(@NonNull final GitHubRepositorySearch item) {
+        final List<Integer> items = item.getItems();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 4 * items.size());
+        final DataOutputStream output = new DataOutputStream(bytes);
+
+        try {
+            output.writeUTF(item.getSearch());
+            output.writeInt(items.size());
+
+            for (Integer id : items) {
+                output.writeInt(id);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode " + item.getSearch(), e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @NonNull
+    @Override
+    public GitHubRepositorySearch decode(@NonNull final byte[] bytes) {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        try {
+            final String search = input.readUTF();
+            final int count = input.readInt();
+            final List<Integer> items = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                items.add(input.readInt());
+            }
+
+            return new GitHubRepositorySearch(search, items);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode search", e);
+        }
+    }
+}
@@ -92,8 +92,9 @@ public class GitHubRepositorySearchFetcher extends AppFetcherBase<Uri> {
 
         Disposable disposable = createNetworkObservable(searchString)
                 .subscribeOn(Schedulers.computation())
+                .flatMap(repositories -> gitHubRepositoryStore.putAll(repositories)
+                        .map(__ -> repositories))
                 .flatMapObservable(Observable::fromIterable)
-                .doOnNext(gitHubRepositoryStore::put)
                 .map(GitHubRepository::getId)
                 .toList()
                 .map(idList -> new GitHubRepositorySearch(searchString, idList))
@@ -39,6 +39,12 @@ import static io.reark.reark.utils.Preconditions.get;
 public class GitHubRepository extends OverwritablePojo<GitHubRepository> {
     private static final String TAG = GitHubRepository.class.getSimpleName();
 
+    // Field names, as reported in pojo deltas.
+    public static final String FIELD_NAME = "name";
+    public static final String FIELD_STARGAZERS_COUNT = "stargazersCount";
+    public static final String FIELD_FORKS_COUNT = "forksCount";
+    public static final String FIELD_OWNER = "owner";
+
     private final int id;
 
     @NonNull
@@ -38,6 +38,7 @@ import com.bumptech.glide.Glide;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import io.reark.rxgithubapp.shared.R;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
@@ -71,9 +72,35 @@ public class RepositoriesAdapter extends Adapter<RepositoryViewHolder> {
 
     @Override
     public void onBindViewHolder(RepositoryViewHolder holder, int position) {
-        holder.titleTextView.setText(gitHubRepositories.get(position).getName());
+        bindName(holder, gitHubRepositories.get(position));
+        bindAvatar(holder, gitHubRepositories.get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(RepositoryViewHolder holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        // Payloads are the changed field names of the row, see set.
+        final GitHubRepository repository = gitHubRepositories.get(position);
+
+        if (payloads.contains(GitHubRepository.FIELD_NAME)) {
+            bindName(holder, repository);
+        }
+        if (payloads.contains(GitHubRepository.FIELD_OWNER)) {
+            bindAvatar(holder, repository);
+        }
+    }
+
+    private static void bindName(RepositoryViewHolder holder, GitHubRepository repository) {
+        holder.titleTextView.setText(repository.getName());
+    }
+
+    private static void bindAvatar(RepositoryViewHolder holder, GitHubRepository repository) {
         Glide.with(holder.avatarImageView.getContext())
-                .load(gitHubRepositories.get(position).getOwner().getAvatarUrl())
+                .load(repository.getOwner().getAvatarUrl())
                 .fitCenter()
                 .into(holder.avatarImageView);
     }
@@ -84,10 +111,42 @@ public class RepositoriesAdapter extends Adapter<RepositoryViewHolder> {
     }
 
     public void set(List<GitHubRepository> gitHubRepositories) {
-        this.gitHubRepositories.clear();
-        this.gitHubRepositories.addAll(gitHubRepositories);
+        if (!hasSameIds(gitHubRepositories)) {
+            this.gitHubRepositories.clear();
+            this.gitHubRepositories.addAll(gitHubRepositories);
+
+            notifyDataSetChanged();
+            return;
+        }
+
+        // The same repositories in the same order: rebind only the rows with displayed fields
+        // changed, and pass the fields as payloads.
+        for (int i = 0; i < gitHubRepositories.size(); i++) {
+            final GitHubRepository repository = gitHubRepositories.get(i);
+            final Set<String> changedFields = this.gitHubRepositories.get(i).getChangedFields(repository);
+
+            this.gitHubRepositories.set(i, repository);
+
+            for (String field : changedFields) {
+                if (GitHubRepository.FIELD_NAME.equals(field) || GitHubRepository.FIELD_OWNER.equals(field)) {
+                    notifyItemChanged(i, field);
+                }
+            }
+        }
+    }
+
+    private boolean hasSameIds(List<GitHubRepository> gitHubRepositories) {
+        if (this.gitHubRepositories.size() != gitHubRepositories.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < gitHubRepositories.size(); i++) {
+            if (this.gitHubRepositories.get(i).getId() != gitHubRepositories.get(i).getId()) {
+                return false;
+            }
+        }
 
-        notifyDataSetChanged();
+        return true;
     }
 
     public static class RepositoryViewHolder extends ViewHolder {
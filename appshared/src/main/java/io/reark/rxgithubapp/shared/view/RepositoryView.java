@@ -37,6 +37,8 @@ import com.bumptech.glide.load.resource.drawable.GlideDrawable;
 
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
+import io.reark.reark.pojo.PojoDelta;
+import io.reark.reark.pojo.PojoDeltaTransformer;
 import io.reark.reark.utils.RxViewBinder;
 import io.reark.rxgithubapp.shared.R;
 import io.reark.rxgithubapp.shared.glide.SerialTarget;
@@ -72,18 +74,29 @@ public class RepositoryView extends FrameLayout {
         avatarImageView = (ImageView) findViewById(R.id.widget_avatar_image_view);
     }
 
-    private void setRepository(@NonNull final GitHubRepository repository) {
-        checkNotNull(repository);
-
-        titleTextView.setText(repository.getName());
-        stargazersTextView.setText("stars: " + repository.getStargazersCount());
-        forksTextView.setText("forks: " + repository.getForksCount());
-        request.set(Glide.with(getContext())
-                .load(repository.getOwner().getAvatarUrl())
-                .fitCenter()
-                .crossFade()
-                .placeholder(android.R.drawable.sym_def_app_icon)
-                .into(avatarImageView));
+    private void setRepository(@NonNull final PojoDelta<GitHubRepository> delta) {
+        checkNotNull(delta);
+
+        final GitHubRepository repository = delta.getCurrent();
+
+        // Only the changed fields are bound, so that a new star count does not reload the avatar.
+        if (delta.hasChanged(GitHubRepository.FIELD_NAME)) {
+            titleTextView.setText(repository.getName());
+        }
+        if (delta.hasChanged(GitHubRepository.FIELD_STARGAZERS_COUNT)) {
+            stargazersTextView.setText("stars: " + repository.getStargazersCount());
+        }
+        if (delta.hasChanged(GitHubRepository.FIELD_FORKS_COUNT)) {
+            forksTextView.setText("forks: " + repository.getForksCount());
+        }
+        if (delta.hasChanged(GitHubRepository.FIELD_OWNER)) {
+            request.set(Glide.with(getContext())
+                    .load(repository.getOwner().getAvatarUrl())
+                    .fitCenter()
+                    .crossFade()
+                    .placeholder(android.R.drawable.sym_def_app_icon)
+                    .into(avatarImageView));
+        }
     }
 
     @Override
@@ -106,6 +119,7 @@ public class RepositoryView extends FrameLayout {
         @Override
         protected void bindInternal(@NonNull final CompositeDisposable s) {
             s.add(viewModel.getRepository()
+                    .compose(new PojoDeltaTransformer<>())
                     .observeOn(AndroidSchedulers.mainThread())
                     .subscribe(view::setRepository));
         }
@@ -27,7 +27,11 @@ package io.reark.rxgithubapp.shared.viewmodels;
 
 import android.support.annotation.NonNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
@@ -38,9 +42,9 @@ import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.PublishSubject;
 import io.reark.reark.data.DataStreamNotification;
 import io.reark.reark.utils.Log;
-import io.reark.reark.utils.RxUtils;
 import io.reark.reark.viewmodels.AbstractViewModel;
-import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepository;
+import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepositories;
+import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepositoryChanges;
 import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepositorySearch;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepositorySearch;
@@ -62,7 +66,10 @@ public class RepositoriesViewModel extends AbstractViewModel {
     private final GetGitHubRepositorySearch getGitHubRepositorySearch;
 
     @NonNull
-    private final GetGitHubRepository getGitHubRepository;
+    private final GetGitHubRepositories getGitHubRepositories;
+
+    @NonNull
+    private final GetGitHubRepositoryChanges getGitHubRepositoryChanges;
 
     @NonNull
     private final PublishSubject<String> searchString = PublishSubject.create();
@@ -77,9 +84,11 @@ public class RepositoriesViewModel extends AbstractViewModel {
     private final BehaviorSubject<ProgressStatus> networkRequestStatusText = BehaviorSubject.create();
 
     public RepositoriesViewModel(@NonNull final GetGitHubRepositorySearch getGitHubRepositorySearch,
-                                 @NonNull final GetGitHubRepository getGitHubRepository) {
+                                 @NonNull final GetGitHubRepositories getGitHubRepositories,
+                                 @NonNull final GetGitHubRepositoryChanges getGitHubRepositoryChanges) {
         this.getGitHubRepositorySearch = get(getGitHubRepositorySearch);
-        this.getGitHubRepository = get(getGitHubRepository);
+        this.getGitHubRepositories = get(getGitHubRepositories);
+        this.getGitHubRepositoryChanges = get(getGitHubRepositoryChanges);
     }
 
     @NonNull
@@ -154,21 +163,27 @@ public class RepositoriesViewModel extends AbstractViewModel {
 
     @NonNull
     Function<List<Integer>, Observable<List<GitHubRepository>>> toGitHubRepositoryList() {
-        return repositoryIds -> Observable.fromIterable(repositoryIds)
-                .take(MAX_REPOSITORIES_DISPLAYED)
-                .map(this::getGitHubRepositoryObservable)
-                .toList()
-                .toObservable()
-                .flatMap(RxUtils::toObservableList);
-    }
-
-    @NonNull
-    Observable<GitHubRepository> getGitHubRepositoryObservable(@NonNull final Integer repositoryId) {
-        checkNotNull(repositoryId);
-
-        return getGitHubRepository
-                .call(repositoryId)
-                .doOnNext((repository) -> Log.v(TAG, "Received repository " + repository.getId()));
+        // The repositories of a search are read with one batch read, and then kept updated with
+        // their changes only. The changes are observed before the read, so that none is missed,
+        // and the ones arriving before the read completes are applied on top of its result.
+        return repositoryIds -> {
+            final List<Integer> displayedIds =
+                    repositoryIds.subList(0, Math.min(repositoryIds.size(), MAX_REPOSITORIES_DISPLAYED));
+
+            return Observable.merge(
+                    getGitHubRepositoryChanges
+                            .call(displayedIds)
+                            .doOnNext(repository -> Log.v(TAG, "Received repository " + repository.getId()))
+                            .map(DisplayedRepositories::changeOf),
+                    getGitHubRepositories
+                            .call(displayedIds)
+                            .doOnNext(list -> Log.v(TAG, "Received " + list.size() + " repositories"))
+                            .map(DisplayedRepositories::readOf))
+                    .scan(new DisplayedRepositories(displayedIds), (displayed, update) -> update.apply(displayed))
+                    .filter(DisplayedRepositories::isRead)
+                    .map(DisplayedRepositories::toList)
+                    .distinctUntilChanged();
+        };
     }
 
     void setNetworkStatusText(@NonNull final ProgressStatus status) {
@@ -176,4 +191,70 @@ public class RepositoriesViewModel extends AbstractViewModel {
 
         networkRequestStatusText.onNext(status);
     }
+
+    /**
+     * The repositories of the displayed ids, as read and updated by their changes.
+     */
+    static final class DisplayedRepositories {
+
+        @NonNull
+        private final List<Integer> ids;
+
+        @NonNull
+        private final Map<Integer, GitHubRepository> repositories;
+
+        private final boolean read;
+
+        DisplayedRepositories(@NonNull final List<Integer> ids) {
+            this(ids, Collections.emptyMap(), false);
+        }
+
+        private DisplayedRepositories(@NonNull final List<Integer> ids,
+                                      @NonNull final Map<Integer, GitHubRepository> repositories,
+                                      boolean read) {
+            this.ids = ids;
+            this.repositories = repositories;
+            this.read = read;
+        }
+
+        @NonNull
+        static Function<DisplayedRepositories, DisplayedRepositories> readOf(
+                @NonNull final List<GitHubRepository> list) {
+            return displayed -> {
+                final Map<Integer, GitHubRepository> repositories = new HashMap<>(displayed.ids.size());
+                for (GitHubRepository repository : list) {
+                    repositories.put(repository.getId(), repository);
+                }
+                // Changes that arrived before the read are at least as new as it.
+                repositories.putAll(displayed.repositories);
+                return new DisplayedRepositories(displayed.ids, repositories, true);
+            };
+        }
+
+        @NonNull
+        static Function<DisplayedRepositories, DisplayedRepositories> changeOf(
+                @NonNull final GitHubRepository repository) {
+            return displayed -> {
+                final Map<Integer, GitHubRepository> repositories = new HashMap<>(displayed.repositories);
+                repositories.put(repository.getId(), repository);
+                return new DisplayedRepositories(displayed.ids, repositories, displayed.read);
+            };
+        }
+
+        boolean isRead() {
+            return read;
+        }
+
+        @NonNull
+        List<GitHubRepository> toList() {
+            final List<GitHubRepository> list = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                final GitHubRepository repository = repositories.get(id);
+                if (repository != null) {
+                    list.add(repository);
+                }
+            }
+            return list;
+        }
+    }
 }
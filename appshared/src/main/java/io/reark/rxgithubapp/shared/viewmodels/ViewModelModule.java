@@ -34,8 +34,9 @@ public class ViewModelModule {
 
     @Provides
     public RepositoriesViewModel provideRepositoriesViewModel(DataFunctions.GetGitHubRepositorySearch repositorySearch,
-                                                              DataFunctions.GetGitHubRepository repositoryRepository) {
-        return new RepositoriesViewModel(repositorySearch, repositoryRepository);
+                                                              DataFunctions.GetGitHubRepositories getGitHubRepositories,
+                                                              DataFunctions.GetGitHubRepositoryChanges getGitHubRepositoryChanges) {
+        return new RepositoriesViewModel(repositorySearch, getGitHubRepositories, getGitHubRepositoryChanges);
     }
 
     @Provides
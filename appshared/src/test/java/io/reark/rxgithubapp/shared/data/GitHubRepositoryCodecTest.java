@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.rxgithubapp.shared.data;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import io.reark.rxgithubapp.shared.pojo.GitHubOwner;
+import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
+
+import static org.junit.Assert.assertEquals;
+
+public class GitHubRepositoryCodecTest {
+
+    private final GitHubRepositoryCodec codec = new GitHubRepositoryCodec();
+
+    @Test
+    public void decode_ReturnsEncodedRepository() {
+        GitHubRepository repository = new GitHubRepository(100, "foo", 10, 20, new GitHubOwner("http://foo.bar"));
+
+        assertEquals(repository, codec.decode(codec.encode(repository)));
+    }
+
+    @Test
+    public void decode_WithNonAsciiName_ReturnsEncodedRepository() {
+        GitHubRepository repository = new GitHubRepository(100, "f\u00f6\u00f6 \u2603", 10, 20, GitHubOwner.empty());
+
+        assertEquals(repository, codec.decode(codec.encode(repository)));
+    }
+
+    @Test
+    public void decode_WithMissingNameAndOwner_ReturnsEmptyValues() {
+        GitHubRepository repository = new Gson().fromJson("{\"id\":100,\"stargazers_count\":10}", GitHubRepository.class);
+
+        GitHubRepository decoded = codec.decode(codec.encode(repository));
+
+        assertEquals(new GitHubRepository(100, "", 10, 0, GitHubOwner.empty()), decoded);
+    }
+
+    @Test
+    public void decode_WithMissingAvatarUrl_ReturnsEmptyOwner() {
+        GitHubRepository repository = new Gson().fromJson("{\"id\":100,\"name\":\"foo\",\"owner\":{}}", GitHubRepository.class);
+
+        GitHubRepository decoded = codec.decode(codec.encode(repository));
+
+        assertEquals(new GitHubRepository(100, "foo", 0, 0, GitHubOwner.empty()), decoded);
+    }
+
+    @Test
+    public void decode_WithNoneRepository_ReturnsNone() {
+        assertEquals(GitHubRepository.none(), codec.decode(codec.encode(GitHubRepository.none())));
+    }
+}
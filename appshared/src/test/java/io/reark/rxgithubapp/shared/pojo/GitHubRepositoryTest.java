@@ -2,6 +2,10 @@ package io.reark.rxgithubapp.shared.pojo;
 
 import org.junit.Test;
 
+import java.util.HashSet;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
@@ -76,4 +80,21 @@ public class GitHubRepositoryTest {
         assertEquals(200, repo1.getId());
         assertEquals("bar", repo1.getName());
     }
+
+    @Test
+    public void testChangedFields_WithDifferentCount() {
+        GitHubRepository repo1 = new GitHubRepository(100, "foo", 10, 10, OWNER);
+        GitHubRepository repo2 = new GitHubRepository(100, "foo", 20, 10, OWNER);
+
+        assertEquals(singleton(GitHubRepository.FIELD_STARGAZERS_COUNT), repo1.getChangedFields(repo2));
+    }
+
+    @Test
+    public void testChangedFields_WithDifferentOwner() {
+        GitHubRepository repo1 = new GitHubRepository(100, "foo", 10, 10, OWNER);
+        GitHubRepository repo2 = new GitHubRepository(100, "bar", 10, 10, new GitHubOwner("thief"));
+
+        assertEquals(new HashSet<>(asList(GitHubRepository.FIELD_NAME, GitHubRepository.FIELD_OWNER)),
+                repo1.getChangedFields(repo2));
+    }
 }
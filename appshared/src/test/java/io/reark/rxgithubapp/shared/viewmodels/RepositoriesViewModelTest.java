@@ -35,8 +35,11 @@ import java.util.List;
 
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
-import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepository;
+import io.reactivex.subjects.PublishSubject;
+import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepositories;
+import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepositoryChanges;
 import io.reark.rxgithubapp.shared.data.DataFunctions.GetGitHubRepositorySearch;
+import io.reark.rxgithubapp.shared.pojo.GitHubOwner;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepository;
 import io.reark.rxgithubapp.shared.pojo.GitHubRepositorySearch;
 
@@ -52,13 +55,18 @@ import static org.mockito.Mockito.mock;
 
 public class RepositoriesViewModelTest {
 
+    private static final GitHubOwner OWNER = new GitHubOwner("");
+
     private RepositoriesViewModel viewModel;
 
+    private int batchReads;
+
     @Before
     public void setUp() {
         viewModel = new RepositoriesViewModel(
                 mock(GetGitHubRepositorySearch.class),
-                __ -> Observable.just(mock(GitHubRepository.class)));
+                this::readRepositories,
+                __ -> Observable.empty());
     }
 
     @Test
@@ -100,10 +108,43 @@ public class RepositoriesViewModelTest {
                 ((Collection<?>) observer.getEvents().get(0).get(0)).size());
     }
 
-    @Test(expected = NullPointerException.class)
-    public void testThrowsNullPointerExceptionWhenRepositoryIdIsNull() {
-        //noinspection ConstantConditions
-        viewModel.getGitHubRepositoryObservable(null);
+    @Test
+    public void testChangedRepositoryUpdatesListWithoutReadingAgain() throws Exception {
+        GitHubRepository changed = new GitHubRepository(2, "changed", 0, 0, OWNER);
+        PublishSubject<GitHubRepository> changes = PublishSubject.create();
+        viewModel = new RepositoriesViewModel(
+                mock(GetGitHubRepositorySearch.class),
+                this::readRepositories,
+                __ -> changes);
+        TestObserver<List<GitHubRepository>> observer = new TestObserver<>();
+
+        viewModel.toGitHubRepositoryList()
+                .apply(Arrays.asList(1, 2))
+                .subscribe(observer);
+        changes.onNext(changed);
+
+        observer.assertValues(Arrays.asList(repository(1), repository(2)), Arrays.asList(repository(1), changed));
+        assertEquals(1, batchReads);
+    }
+
+    @Test
+    public void testChangeBeforeReadIsAppliedToRead() throws Exception {
+        GitHubRepository changed = new GitHubRepository(2, "changed", 0, 0, OWNER);
+        PublishSubject<List<GitHubRepository>> read = PublishSubject.create();
+        PublishSubject<GitHubRepository> changes = PublishSubject.create();
+        viewModel = new RepositoriesViewModel(
+                mock(GetGitHubRepositorySearch.class),
+                __ -> read,
+                __ -> changes);
+        TestObserver<List<GitHubRepository>> observer = new TestObserver<>();
+
+        viewModel.toGitHubRepositoryList()
+                .apply(Arrays.asList(1, 2))
+                .subscribe(observer);
+        changes.onNext(changed);
+        read.onNext(Arrays.asList(repository(1), repository(2)));
+
+        observer.assertValues(Arrays.asList(repository(1), changed));
     }
 
     @Test(expected = NullPointerException.class)
@@ -127,13 +168,30 @@ public class RepositoriesViewModelTest {
     @Test(expected = NullPointerException.class)
     public void testThrowsNullPointerExceptionConstructedWithNullRepositorySearch() {
         //noinspection ConstantConditions
-        new RepositoriesViewModel(null, mock(GetGitHubRepository.class));
+        new RepositoriesViewModel(null, mock(GetGitHubRepositories.class), mock(GetGitHubRepositoryChanges.class));
     }
 
     @Test(expected = NullPointerException.class)
-    public void testThrowsNullPointerExceptionConstructedWithNullRepository() {
+    public void testThrowsNullPointerExceptionConstructedWithNullRepositories() {
         //noinspection ConstantConditions
-        new RepositoriesViewModel(mock(GetGitHubRepositorySearch.class), null);
+        new RepositoriesViewModel(mock(GetGitHubRepositorySearch.class), null, mock(GetGitHubRepositoryChanges.class));
     }
 
+    @Test(expected = NullPointerException.class)
+    public void testThrowsNullPointerExceptionConstructedWithNullRepositoryChanges() {
+        //noinspection ConstantConditions
+        new RepositoriesViewModel(mock(GetGitHubRepositorySearch.class), mock(GetGitHubRepositories.class), null);
+    }
+
+    private Observable<List<GitHubRepository>> readRepositories(List<Integer> ids) {
+        batchReads++;
+        return Observable.fromIterable(ids)
+                .map(RepositoriesViewModelTest::repository)
+                .toList()
+                .toObservable();
+    }
+
+    private static GitHubRepository repository(int id) {
+        return new GitHubRepository(id, "repository " + id, 0, 0, OWNER);
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reark.reark.utils.Log;
+
+/**
+ * Minimal harness for the instrumented benchmarks. An operation is repeated in rounds after a few
+ * warm up rounds, and the median time per operation of the rounds is logged and returned. The heap
+ * retained by a structure can be measured as well, as the difference of the used heap around it
+ * after garbage collection. The numbers are only comparable between runs on the same device, so
+ * each benchmark measures the alternatives it compares in the same run.
+ *
+ * The benchmarks are run with the instrumentation tests of the package, for example with
+ * ./gradlew :reark:connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.package=io.reark.reark.benchmark
+ */
+public final class Benchmark {
+    private static final String TAG = Benchmark.class.getSimpleName();
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static final int ROUNDS = 7;
+
+    private Benchmark() {
+    }
+
+    /**
+     * Runs the operation the given number of times per round on the calling thread.
+     *
+     * @return Median nanoseconds per operation.
+     */
+    public static double measure(@NonNull final String name,
+                                 final int operationsPerRound,
+                                 @NonNull final Operation operation) throws Exception {
+        final long[] times = new long[ROUNDS];
+
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            final long start = System.nanoTime();
+            for (int i = 0; i < operationsPerRound; i++) {
+                operation.run(0, i);
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            if (round >= 0) {
+                times[round] = elapsed;
+            }
+        }
+
+        return report(name, times, operationsPerRound);
+    }
+
+    /**
+     * Runs the operation the given number of times per round on each of the threads, all started
+     * at once. The time of a round lasts until the last thread has finished.
+     *
+     * @return Median nanoseconds per operation of all threads, the inverse of the throughput.
+     */
+    public static double measureConcurrent(@NonNull final String name,
+                                           final int threadCount,
+                                           final int operationsPerThread,
+                                           @NonNull final Operation operation) throws Exception {
+        final long[] times = new long[ROUNDS];
+
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            final AtomicReference<Exception> error = new AtomicReference<>();
+            final List<Thread> threads = new ArrayList<>(threadCount);
+
+            for (int t = 0; t < threadCount; t++) {
+                final int thread = t;
+                threads.add(new Thread(() -> {
+                    try {
+                        startLatch.await();
+                        for (int i = 0; i < operationsPerThread; i++) {
+                            operation.run(thread, i);
+                        }
+                    } catch (Exception e) {
+                        error.compareAndSet(null, e);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            final long start = System.nanoTime();
+            startLatch.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            if (error.get() != null) {
+                throw error.get();
+            }
+            if (round >= 0) {
+                times[round] = elapsed;
+            }
+        }
+
+        return report(name, times, threadCount * operationsPerThread);
+    }
+
+    /**
+     * Builds a structure and measures the heap it retains while it is kept reachable.
+     *
+     * @return Retained bytes per item of the structure.
+     */
+    public static double measureRetainedBytes(@NonNull final String name,
+                                              final int itemCount,
+                                              @NonNull final Allocation allocation) throws Exception {
+        final long before = usedHeap();
+        final Object structure = allocation.allocate();
+        final long after = usedHeap();
+
+        final double bytesPerItem = (double) (after - before) / itemCount;
+
+        Log.i(TAG, String.format(Locale.US, "%s: %.1f bytes/item (%s)",
+                name, bytesPerItem, structure.getClass().getSimpleName()));
+        return bytesPerItem;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+            Thread.sleep(50);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Logs the median of the given round times, for benchmarks that time their rounds themselves.
+     *
+     * @return Median nanoseconds per operation.
+     */
+    static double report(@NonNull final String name, @NonNull final long[] times, final int operations) {
+        Arrays.sort(times);
+        final double nanosPerOperation = (double) times[times.length / 2] / operations;
+
+        Log.i(TAG, String.format(Locale.US, "%s: %.1f ns/op", name, nanosPerOperation));
+        return nanosPerOperation;
+    }
+
+    public interface Operation {
+        /**
+         * @param thread Index of the thread running the operation, zero when run on one thread.
+         * @param iteration Index of the operation within the round of the thread.
+         */
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    public interface Allocation {
+        /**
+         * @return The structure to measure, kept reachable until measured.
+         */
+        @NonNull
+        Object allocate() throws Exception;
+    }
+}
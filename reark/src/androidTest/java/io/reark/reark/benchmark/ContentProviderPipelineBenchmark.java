@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.ProviderTestCase2;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import io.reactivex.Single;
+import io.reark.reark.data.stores.mock.SimpleMockContentProvider;
+import io.reark.reark.data.stores.mock.SimpleMockStoreCore;
+
+/**
+ * Measures the throughput of the grouped puts through the ContentProviderStoreCore pipeline, and
+ * the latency of a put from the call to its result while the pipeline is loaded. The provider
+ * takes a millisecond per query and per batch, roughly the cost of a binder call, so that reading
+ * the next batch while the previous one is applied shows in the numbers.
+ *
+ * To compare against an earlier pipeline, run the benchmark on both versions on the same device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ContentProviderPipelineBenchmark extends ProviderTestCase2<ContentProviderPipelineBenchmark.SlowContentProvider> {
+
+    private static final int ITEM_COUNT = 1000;
+
+    private static final int HOT_ID_COUNT = 16;
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static final int ROUNDS = 7;
+
+    private SimpleMockStoreCore core;
+
+    public ContentProviderPipelineBenchmark() {
+        super(SlowContentProvider.class, SimpleMockStoreCore.AUTHORITY);
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        core = new SimpleMockStoreCore(getMockContentResolver());
+    }
+
+    @Test
+    public void put_ToDistinctIds() throws Exception {
+        measurePuts("ContentProviderStoreCore.put, distinct ids", ITEM_COUNT);
+    }
+
+    @Test
+    public void put_ToHotIds() throws Exception {
+        measurePuts("ContentProviderStoreCore.put, " + HOT_ID_COUNT + " ids", HOT_ID_COUNT);
+    }
+
+    // Puts all of the items at once in each round, and waits for the last one, as the puts are
+    // applied in order. Every put changes its item, so all of them are written.
+    private void measurePuts(@NonNull final String name, final int idCount) throws Exception {
+        final long[] roundTimes = new long[ROUNDS];
+        final long[] latencies = new long[ROUNDS * ITEM_COUNT];
+
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            final long[] roundLatencies = new long[ITEM_COUNT];
+            Single<Boolean> last = null;
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < ITEM_COUNT; i++) {
+                final int index = i;
+                final long putTime = System.nanoTime();
+
+                last = core.put(i % idCount + 1, "value " + i + " " + round)
+                        .doOnSuccess(__ -> roundLatencies[index] = System.nanoTime() - putTime);
+                last.subscribe();
+            }
+            last.blockingGet();
+            final long elapsed = System.nanoTime() - start;
+
+            if (round >= 0) {
+                roundTimes[round] = elapsed;
+                System.arraycopy(roundLatencies, 0, latencies, round * ITEM_COUNT, ITEM_COUNT);
+            }
+        }
+
+        Benchmark.report(name + ", throughput", roundTimes, ITEM_COUNT);
+        Benchmark.report(name + ", median latency", latencies, 1);
+    }
+
+    public static class SlowContentProvider extends SimpleMockContentProvider {
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+            SystemClock.sleep(1);
+            return super.query(uri, projection, selection, selectionArgs, sortOrder);
+        }
+
+        @Override
+        public Cursor query(@NonNull final Uri uri, String[] projection, String selection, String[] selectionArgs,
+                            String sortOrder, CancellationSignal cancellationSignal) {
+            SystemClock.sleep(1);
+            return super.query(uri, projection, selection, selectionArgs, sortOrder, cancellationSignal);
+        }
+
+        @NonNull
+        @Override
+        public ContentProviderResult[] applyBatch(@NonNull final ArrayList<ContentProviderOperation> operations)
+                throws OperationApplicationException {
+            SystemClock.sleep(1);
+            return super.applyBatch(operations);
+        }
+    }
+}
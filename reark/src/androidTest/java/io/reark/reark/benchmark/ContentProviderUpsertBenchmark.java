@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.content.ContentResolver;
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.ProviderTestCase2;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.reactivex.Single;
+import io.reark.reark.data.stores.mock.SimpleMockContentProvider;
+import io.reark.reark.data.stores.mock.SimpleMockStoreCore;
+
+/**
+ * Measures the puts to a ContentProviderStoreCore with upsert enabled against the default puts
+ * that read the current items to merge them. Every put changes the item, so both write all of
+ * them. The mock provider keeps the items in a map, so the numbers show the cost of the store
+ * core and the query, not of SQLite.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ContentProviderUpsertBenchmark extends ProviderTestCase2<SimpleMockContentProvider> {
+
+    private static final int ITEM_COUNT = 1000;
+
+    private final String[][] values = new String[2][ITEM_COUNT];
+
+    public ContentProviderUpsertBenchmark() {
+        super(SimpleMockContentProvider.class, SimpleMockStoreCore.AUTHORITY);
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            values[0][id] = "value " + id + "a";
+            values[1][id] = "value " + id + "b";
+        }
+    }
+
+    @Test
+    public void put() throws Exception {
+        measurePuts("ContentProviderStoreCore.put, merge", new SimpleMockStoreCore(getMockContentResolver()));
+        measurePuts("ContentProviderStoreCore.put, upsert", new UpsertStoreCore(getMockContentResolver()));
+    }
+
+    @Test
+    public void putAll() throws Exception {
+        measurePutAll("ContentProviderStoreCore.putAll, merge", new SimpleMockStoreCore(getMockContentResolver()));
+        measurePutAll("ContentProviderStoreCore.putAll, upsert", new UpsertStoreCore(getMockContentResolver()));
+    }
+
+    // Puts all of the items at once and waits for the last one, as the puts are applied in order.
+    private void measurePuts(@NonNull final String name,
+                             @NonNull final SimpleMockStoreCore core) throws Exception {
+        final int[] round = { 0 };
+
+        Benchmark.measure(name, ITEM_COUNT, (thread, i) -> {
+            final Single<Boolean> result = core.put(i + 1, values[round[0] & 1][i]);
+
+            if (i == ITEM_COUNT - 1) {
+                result.blockingGet();
+                round[0]++;
+            }
+        });
+    }
+
+    private void measurePutAll(@NonNull final String name,
+                               @NonNull final SimpleMockStoreCore core) throws Exception {
+        final Map<Integer, String>[] items = createItems();
+        final int[] round = { 0 };
+
+        // One putAll of all items per round, reported per item.
+        Benchmark.measure(name, ITEM_COUNT, (thread, i) -> {
+            if (i == 0) {
+                core.putAll(items[round[0]++ & 1]).blockingGet();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    private Map<Integer, String>[] createItems() {
+        final Map<Integer, String>[] items = new Map[2];
+
+        for (int version = 0; version < 2; version++) {
+            items[version] = new LinkedHashMap<>(ITEM_COUNT);
+            for (int id = 0; id < ITEM_COUNT; id++) {
+                items[version].put(id + 1, values[version][id]);
+            }
+        }
+
+        return items;
+    }
+
+    private static class UpsertStoreCore extends SimpleMockStoreCore {
+
+        UpsertStoreCore(@NonNull final ContentResolver contentResolver) {
+            super(contentResolver);
+        }
+
+        @Override
+        protected boolean isUpsertEnabled() {
+            return true;
+        }
+    }
+}
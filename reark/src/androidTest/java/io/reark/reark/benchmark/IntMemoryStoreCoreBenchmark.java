@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.reark.reark.data.stores.cores.IntMemoryStoreCore;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+
+/**
+ * Compares the puts and reads of int-keyed items in the IntMemoryStoreCore and the generic
+ * MemoryStoreCore.
+ */
+@RunWith(AndroidJUnit4.class)
+public class IntMemoryStoreCoreBenchmark {
+
+    private static final int ID_COUNT = 1024;
+
+    private static final int OPERATIONS = 100000;
+
+    // Every pass over the ids alternates the value, so that each put changes the item.
+    private static final String[] VALUES = { "value a", "value b" };
+
+    @Test
+    public void put() throws Exception {
+        final IntMemoryStoreCore<String> intCore = new IntMemoryStoreCore<>();
+        final MemoryStoreCore<Integer, String> memoryCore = new MemoryStoreCore<>();
+
+        Benchmark.measure("IntMemoryStoreCore.put", OPERATIONS,
+                (thread, i) -> intCore.put(i % ID_COUNT, VALUES[(i / ID_COUNT) & 1]));
+        Benchmark.measure("MemoryStoreCore.put", OPERATIONS,
+                (thread, i) -> memoryCore.put(i % ID_COUNT, VALUES[(i / ID_COUNT) & 1]));
+    }
+
+    @Test
+    public void getCached() throws Exception {
+        final IntMemoryStoreCore<String> intCore = new IntMemoryStoreCore<>();
+        final MemoryStoreCore<Integer, String> memoryCore = new MemoryStoreCore<>();
+        for (int id = 0; id < ID_COUNT; id++) {
+            intCore.put(id, VALUES[0]);
+            memoryCore.put(id, VALUES[0]);
+        }
+
+        Benchmark.measure("IntMemoryStoreCore.getCached", OPERATIONS,
+                (thread, i) -> intCore.getCached(i % ID_COUNT));
+        Benchmark.measure("MemoryStoreCore.getCached", OPERATIONS,
+                (thread, i) -> memoryCore.getCached(i % ID_COUNT));
+    }
+}
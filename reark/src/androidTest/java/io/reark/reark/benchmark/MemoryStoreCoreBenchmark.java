@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.reactivex.disposables.Disposable;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+
+/**
+ * Measures the throughput of concurrent puts to the MemoryStoreCore, both to a single id and to
+ * distinct ids, while the id streams are observed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryStoreCoreBenchmark {
+
+    private static final int[] THREAD_COUNTS = { 1, 4, 16 };
+
+    private static final int ID_COUNT = 1024;
+
+    private static final int OPERATIONS = 160000;
+
+    @Test
+    public void put_ToSameId() throws Exception {
+        for (int threadCount : THREAD_COUNTS) {
+            final MemoryStoreCore<Integer, String> core = new MemoryStoreCore<>();
+            final String[][] values = createValues(threadCount);
+            final Disposable disposable = core.getStream(0).subscribe();
+
+            Benchmark.measureConcurrent("MemoryStoreCore.put, same id, " + threadCount + " threads",
+                    threadCount, OPERATIONS / threadCount,
+                    (thread, i) -> core.put(0, values[thread][i & 1]));
+
+            disposable.dispose();
+        }
+    }
+
+    @Test
+    public void put_ToDistinctIds() throws Exception {
+        for (int threadCount : THREAD_COUNTS) {
+            final MemoryStoreCore<Integer, String> core = new MemoryStoreCore<>();
+            final String[][] values = createValues(threadCount);
+            final Disposable disposable = core.getStream().subscribe();
+
+            // Each thread puts to ids of its own, alternating the value on every pass.
+            Benchmark.measureConcurrent("MemoryStoreCore.put, distinct ids, " + threadCount + " threads",
+                    threadCount, OPERATIONS / threadCount,
+                    (thread, i) -> core.put(thread * ID_COUNT + i % ID_COUNT,
+                            values[thread][(i / ID_COUNT) & 1]));
+
+            disposable.dispose();
+        }
+    }
+
+    private static String[][] createValues(int threadCount) {
+        final String[][] values = new String[threadCount][];
+
+        for (int thread = 0; thread < threadCount; thread++) {
+            values[thread] = new String[] { "value " + thread + "a", "value " + thread + "b" };
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+import io.reark.reark.data.stores.cores.codec.ValueCodec;
+
+/**
+ * Compares the heap use and the read latency of a MemoryStoreCore holding plain items, encoded
+ * items, and encoded items behind a hot cache.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryStoreCoreCodecBenchmark {
+
+    private static final int ITEM_COUNT = 10000;
+
+    private static final int HOT_CACHE_SIZE = 20;
+
+    private static final int OPERATIONS = 100000;
+
+    @Test
+    public void heap() throws Exception {
+        Benchmark.measureRetainedBytes("MemoryStoreCore, plain", ITEM_COUNT,
+                () -> fill(new MemoryStoreCore<>()));
+        Benchmark.measureRetainedBytes("MemoryStoreCore, encoded", ITEM_COUNT,
+                () -> fill(createEncodedCore(0)));
+    }
+
+    @Test
+    public void getCached() throws Exception {
+        final MemoryStoreCore<Integer, Repository> plainCore = fill(new MemoryStoreCore<>());
+        final MemoryStoreCore<Integer, Repository> encodedCore = fill(createEncodedCore(0));
+        final MemoryStoreCore<Integer, Repository> hotCore = fill(createEncodedCore(HOT_CACHE_SIZE));
+
+        Benchmark.measure("MemoryStoreCore.getCached, plain", OPERATIONS,
+                (thread, i) -> plainCore.getCached(i % ITEM_COUNT));
+        Benchmark.measure("MemoryStoreCore.getCached, encoded", OPERATIONS,
+                (thread, i) -> encodedCore.getCached(i % ITEM_COUNT));
+
+        // Reads within the hot set, as when a list of a few items is rebound.
+        Benchmark.measure("MemoryStoreCore.getCached, encoded, hot", OPERATIONS,
+                (thread, i) -> hotCore.getCached(i % HOT_CACHE_SIZE));
+    }
+
+    @NonNull
+    private static MemoryStoreCore<Integer, Repository> createEncodedCore(int hotCacheSize) {
+        return new MemoryStoreCore.Builder<Integer, Repository>()
+                .valueCodec(new RepositoryCodec())
+                .hotCacheSize(hotCacheSize)
+                .build();
+    }
+
+    @NonNull
+    private static MemoryStoreCore<Integer, Repository> fill(@NonNull final MemoryStoreCore<Integer, Repository> core) {
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            core.put(id, new Repository(id, "repository " + id, id * 7, id * 3,
+                    "https://avatars.example.com/u/" + id));
+        }
+
+        return core;
+    }
+
+    // Has the fields of the repositories of the sample apps.
+    private static final class Repository {
+        final int id;
+
+        @NonNull
+        final String name;
+
+        final int stargazersCount;
+
+        final int forksCount;
+
+        @NonNull
+        final String avatarUrl;
+
+        Repository(int id, @NonNull final String name, int stargazersCount, int forksCount,
+                   @NonNull final String avatarUrl) {
+            this.id = id;
+            this.name = name;
+            this.stargazersCount = stargazersCount;
+            this.forksCount = forksCount;
+            this.avatarUrl = avatarUrl;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Repository that = (Repository) o;
+
+            return id == that.id
+                    && stargazersCount == that.stargazersCount
+                    && forksCount == that.forksCount
+                    && name.equals(that.name)
+                    && avatarUrl.equals(that.avatarUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+    }
+
+    private static final class RepositoryCodec implements ValueCodec<Repository> {
+
+        @NonNull
+        @Override
+        public byte[] encode(@NonNull final Repository item) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            final DataOutputStream output = new DataOutputStream(bytes);
+
+            try {
+                output.writeInt(item.id);
+                output.writeUTF(item.name);
+                output.writeInt(item.stargazersCount);
+                output.writeInt(item.forksCount);
+                output.writeUTF(item.avatarUrl);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return bytes.toByteArray();
+        }
+
+        @NonNull
+        @Override
+        public Repository decode(@NonNull final byte[] bytes) {
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+
+            try {
+                return new Repository(input.readInt(), input.readUTF(), input.readInt(), input.readInt(),
+                        input.readUTF());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
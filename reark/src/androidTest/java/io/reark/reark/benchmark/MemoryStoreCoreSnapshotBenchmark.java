@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.nio.charset.Charset;
+
+import io.reactivex.observers.TestObserver;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+import io.reark.reark.data.stores.cores.codec.ValueCodec;
+
+/**
+ * Measures how long a MemoryStoreCore with a snapshot keeps its caller waiting when created and
+ * read right away, and how long it takes until the restored item is read.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryStoreCoreSnapshotBenchmark {
+
+    private static final int ITEM_COUNT = 10000;
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int ROUNDS = 20;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("benchmark", ".snapshot");
+
+        final MemoryStoreCore<Integer, String> core = createCore();
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            core.put(id, "value " + id);
+        }
+        core.writeSnapshot().blockingAwait();
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Test
+    public void restore() throws Exception {
+        final long[] requestTimes = new long[ROUNDS];
+        final long[] readTimes = new long[ROUNDS];
+
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            final long start = System.nanoTime();
+            final TestObserver<String> observer = createCore().getCached(round + WARMUP_ROUNDS).test();
+            final long requested = System.nanoTime();
+            observer.awaitTerminalEvent();
+            final long read = System.nanoTime();
+
+            if (round >= 0) {
+                requestTimes[round] = requested - start;
+                readTimes[round] = read - start;
+            }
+        }
+
+        Benchmark.report("MemoryStoreCore, create and request first read", requestTimes, 1);
+        Benchmark.report("MemoryStoreCore, create and receive first read", readTimes, 1);
+    }
+
+    @NonNull
+    private MemoryStoreCore<Integer, String> createCore() {
+        return new MemoryStoreCore.Builder<Integer, String>()
+                .valueCodec(new StringCodec())
+                .snapshotFile(file)
+                .build();
+    }
+
+    private static final class StringCodec implements ValueCodec<String> {
+        private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+        @NonNull
+        @Override
+        public byte[] encode(@NonNull final String item) {
+            return item.getBytes(UTF_8);
+        }
+
+        @NonNull
+        @Override
+        public String decode(@NonNull final byte[] bytes) {
+            return new String(bytes, UTF_8);
+        }
+    }
+}
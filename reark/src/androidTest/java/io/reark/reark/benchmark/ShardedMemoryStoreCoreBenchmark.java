@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.benchmark;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+import io.reark.reark.data.stores.cores.ShardedMemoryStoreCore;
+
+/**
+ * Compares concurrent puts to distinct ids in the ShardedMemoryStoreCore, waiting for each write
+ * to be applied, with puts to the lock-free MemoryStoreCore.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ShardedMemoryStoreCoreBenchmark {
+
+    private static final int[] THREAD_COUNTS = { 1, 4, 16 };
+
+    private static final int SHARD_COUNT = 4;
+
+    private static final int ID_COUNT = 1024;
+
+    private static final int OPERATIONS = 32000;
+
+    private static final String[] VALUES = { "value a", "value b" };
+
+    @Test
+    public void put() throws Exception {
+        for (int threadCount : THREAD_COUNTS) {
+            final ShardedMemoryStoreCore<Integer, String> shardedCore = new ShardedMemoryStoreCore<>(SHARD_COUNT);
+            final MemoryStoreCore<Integer, String> memoryCore = new MemoryStoreCore<>();
+
+            Benchmark.measureConcurrent("ShardedMemoryStoreCore.put, " + threadCount + " threads",
+                    threadCount, OPERATIONS / threadCount,
+                    (thread, i) -> shardedCore.put(thread * ID_COUNT + i % ID_COUNT,
+                            VALUES[(i / ID_COUNT) & 1]).blockingGet());
+            Benchmark.measureConcurrent("MemoryStoreCore.put, " + threadCount + " threads",
+                    threadCount, OPERATIONS / threadCount,
+                    (thread, i) -> memoryCore.put(thread * ID_COUNT + i % ID_COUNT,
+                            VALUES[(i / ID_COUNT) & 1]).blockingGet());
+
+            shardedCore.shutdown();
+        }
+    }
+}
@@ -25,6 +25,9 @@
  */
 package io.reark.reark.data.stores;
 
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.support.annotation.NonNull;
 import android.support.test.runner.AndroidJUnit4;
 import android.test.ProviderTestCase2;
 
@@ -35,6 +38,7 @@ import org.junit.runner.RunWith;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
 import io.reark.reark.data.stores.mock.SimpleMockContentProvider;
 import io.reark.reark.data.stores.mock.SimpleMockStore;
 import io.reark.reark.data.stores.mock.SimpleMockStoreCore;
@@ -105,6 +109,65 @@ public class ContentProviderStoreCoreTest extends ProviderTestCase2<SimpleMockCo
                 .assertValue(emptyList());
     }
 
+    @Test
+    public void put_WithFailingValueInGroup_WritesOtherValues() {
+        core = new FailingMockStoreCore(getMockContentResolver());
+
+        TestObserver<Boolean> failing = core.put(1, FailingMockStoreCore.FAILING_ITEM).test();
+        TestObserver<Boolean> other = core.put(2, "lettuce").test();
+
+        failing.awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(false);
+        other.awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(true);
+    }
+
+    @Test
+    public void put_WithFailingBatchInGroup_ReportsOnlyItsValuesAsFailed() {
+        core = new SingleOperationBatchMockStoreCore(getMockContentResolver());
+
+        TestObserver<Boolean> before = core.put(1, "lettuce").test();
+        TestObserver<Boolean> failing = core.put(2, SimpleMockContentProvider.FAILING_VALUE).test();
+        TestObserver<Boolean> after = core.put(3, "spinach").test();
+
+        before.awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(true);
+        failing.awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(false);
+        after.awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(true);
+    }
+
+    private static class SingleOperationBatchMockStoreCore extends SimpleMockStoreCore {
+
+        SingleOperationBatchMockStoreCore(@NonNull final ContentResolver contentResolver) {
+            super(contentResolver);
+        }
+
+        @Override
+        protected int getMaxBatchBytes() {
+            return 1;
+        }
+    }
+
+    private static class FailingMockStoreCore extends SimpleMockStoreCore {
+
+        static final String FAILING_ITEM = "failing";
+
+        FailingMockStoreCore(@NonNull final ContentResolver contentResolver) {
+            super(contentResolver);
+        }
+
+        @NonNull
+        @Override
+        public ContentValues getContentValuesForItem(@NonNull final String item) {
+            if (FAILING_ITEM.equals(item)) {
+                throw new IllegalArgumentException("Cannot encode " + item);
+            }
+            return super.getContentValuesForItem(item);
+        }
+    }
+
     private class ArrangeBuilder {
 
         ArrangeBuilder() {
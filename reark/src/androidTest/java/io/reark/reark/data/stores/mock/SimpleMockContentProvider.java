@@ -25,7 +25,10 @@
  */
 package io.reark.reark.data.stores.mock;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.net.Uri;
@@ -35,6 +38,7 @@ import android.support.annotation.Nullable;
 import android.test.mock.MockContentProvider;
 
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 
 /**
@@ -42,6 +46,9 @@ import java.util.LinkedHashMap;
  */
 public class SimpleMockContentProvider extends MockContentProvider {
 
+    // Value the provider refuses to insert, for testing failed batches
+    public static final String FAILING_VALUE = "failing value";
+
     // LinkedHashMap keeps the insertion order for more straightforward testing
     private final AbstractMap<Uri, String> values = new LinkedHashMap<>(5);
 
@@ -58,10 +65,27 @@ public class SimpleMockContentProvider extends MockContentProvider {
 
     @Override
     public Uri insert(Uri uri, ContentValues contentValues) {
+        if (FAILING_VALUE.equals(contentValues.getAsString(DataColumns.VALUE))) {
+            throw new IllegalArgumentException("Refusing to insert " + FAILING_VALUE);
+        }
         values.put(uri, contentValues.getAsString(DataColumns.VALUE));
         return uri;
     }
 
+    // Applies the operations one by one like the default implementation of the content provider
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull final ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        ContentProviderResult[] results = new ContentProviderResult[operations.size()];
+
+        for (int i = 0; i < operations.size(); i++) {
+            results[i] = operations.get(i).apply(this, results, i);
+        }
+
+        return results;
+    }
+
     @Override
     public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
         return getCursor(uri, projection);
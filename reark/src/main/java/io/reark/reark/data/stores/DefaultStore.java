@@ -26,15 +26,32 @@
 package io.reark.reark.data.stores;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
 import io.reark.reark.data.stores.interfaces.StoreCoreInterface;
 import io.reark.reark.data.stores.interfaces.StoreInterface;
+import io.reark.reark.utils.ConflateTransformer;
+import io.reark.reark.utils.Log;
 
 import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
 import static io.reark.reark.utils.Preconditions.get;
 
 /**
@@ -44,11 +61,27 @@ import static io.reark.reark.utils.Preconditions.get;
  *
  * The DefaultStore works with any StoreCore instance.
  *
+ * A store can be given a time to live for its items. The store then records the time of the latest
+ * write of each id, including the writes that reach the core from other processes, and reports
+ * items older than the time to live as expired. Without a time to live all items are expired, and
+ * the data should always be refreshed from the source. The write times are kept in a store core of
+ * their own. By default it is kept in memory, and all items are expired after the app restarts,
+ * but a persistent core, such as a MemoryStoreCore with a snapshot file, keeps the write times
+ * across restarts. A store without a time to live keeps no write times.
+ *
+ * With a refresh function, getOnceAndStream serves stale data while revalidating it: the stored
+ * item is emitted right away, and the refresh is started if the item is missing or has expired.
+ *
+ * The streams of getOnceAndStream can be conflated, so that a burst of writes to an id is emitted
+ * as its first and latest items only. This saves subscribers, such as views, from handling items
+ * that are replaced within a few milliseconds.
+ *
  * @param <T> Type of the id used in this store.
  * @param <U> Type of the data this store contains.
  * @param <R> Non-null type or wrapper for the data this store contains.
  */
 public class DefaultStore<T, U, R> implements StoreInterface<T, U, R> {
+    private static final String TAG = DefaultStore.class.getSimpleName();
 
     @NonNull
     private final StoreCoreInterface<T, U> core;
@@ -62,14 +95,73 @@ public class DefaultStore<T, U, R> implements StoreInterface<T, U, R> {
     @NonNull
     private final GetEmptyValue<R> getEmptyValue;
 
+    private final long timeToLiveMs;
+
+    // Null when the store has no time to live.
+    @Nullable
+    private final StoreCoreInterface<T, Long> writeTimeCore;
+
+    @Nullable
+    private final Disposable writeTimeDisposable;
+
+    @Nullable
+    private volatile ConflateTransformer<R> conflater;
+
+    @NonNull
+    private final AtomicLong conflatedCount = new AtomicLong();
+
     public DefaultStore(@NonNull final StoreCoreInterface<T, U> core,
                         @NonNull final GetIdForItem<T, U> getIdForItem,
                         @NonNull final GetNullSafe<U, R> getNullSafe,
                         @NonNull final GetEmptyValue<R> getEmptyValue) {
+        this(core, getIdForItem, getNullSafe, getEmptyValue, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public DefaultStore(@NonNull final StoreCoreInterface<T, U> core,
+                        @NonNull final GetIdForItem<T, U> getIdForItem,
+                        @NonNull final GetNullSafe<U, R> getNullSafe,
+                        @NonNull final GetEmptyValue<R> getEmptyValue,
+                        long timeToLive,
+                        @NonNull final TimeUnit timeUnit) {
+        this(core, getIdForItem, getNullSafe, getEmptyValue, get(timeUnit).toMillis(timeToLive),
+                timeToLive > 0 ? new MemoryStoreCore<>(Math::max) : null);
+    }
+
+    /**
+     * Creates a store that keeps the write times of its items in the given core. The core should
+     * keep the latest of the write times put for an id, for example with Math::max as its merge
+     * function.
+     */
+    public DefaultStore(@NonNull final StoreCoreInterface<T, U> core,
+                        @NonNull final GetIdForItem<T, U> getIdForItem,
+                        @NonNull final GetNullSafe<U, R> getNullSafe,
+                        @NonNull final GetEmptyValue<R> getEmptyValue,
+                        long timeToLive,
+                        @NonNull final TimeUnit timeUnit,
+                        @NonNull final StoreCoreInterface<T, Long> writeTimeCore) {
+        this(core, getIdForItem, getNullSafe, getEmptyValue, get(timeUnit).toMillis(timeToLive),
+                get(writeTimeCore));
+    }
+
+    private DefaultStore(@NonNull final StoreCoreInterface<T, U> core,
+                         @NonNull final GetIdForItem<T, U> getIdForItem,
+                         @NonNull final GetNullSafe<U, R> getNullSafe,
+                         @NonNull final GetEmptyValue<R> getEmptyValue,
+                         long timeToLiveMs,
+                         @Nullable final StoreCoreInterface<T, Long> writeTimeCore) {
         this.core = get(core);
         this.getIdForItem = get(getIdForItem);
         this.getNullSafe = get(getNullSafe);
         this.getEmptyValue = get(getEmptyValue);
+        this.timeToLiveMs = timeToLiveMs;
+        this.writeTimeCore = timeToLiveMs > 0 ? writeTimeCore : null;
+
+        // Values written by other processes only arrive through the core stream.
+        this.writeTimeDisposable = this.writeTimeCore != null
+                ? core.getStream()
+                        .subscribe(item -> markWritten(getIdForItem.call(item)),
+                                Log.onError(TAG, "Error tracking write times"))
+                : null;
     }
 
     @NonNull
@@ -77,7 +169,56 @@ public class DefaultStore<T, U, R> implements StoreInterface<T, U, R> {
     public Single<Boolean> put(@NonNull final U item) {
         checkNotNull(item);
 
-        return core.put(getIdForItem.call(item), item);
+        final T id = getIdForItem.call(item);
+        final Single<Boolean> result = core.put(id, item);
+
+        if (writeTimeCore == null) {
+            return result;
+        }
+
+        // The write time is recorded once the core has written the item, also if the caller
+        // does not subscribe to the result.
+        final Single<Boolean> cachedResult = result.cache();
+        cachedResult.subscribe(__ -> markWritten(id), Log.onError(TAG, "Error writing " + id));
+
+        return cachedResult;
+    }
+
+    @NonNull
+    @Override
+    public Single<List<Boolean>> putAll(@NonNull final List<U> items) {
+        checkNotNull(items);
+
+        final List<T> ids = new ArrayList<>(items.size());
+        final Map<T, U> itemMap = new LinkedHashMap<>(items.size());
+
+        for (U item : items) {
+            final T id = getIdForItem.call(get(item));
+            ids.add(id);
+            itemMap.put(id, item);
+        }
+
+        Single<Map<T, Boolean>> putResults = core.putAll(itemMap);
+
+        if (writeTimeCore != null) {
+            putResults = putResults.cache();
+            putResults.subscribe(written -> {
+                        for (T id : written.keySet()) {
+                            markWritten(id);
+                        }
+                    },
+                    Log.onError(TAG, "Error writing " + ids.size() + " items"));
+        }
+
+        return putResults
+                .map(results -> {
+                    final List<Boolean> list = new ArrayList<>(ids.size());
+                    for (T id : ids) {
+                        // A core may leave out the ids it did not write.
+                        list.add(Boolean.TRUE.equals(results.get(id)));
+                    }
+                    return list;
+                });
     }
 
     @NonNull
@@ -85,6 +226,11 @@ public class DefaultStore<T, U, R> implements StoreInterface<T, U, R> {
     public Single<Boolean> delete(@NonNull final T id) {
         checkNotNull(id);
 
+        if (writeTimeCore != null) {
+            writeTimeCore.delete(id)
+                    .subscribe(__ -> { }, Log.onError(TAG, "Error deleting write time of " + id));
+        }
+
         return core.delete(id);
     }
 
@@ -98,20 +244,164 @@ public class DefaultStore<T, U, R> implements StoreInterface<T, U, R> {
                 .toSingle(getEmptyValue.call());
     }
 
+    @NonNull
+    @Override
+    public Single<Map<T, R>> getOnce(@NonNull final Collection<T> ids) {
+        checkNotNull(ids);
+
+        return core.getCached(ids)
+                .map(items -> {
+                    final Map<T, R> results = new LinkedHashMap<>(ids.size());
+                    for (T id : ids) {
+                        final U item = items.get(id);
+                        results.put(id, item != null ? getNullSafe.call(item) : getEmptyValue.call());
+                    }
+                    return results;
+                });
+    }
+
     @NonNull
     @Override
     public Single<List<U>> getOnce() {
         return core.getCached();
     }
 
+    @NonNull
+    @Override
+    public Single<List<U>> getOnce(@NonNull final StoreQuery<U> query) {
+        return core.getCached(get(query));
+    }
+
     @NonNull
     @Override
     public Observable<R> getOnceAndStream(@NonNull final T id) {
         checkNotNull(id);
 
-        return Observable.concat(
+        return conflate(Observable.concat(
                 getOnce(id).toObservable(),
-                core.getStream(id).map(getNullSafe::call));
+                core.getStream(id).map(getNullSafe::call)));
+    }
+
+    @NonNull
+    @Override
+    public Observable<R> getOnceAndStream(@NonNull final T id, @NonNull final Refresh<T> refresh) {
+        checkNotNull(id);
+        checkNotNull(refresh);
+
+        return Observable.defer(() -> {
+            final AtomicBoolean expired = new AtomicBoolean(true);
+
+            final Single<R> once = core.getCached(id)
+                    .flatMap(item -> isWriteExpired(id)
+                            .doOnSuccess(expired::set)
+                            .map(__ -> getNullSafe.call(item))
+                            .toMaybe())
+                    .toSingle(getEmptyValue.call());
+
+            // The refresh is started only once the stream is followed, so that its item is not
+            // missed even if it is put right away.
+            final Observable<R> refreshes = Completable
+                    .fromAction(() -> {
+                        if (expired.get()) {
+                            refresh.call(id);
+                        }
+                    })
+                    .toObservable();
+
+            return conflate(Observable.concat(
+                    once.toObservable(),
+                    core.getStream(id).map(getNullSafe::call).mergeWith(refreshes)));
+        });
+    }
+
+    @NonNull
+    @Override
+    public Flowable<R> getOnceAndStream(@NonNull final T id, @NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getOnceAndStream(id));
+    }
+
+    @NonNull
+    @Override
+    public Observable<R> getStream(@NonNull final T id) {
+        checkNotNull(id);
+
+        return conflate(core.getStream(id).map(getNullSafe::call));
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> isExpired(@NonNull final T id) {
+        checkNotNull(id);
+
+        return core.getCached(id)
+                .flatMap(__ -> isWriteExpired(id).toMaybe())
+                .toSingle(true);
+    }
+
+    /**
+     * Stops following the writes of other processes for the write times. Writes through this
+     * store are still recorded.
+     */
+    public void dispose() {
+        if (writeTimeDisposable != null) {
+            writeTimeDisposable.dispose();
+        }
+    }
+
+    /**
+     * Conflates the streams of getOnceAndStream created after this call. Of the items of an id
+     * arriving within the window after an emitted item, only the latest is emitted when the window
+     * closes. A window of zero turns conflation off.
+     */
+    public final void setConflationWindow(long window, @NonNull final TimeUnit timeUnit) {
+        setConflationWindow(window, timeUnit, Schedulers.computation());
+    }
+
+    public final void setConflationWindow(long window,
+                                          @NonNull final TimeUnit timeUnit,
+                                          @NonNull final Scheduler scheduler) {
+        checkState(window >= 0, "Window must not be negative");
+
+        conflater = window > 0
+                ? new ConflateTransformer<>(window, timeUnit, scheduler, conflatedCount)
+                : null;
+    }
+
+    /**
+     * Returns the number of items the conflated streams have dropped in favor of later items.
+     */
+    public long getConflatedCount() {
+        return conflatedCount.get();
+    }
+
+    /**
+     * Returns the current time in milliseconds, used for the write times of the items.
+     */
+    protected long getCurrentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @NonNull
+    private Observable<R> conflate(@NonNull final Observable<R> stream) {
+        final ConflateTransformer<R> currentConflater = conflater;
+
+        return currentConflater != null ? stream.compose(currentConflater) : stream;
+    }
+
+    private void markWritten(@NonNull final T id) {
+        if (writeTimeCore != null) {
+            writeTimeCore.put(id, getCurrentTimeMillis())
+                    .subscribe(__ -> { }, Log.onError(TAG, "Error recording write time of " + id));
+        }
+    }
+
+    @NonNull
+    private Single<Boolean> isWriteExpired(@NonNull final T id) {
+        return writeTimeCore != null
+                ? writeTimeCore.getCached(id)
+                        .map(writeTime -> getCurrentTimeMillis() - writeTime >= timeToLiveMs)
+                        .toSingle(true)
+                : Single.just(true);
     }
 
     public interface GetIdForItem<T, U> {
@@ -29,6 +29,7 @@ import android.support.annotation.NonNull;
 
 import io.reactivex.functions.BiFunction;
 import io.reark.reark.data.stores.cores.MemoryStoreCore;
+import io.reark.reark.data.stores.cores.eviction.EvictionPolicy;
 
 /**
  * Perhaps the most simple self-contained store. Use this as a starter or when you do not need
@@ -52,4 +53,12 @@ public class MemoryStore<T, U, R> extends DefaultStore<T, U, R> {
                        @NonNull final GetEmptyValue<R> getEmptyValue) {
         super(new MemoryStoreCore<>(putMergeFunction), getIdForItem, getNullSafe, getEmptyValue);
     }
+
+    public MemoryStore(@NonNull final BiFunction<U, U, U> putMergeFunction,
+                       @NonNull final EvictionPolicy<U> evictionPolicy,
+                       @NonNull final GetIdForItem<T, U> getIdForItem,
+                       @NonNull final GetNullSafe<U, R> getNullSafe,
+                       @NonNull final GetEmptyValue<R> getEmptyValue) {
+        super(new MemoryStoreCore<>(putMergeFunction, evictionPolicy), getIdForItem, getNullSafe, getEmptyValue);
+    }
 }
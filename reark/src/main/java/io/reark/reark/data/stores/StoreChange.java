@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A change in a store core, stamped with the sequence number of the change. The sequence numbers
+ * of a core increase by one for each change, so a subscriber can tell which changes it has seen.
+ * The numbers also identify the instance of the core, so they are not comparable across
+ * instances.
+ *
+ * A change is a put of an item, a delete of an id, or a snapshot. A snapshot replaces all changes
+ * up to its sequence number, and holds all items of the core. It is sent when the changes a
+ * subscriber missed are no longer known.
+ *
+ * @param <T> Type of the identifier.
+ * @param <U> Type of the data item.
+ */
+public final class StoreChange<T, U> {
+
+    public enum Type {
+        PUT, DELETE, SNAPSHOT
+    }
+
+    @NonNull
+    private final Type type;
+
+    private final long sequence;
+
+    @Nullable
+    private final T id;
+
+    @Nullable
+    private final U item;
+
+    @NonNull
+    private final List<U> items;
+
+    private StoreChange(@NonNull final Type type,
+                        long sequence,
+                        @Nullable final T id,
+                        @Nullable final U item,
+                        @NonNull final List<U> items) {
+        this.type = type;
+        this.sequence = sequence;
+        this.id = id;
+        this.item = item;
+        this.items = items;
+    }
+
+    @NonNull
+    public static <T, U> StoreChange<T, U> put(long sequence, @NonNull final T id, @NonNull final U item) {
+        return new StoreChange<>(Type.PUT, sequence, get(id), get(item), Collections.singletonList(item));
+    }
+
+    @NonNull
+    public static <T, U> StoreChange<T, U> delete(long sequence, @NonNull final T id) {
+        return new StoreChange<>(Type.DELETE, sequence, get(id), null, Collections.emptyList());
+    }
+
+    @NonNull
+    public static <T, U> StoreChange<T, U> snapshot(long sequence, @NonNull final List<U> items) {
+        return new StoreChange<>(Type.SNAPSHOT, sequence, null, null, Collections.unmodifiableList(get(items)));
+    }
+
+    @NonNull
+    public Type type() {
+        return type;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The id of a put or a delete, or null for a snapshot.
+     */
+    @Nullable
+    public T id() {
+        return id;
+    }
+
+    /**
+     * @return The item of a put, or null for other changes.
+     */
+    @Nullable
+    public U item() {
+        return item;
+    }
+
+    /**
+     * @return The items of a snapshot, the item of a put, or an empty list for a delete.
+     */
+    @NonNull
+    public List<U> items() {
+        return items;
+    }
+
+    @Override
+    public String toString() {
+        return "StoreChange{" +
+                "type=" + type +
+                ", sequence=" + sequence +
+                ", id=" + id +
+                ", items=" + items.size() +
+                '}';
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A page of items read from a store core. The page holds the key from which the next page
+ * continues, so that reading a page does not depend on the pages before it. The key is opaque
+ * to the users of the core.
+ *
+ * @param <U> Type of the data items.
+ */
+public final class StorePage<U> {
+
+    @NonNull
+    private final List<U> items;
+
+    @Nullable
+    private final Object nextKey;
+
+    public StorePage(@NonNull final List<U> items, @Nullable final Object nextKey) {
+        this.items = get(items);
+        this.nextKey = nextKey;
+    }
+
+    @NonNull
+    public List<U> items() {
+        return items;
+    }
+
+    /**
+     * Returns the key after which the next page starts, or null if this is the last page.
+     */
+    @Nullable
+    public Object nextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+
+    /**
+     * Creates a Flowable that emits the items of all pages. A page is read only when the previous
+     * one has been consumed, so at most two pages are held in memory at a time.
+     *
+     * @param pageLoader Function for reading the page after the given page, or the first page in
+     *                   case of null.
+     */
+    @NonNull
+    public static <U> Flowable<U> flowable(@NonNull final PageLoader<U> pageLoader) {
+        checkNotNull(pageLoader);
+
+        return Flowable.<StorePage<U>, AtomicReference<StorePage<U>>>generate(
+                AtomicReference::new,
+                (previousPage, emitter) -> {
+                    final StorePage<U> page = pageLoader.load(previousPage.get()).blockingGet();
+                    previousPage.set(page);
+                    emitter.onNext(page);
+
+                    if (!page.hasNext()) {
+                        emitter.onComplete();
+                    }
+                })
+                .subscribeOn(Schedulers.io())
+                .flatMapIterable(StorePage::items, 1);
+    }
+
+    public interface PageLoader<U> {
+        @NonNull
+        Single<StorePage<U>> load(@Nullable StorePage<U> previousPage);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Comparator;
+
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A query for the items of a store core, with optional filtering, ordering and a limit. The store
+ * core evaluates the query where the items are, so that items it does not return are not read.
+ *
+ * Persistent cores and memory cores evaluate the query differently. A content provider core
+ * passes the selection and the sort order on to SQL, while memory cores use the filter and the
+ * comparator. A query meant for both kinds of cores should give both forms, and they should
+ * agree. A core throws an IllegalStateException for a query it cannot evaluate.
+ *
+ * @param <U> Type of the data items.
+ */
+public final class StoreQuery<U> {
+
+    @Nullable
+    private final String selection;
+
+    @Nullable
+    private final String[] selectionArgs;
+
+    @Nullable
+    private final String sortOrder;
+
+    @Nullable
+    private final Filter<U> filter;
+
+    @Nullable
+    private final Comparator<U> comparator;
+
+    private final int limit;
+
+    private StoreQuery(@Nullable final String selection,
+                       @Nullable final String[] selectionArgs,
+                       @Nullable final String sortOrder,
+                       @Nullable final Filter<U> filter,
+                       @Nullable final Comparator<U> comparator,
+                       int limit) {
+        this.selection = selection;
+        this.selectionArgs = selectionArgs;
+        this.sortOrder = sortOrder;
+        this.filter = filter;
+        this.comparator = comparator;
+        this.limit = limit;
+    }
+
+    /**
+     * @return The SQL selection of the query, or null to select all items.
+     */
+    @Nullable
+    public String getSelection() {
+        return selection;
+    }
+
+    @Nullable
+    public String[] getSelectionArgs() {
+        return selectionArgs != null ? selectionArgs.clone() : null;
+    }
+
+    /**
+     * @return The SQL sort order of the query, without the ORDER BY keywords, or null.
+     */
+    @Nullable
+    public String getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * @return The in-memory form of the selection, or null to select all items.
+     */
+    @Nullable
+    public Filter<U> getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return The in-memory form of the sort order, or null.
+     */
+    @Nullable
+    public Comparator<U> getComparator() {
+        return comparator;
+    }
+
+    /**
+     * @return The maximum number of items to return, or zero for no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasLimit() {
+        return limit > 0;
+    }
+
+    public interface Filter<U> {
+        boolean call(@NonNull final U item);
+    }
+
+    public static class Builder<U> {
+        @Nullable
+        private String selection;
+
+        @Nullable
+        private String[] selectionArgs;
+
+        @Nullable
+        private String sortOrder;
+
+        @Nullable
+        private Filter<U> filter;
+
+        @Nullable
+        private Comparator<U> comparator;
+
+        private int limit;
+
+        @NonNull
+        public Builder<U> selection(@NonNull final String selection, @NonNull final String... selectionArgs) {
+            this.selection = get(selection);
+            this.selectionArgs = get(selectionArgs).length == 0 ? null : selectionArgs.clone();
+
+            return this;
+        }
+
+        @NonNull
+        public Builder<U> sortOrder(@NonNull final String sortOrder) {
+            this.sortOrder = get(sortOrder);
+
+            return this;
+        }
+
+        @NonNull
+        public Builder<U> filter(@NonNull final Filter<U> filter) {
+            this.filter = get(filter);
+
+            return this;
+        }
+
+        @NonNull
+        public Builder<U> comparator(@NonNull final Comparator<U> comparator) {
+            this.comparator = get(comparator);
+
+            return this;
+        }
+
+        @NonNull
+        public Builder<U> limit(int limit) {
+            checkState(limit > 0, "Limit must be positive");
+
+            this.limit = limit;
+
+            return this;
+        }
+
+        @NonNull
+        public StoreQuery<U> build() {
+            return new StoreQuery<>(selection, selectionArgs, sortOrder, filter, comparator, limit);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+
+import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
+
+/**
+ * Decides what a stream does with the items its subscriber is not yet ready to receive. Streams
+ * of stores are hot, so without a strategy a slow subscriber would buffer all items put into the
+ * store meanwhile.
+ */
+public final class StreamOverflow {
+
+    private enum Strategy {
+        LATEST, DROP, BUFFER
+    }
+
+    @NonNull
+    private static final StreamOverflow LATEST = new StreamOverflow(Strategy.LATEST, 0);
+
+    @NonNull
+    private static final StreamOverflow DROP = new StreamOverflow(Strategy.DROP, 0);
+
+    @NonNull
+    private final Strategy strategy;
+
+    private final int capacity;
+
+    private StreamOverflow(@NonNull final Strategy strategy, int capacity) {
+        this.strategy = strategy;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Keeps only the latest item not yet received. Suits subscribers that render the current
+     * state, such as views.
+     */
+    @NonNull
+    public static StreamOverflow latest() {
+        return LATEST;
+    }
+
+    /**
+     * Drops the items put while the subscriber is not ready to receive.
+     */
+    @NonNull
+    public static StreamOverflow drop() {
+        return DROP;
+    }
+
+    /**
+     * Buffers up to the given number of items not yet received, dropping the oldest of them when
+     * the buffer is full.
+     */
+    @NonNull
+    public static StreamOverflow buffer(int capacity) {
+        checkState(capacity > 0, "Capacity must be positive");
+
+        return new StreamOverflow(Strategy.BUFFER, capacity);
+    }
+
+    /**
+     * Converts the stream to a Flowable that handles overflow with this strategy.
+     */
+    @NonNull
+    public <U> Flowable<U> apply(@NonNull final Observable<U> stream) {
+        checkNotNull(stream);
+
+        switch (strategy) {
+            case LATEST:
+                return stream.toFlowable(BackpressureStrategy.LATEST);
+            case DROP:
+                return stream.toFlowable(BackpressureStrategy.DROP);
+            case BUFFER:
+            default:
+                return stream.toFlowable(BackpressureStrategy.MISSING)
+                        .onBackpressureBuffer(capacity, null, BackpressureOverflowStrategy.DROP_OLDEST);
+        }
+    }
+}
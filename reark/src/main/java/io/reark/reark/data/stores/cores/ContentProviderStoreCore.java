@@ -29,19 +29,35 @@ import android.content.ContentResolver;
 import android.database.ContentObserver;
 import android.net.Uri;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.subjects.PublishSubject;
 import io.reark.reark.data.stores.StoreItem;
+import io.reark.reark.data.stores.StoreChange;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.StreamOverflow;
 import io.reark.reark.data.stores.interfaces.StoreCoreInterface;
 import io.reark.reark.utils.Log;
 import io.reark.reark.utils.Preconditions;
 
 import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.get;
 import static java.lang.String.format;
 
 /**
@@ -60,36 +76,105 @@ public abstract class ContentProviderStoreCore<T, U>
 
     private static final String TAG = ContentProviderStoreCore.class.getSimpleName();
 
+    // Changes of one applied batch arrive together, so a short window is enough to group them.
+    private static final int CHANGE_GROUPING_TIMEOUT_MS = 16;
+
+    private static final int CHANGE_GROUP_MAX_SIZE = DEFAULT_GROUP_MAX_SIZE;
+
     @NonNull
     private final PublishSubject<StoreItem<T, U>> subjectCache = PublishSubject.create();
 
+    @NonNull
+    private final StoreChangeLog<T, U> changeLog = new StoreChangeLog<>();
+
+    @NonNull
+    private final PublishSubject<Uri> changedUris = PublishSubject.create();
+
     protected ContentProviderStoreCore(@NonNull final ContentResolver contentResolver) {
         super(contentResolver);
+        initializeChanges();
     }
 
     protected ContentProviderStoreCore(@NonNull final ContentResolver contentResolver,
                                        final int groupingTimeout,
                                        final int groupMaxSize) {
         super(contentResolver, groupingTimeout, groupMaxSize);
+        initializeChanges();
+    }
+
+    protected ContentProviderStoreCore(@NonNull final ContentResolver contentResolver,
+                                       final int groupingTimeout,
+                                       final int groupMaxSize,
+                                       final int maxGroupingLatency) {
+        super(contentResolver, groupingTimeout, groupMaxSize, maxGroupingLatency);
+        initializeChanges();
+    }
+
+    private void initializeChanges() {
+        // Group the changes, so that the changes of one applied batch are read back with one
+        // query. The grouping of the operations can be overridden and may delay for long, so
+        // the changes are grouped separately.
+        changedUris.buffer(CHANGE_GROUPING_TIMEOUT_MS, TimeUnit.MILLISECONDS, CHANGE_GROUP_MAX_SIZE)
+                .filter(uris -> !uris.isEmpty())
+                .toFlowable(BackpressureStrategy.BUFFER)
+                // Read the groups one at a time, so the changes are emitted in order.
+                .flatMapCompletable(this::readChanges, false, 1)
+                .subscribe(() -> { }, Log.onError(TAG, "Error while handling content changes!"));
     }
 
     @NonNull
     @Override
     protected ContentObserver getContentObserver() {
-        return new ContentObserver(createHandler(getClass().getSimpleName())) {
+        return new ContentObserver(getDispatchHandler()) {
             @Override
             public void onChange(boolean selfChange, Uri uri) {
                 super.onChange(selfChange, uri);
 
-                getOnce(uri)
-                        .doOnSuccess(item -> Log.v(TAG, format("onChange(%1s)", uri)))
-                        .map(item -> new StoreItem<>(getIdForUri(uri), item))
-                        .subscribe(subjectCache::onNext,
-                                   error -> Log.e(TAG, "Cannot retrieve the item: " + uri, error));
+                onContentChange(uri);
             }
         };
     }
 
+    @SuppressWarnings("ConstantConditions")
+    void onContentChange(@NonNull final Uri uri) {
+        // The base class registers the observer in its constructor, so a change may arrive before
+        // the fields of this class are set. Nothing can observe the changes before that.
+        if (changedUris != null) {
+            changedUris.onNext(uri);
+        }
+    }
+
+    /**
+     * Reads the items of the changed Uris with one query, and emits them to the streams. A change
+     * of the whole table has no single item to read.
+     */
+    @NonNull
+    private Completable readChanges(@NonNull final List<Uri> changes) {
+        final Set<Uri> uris = new LinkedHashSet<>(changes);
+        uris.remove(getContentUri());
+
+        return getOnce(uris)
+                .doOnSuccess(items -> {
+                    Log.v(TAG, format("onChange(%1s uris)", uris.size()));
+
+                    for (Uri uri : uris) {
+                        final U item = items.get(uri);
+
+                        if (item == null) {
+                            onItemMissing(uri);
+                            continue;
+                        }
+
+                        final T id = getIdForUri(uri);
+                        changeLog.append(id, item);
+                        subjectCache.onNext(new StoreItem<>(id, item));
+                    }
+                })
+                .toCompletable()
+                .doOnError(error -> Log.e(TAG, "Cannot retrieve the items of " + uris.size() + " uris", error))
+                .onErrorComplete();
+    }
+
     @NonNull
     @Override
     public Single<Boolean> put(@NonNull final T id, @NonNull final U item) {
@@ -98,6 +183,30 @@ public abstract class ContentProviderStoreCore<T, U>
         return put(getUriForId(id), Preconditions.get(item));
     }
 
+    @NonNull
+    @Override
+    public Single<Map<T, Boolean>> putAll(@NonNull final Map<T, U> items) {
+        checkNotNull(items);
+
+        final Map<Uri, T> ids = new HashMap<>(items.size());
+        final Map<Uri, U> uriItems = new LinkedHashMap<>(items.size());
+
+        for (Map.Entry<T, U> entry : items.entrySet()) {
+            final Uri uri = getUriForId(entry.getKey());
+            ids.put(uri, entry.getKey());
+            uriItems.put(uri, Preconditions.get(entry.getValue()));
+        }
+
+        return putAllByUri(uriItems)
+                .map(results -> {
+                    final Map<T, Boolean> idResults = new LinkedHashMap<>(results.size());
+                    for (Map.Entry<Uri, Boolean> result : results.entrySet()) {
+                        idResults.put(ids.get(result.getKey()), result.getValue());
+                    }
+                    return idResults;
+                });
+    }
+
     @NonNull
     @Override
     public Single<Boolean> delete(@NonNull final T id) {
@@ -114,12 +223,53 @@ public abstract class ContentProviderStoreCore<T, U>
         return getOnce(getUriForId(id));
     }
 
+    @NonNull
+    @Override
+    public Single<Map<T, U>> getCached(@NonNull final Collection<T> ids) {
+        checkNotNull(ids);
+
+        final Map<Uri, T> uris = new LinkedHashMap<>(ids.size());
+        for (T id : ids) {
+            uris.put(getUriForId(id), id);
+        }
+
+        return getOnce(uris.keySet())
+                .map(items -> {
+                    final Map<T, U> idItems = new LinkedHashMap<>(items.size());
+                    for (Map.Entry<Uri, T> entry : uris.entrySet()) {
+                        final U item = items.get(entry.getKey());
+                        if (item != null) {
+                            idItems.put(entry.getValue(), item);
+                        }
+                    }
+                    return idItems;
+                });
+    }
+
     @NonNull
     @Override
     public Single<List<U>> getCached() {
         return getAllOnce(getContentUri());
     }
 
+    @NonNull
+    @Override
+    public Single<List<U>> getCached(@NonNull final StoreQuery<U> query) {
+        return getAllOnce(query);
+    }
+
+    @NonNull
+    @Override
+    public Single<StorePage<U>> getCachedPage(@Nullable final StorePage<U> previousPage, int pageSize) {
+        return getPage(previousPage, pageSize);
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getCachedFlowable(int pageSize) {
+        return StorePage.flowable(previousPage -> getPage(previousPage, pageSize));
+    }
+
     @NonNull
     @Override
     public Observable<U> getStream(@NonNull final T id) {
@@ -135,6 +285,29 @@ public abstract class ContentProviderStoreCore<T, U>
         return subjectCache.map(StoreItem::item);
     }
 
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final T id, @NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream(id));
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream());
+    }
+
+    @NonNull
+    @Override
+    public Observable<StoreChange<T, U>> getChangesSince(long sequence) {
+        return changeLog.getChangesSince(sequence, this::getCached);
+    }
+
+    private void onItemMissing(@NonNull final Uri uri) {
+        Log.v(TAG, format("onChange(%1s) deleted", uri));
+        changeLog.append(getIdForUri(uri), null);
+    }
+
     /**
      * Returns unique Uri for the given id in the content provider of this store.
      *
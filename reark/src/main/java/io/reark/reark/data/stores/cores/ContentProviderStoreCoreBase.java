@@ -26,20 +26,31 @@
 package io.reark.reark.data.stores.cores;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.RemoteException;
+import android.os.TransactionTooLargeException;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Observable;
 import io.reactivex.Single;
@@ -49,15 +60,19 @@ import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.PublishSubject;
 import io.reactivex.subjects.Subject;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
 import io.reark.reark.data.stores.cores.operations.CoreOperation;
 import io.reark.reark.data.stores.cores.operations.CoreOperationResult;
 import io.reark.reark.data.stores.cores.operations.CoreValue;
 import io.reark.reark.data.stores.cores.operations.CoreValueDelete;
 import io.reark.reark.data.stores.cores.operations.CoreValuePut;
+import io.reark.reark.data.stores.cores.operations.OperationSize;
 import io.reark.reark.utils.Log;
-import io.reark.reark.utils.ObjectLockHandler;
+import io.reark.reark.utils.ObjectLockQueue;
 
 import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
 import static io.reark.reark.utils.Preconditions.get;
 
 /**
@@ -65,7 +80,12 @@ import static io.reark.reark.utils.Preconditions.get;
  * its data backing store.
  *
  * All content provider operations are threaded. The store executes put operations in order, but
- * provides no guarantee for the execution order between get and put operations.
+ * provides no guarantee for the execution order between get and put operations. The reads and
+ * merges of the next batch of puts are done while the previous batch is applied.
+ *
+ * Puts and deletes are grouped, and each group is applied with one query for the current items
+ * and one batch of content provider operations, which costs two binder calls per group. Stores
+ * with upsert enabled skip the query.
  *
  * This in an abstract class that implements the content provider access and expects extending
  * classes to implement data type specific methods.
@@ -80,6 +100,17 @@ public abstract class ContentProviderStoreCoreBase<U> {
 
     static final int DEFAULT_GROUP_MAX_SIZE = 30;
 
+    static final int DEFAULT_MAX_GROUPING_LATENCY_MS = 500;
+
+    // Binder transactions share a buffer of 1 MB per process.
+    static final int DEFAULT_MAX_BATCH_BYTES = 256 * 1024;
+
+    // SQLite allows at most 999 variables in a statement.
+    private static final int MAX_SELECTION_ARGS = 500;
+
+    @Nullable
+    private static Handler dispatchHandler;
+
     @NonNull
     private final ContentResolver contentResolver;
 
@@ -87,7 +118,7 @@ public abstract class ContentProviderStoreCoreBase<U> {
     private final PublishSubject<CoreValue<U>> operationSubject = PublishSubject.create();
 
     @NonNull
-    private final ObjectLockHandler<Uri> locker = new ObjectLockHandler<>();
+    private final ObjectLockQueue<Uri> locker = new ObjectLockQueue<>();
 
     @Nullable
     private Disposable updateDisposable;
@@ -96,6 +127,8 @@ public abstract class ContentProviderStoreCoreBase<U> {
 
     private final int groupingTimeout;
 
+    private final int maxGroupingLatency;
+
     protected ContentProviderStoreCoreBase(@NonNull final ContentResolver contentResolver) {
         this(contentResolver, DEFAULT_GROUPING_TIMEOUT_MS, DEFAULT_GROUP_MAX_SIZE);
     }
@@ -103,9 +136,20 @@ public abstract class ContentProviderStoreCoreBase<U> {
     protected ContentProviderStoreCoreBase(@NonNull final ContentResolver contentResolver,
                                            final int groupingTimeout,
                                            final int groupMaxSize) {
+        this(contentResolver, groupingTimeout, groupMaxSize, Math.max(groupingTimeout, DEFAULT_MAX_GROUPING_LATENCY_MS));
+    }
+
+    protected ContentProviderStoreCoreBase(@NonNull final ContentResolver contentResolver,
+                                           final int groupingTimeout,
+                                           final int groupMaxSize,
+                                           final int maxGroupingLatency) {
+        checkState(groupMaxSize > 0, "Group max size must be positive");
+        checkState(maxGroupingLatency >= groupingTimeout, "Max grouping latency must not be below the timeout");
+
         this.contentResolver = get(contentResolver);
         this.groupingTimeout = groupingTimeout;
         this.groupMaxSize = groupMaxSize;
+        this.maxGroupingLatency = maxGroupingLatency;
 
         initialize();
     }
@@ -113,33 +157,281 @@ public abstract class ContentProviderStoreCoreBase<U> {
     private void initialize() {
         contentResolver.registerContentObserver(getContentUri(), true, getContentObserver());
 
-        // Observable transforming inserts, updates and deletes to ContentProviderOperations
-        Observable<CoreOperation> operationObservable = operationSubject
-                .flatMap(this::createCoreOperation);
-
-        // Group the operations to a list that should be executed in one batch. The default
-        // grouping logic is suitable for pojo stores, but some stores may need to provide
-        // their own grouping logic if for example buffering delays are undesirable.
-        updateDisposable = groupOperations(operationObservable)
-                .observeOn(Schedulers.computation())
-                .doOnNext(operations -> Log.v(TAG, "Grouped list of " + operations.size()))
-                .flatMap(this::applyOperations) // No guarantees on operation ordering
-                .subscribe(this::release,
-                        // On error we can't release the processing lock, as the Uri reference
-                        // is lost. It's perhaps better to error out of the subscription than
-                        // to leave some of the Uris locked and continue.
+        // Group the values to lists that should be executed in one batch. The default grouping
+        // logic is suitable for pojo stores, but some stores may need to provide their own
+        // grouping logic if for example buffering delays are undesirable.
+        updateDisposable = groupOperations(operationSubject)
+                .toFlowable(BackpressureStrategy.BUFFER)
+                .doOnNext(values -> Log.v(TAG, "Grouped list of " + values.size()))
+                .concatMapIterable(values -> splitByUri(coalesceByUri(values)))
+                // Prepare the batches one at a time, while the previous ones are applied. Waiting
+                // for the locks of the Uris doesn't hold a thread.
+                .concatMap(values -> locker.acquire(urisOf(values))
+                        .observeOn(Schedulers.io())
+                        .andThen(Flowable.fromCallable(() -> prepareValues(values))), 1)
+                // Apply the batches one at a time, in order.
+                .concatMap(batch -> Flowable.fromCallable(() -> applyPrepared(batch))
+                        .subscribeOn(Schedulers.io()), 1)
+                .subscribe(ContentProviderStoreCoreBase::notifyCompletion,
                         Log.onError(TAG, "Error while handling data operations!"));
     }
 
+    /**
+     * Folds the puts of a Uri in the group into one put, so that the Uri is read and written once.
+     * The folded put keeps the items in the order of the puts, and they are merged against the
+     * current item when the batch is prepared. A delete ends the folding, as the puts after it
+     * must be applied after the delete. All callers of a folded put are notified with the result
+     * of the one write.
+     */
     @NonNull
-    private Observable<CoreOperationResult> applyOperations(@NonNull final List<CoreOperation> operations) {
-        return Observable.fromCallable(() -> {
-                    ArrayList<ContentProviderOperation> contentOperations = contentOperations(operations);
-                    return contentResolver.applyBatch(getAuthority(), contentOperations);
-                })
-                .doOnNext(result -> Log.v(TAG, String.format("Applied %s operations", result.length)))
-                .flatMap(Observable::fromArray)
-                .zipWith(operations, CoreOperationResult::new);
+    private List<CoreValue<U>> coalesceByUri(@NonNull final List<CoreValue<U>> values) {
+        final List<CoreValue<U>> coalesced = new ArrayList<>(values.size());
+        // Index of the put of a Uri in the coalesced list that later puts can be folded into.
+        final Map<Uri, Integer> putIndices = new HashMap<>(values.size());
+        final Map<Integer, Subject<Boolean>> notifiers = new HashMap<>(1);
+
+        for (CoreValue<U> value : values) {
+            final Integer index = putIndices.get(value.uri());
+
+            if (value.type() != CoreValue.Type.PUT) {
+                putIndices.remove(value.uri());
+                coalesced.add(value);
+                continue;
+            }
+
+            if (index == null) {
+                putIndices.put(value.uri(), coalesced.size());
+                coalesced.add(value);
+                continue;
+            }
+
+            final CoreValuePut<U> previous = (CoreValuePut<U>) coalesced.get(index);
+            final CoreValuePut<U> next = (CoreValuePut<U>) value;
+            final List<U> items = new ArrayList<>(previous.items().size() + 1);
+            items.addAll(previous.items());
+            items.addAll(next.items());
+
+            Subject<Boolean> notifier = notifiers.get(index);
+            if (notifier == null) {
+                notifier = PublishSubject.create();
+                notifier.subscribe(previous.completionNotifier()::onNext);
+                notifiers.put(index, notifier);
+            }
+            notifier.subscribe(next.completionNotifier()::onNext);
+
+            coalesced.set(index, CoreValuePut.create(notifier, value.uri(), items));
+        }
+
+        if (coalesced.size() < values.size()) {
+            Log.v(TAG, "Coalesced " + values.size() + " values to " + coalesced.size());
+        }
+
+        return coalesced;
+    }
+
+    /**
+     * Splits the values so that each list has at most one value for a Uri. The later values of a
+     * Uri are applied in the following batches, after the earlier ones.
+     */
+    @NonNull
+    private static <U> List<List<CoreValue<U>>> splitByUri(@NonNull final List<CoreValue<U>> values) {
+        final List<List<CoreValue<U>>> batches = new ArrayList<>(1);
+        final Map<Uri, Integer> valueCounts = new HashMap<>(values.size());
+
+        for (CoreValue<U> value : values) {
+            final Integer count = valueCounts.get(value.uri());
+            final int batch = count == null ? 0 : count;
+            valueCounts.put(value.uri(), batch + 1);
+
+            if (batch == batches.size()) {
+                batches.add(new ArrayList<>(values.size()));
+            }
+            batches.get(batch).add(value);
+        }
+
+        return batches;
+    }
+
+    @NonNull
+    private static <U> List<Uri> urisOf(@NonNull final List<CoreValue<U>> values) {
+        final List<Uri> uris = new ArrayList<>(values.size());
+        for (CoreValue<U> value : values) {
+            uris.add(value.uri());
+        }
+        return uris;
+    }
+
+    /**
+     * Reads the current items of the locked Uris of the values with one query, and creates the
+     * content provider operations. The locks are held until the batch has been applied. An error
+     * in the query fails all of the values, and an error in merging or encoding a value fails
+     * only that value.
+     */
+    @NonNull
+    private PreparedBatch prepareValues(@NonNull final List<CoreValue<U>> values) {
+        final List<Uri> uris = urisOf(values);
+        final List<Uri> putUris = new ArrayList<>(values.size());
+        for (CoreValue<U> value : values) {
+            if (value.type() == CoreValue.Type.PUT) {
+                putUris.add(value.uri());
+            }
+        }
+
+        try {
+            final Map<Uri, U> currentItems = putUris.isEmpty() || isUpsertEnabled()
+                    ? Collections.emptyMap()
+                    : queryItems(putUris);
+            final PreparedBatch batch = new PreparedBatch(uris, values.size());
+
+            for (CoreValue<U> value : values) {
+                final CoreOperation operation;
+
+                try {
+                    operation = createCoreOperation(value, currentItems);
+                } catch (Exception e) {
+                    // A value that can't be merged or encoded fails alone.
+                    Log.e(TAG, "Error while preparing the value of " + value.uri(), e);
+                    batch.results.add(new CoreOperationResult(value.noOperation(), false));
+                    continue;
+                }
+
+                if (operation.isValid()) {
+                    batch.operations.add(operation);
+                } else {
+                    batch.results.add(new CoreOperationResult(operation, false));
+                }
+            }
+
+            return batch;
+        } catch (Exception e) {
+            Log.e(TAG, "Error while preparing " + values.size() + " values", e);
+
+            locker.release(uris);
+
+            final PreparedBatch batch = new PreparedBatch(Collections.emptyList(), values.size());
+            for (CoreValue<U> value : values) {
+                batch.results.add(new CoreOperationResult(value.noOperation(), false));
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Applies the operations of the batch and releases its locks. The operations of a batch that
+     * failed to apply fail, while the other batches of the group keep their results.
+     */
+    @NonNull
+    private List<CoreOperationResult> applyPrepared(@NonNull final PreparedBatch batch) {
+        final List<CoreOperation> operations = batch.operations;
+        final List<CoreOperationResult> results = batch.results;
+
+        try {
+            if (!operations.isEmpty()) {
+                final int[] sizes = new int[operations.size()];
+                for (int i = 0; i < sizes.length; i++) {
+                    sizes[i] = operations.get(i).estimatedSize();
+                }
+
+                final ContentProviderResult[] operationResults = applyBatches(contentOperations(operations), sizes);
+
+                for (int i = 0; i < operationResults.length; i++) {
+                    results.add(operationResults[i] != null
+                            ? new CoreOperationResult(operationResults[i], operations.get(i))
+                            : new CoreOperationResult(operations.get(i), false));
+                }
+            }
+
+            Log.v(TAG, String.format("Applied %s operations", operations.size()));
+        } catch (Exception e) {
+            Log.e(TAG, "Error while applying " + operations.size() + " operations", e);
+
+            for (CoreOperation operation : operations) {
+                results.add(new CoreOperationResult(operation, false));
+            }
+        } finally {
+            if (!batch.lockedUris.isEmpty()) {
+                locker.release(batch.lockedUris);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Applies the operations in batches that fit in the byte budget. A batch that is still too
+     * large for a binder transaction never reached the provider, so it is split in half and
+     * retried. The results of operations too large to be sent even alone are null, as are the
+     * results of a batch that failed. The batches before it stay applied, and the ones after it
+     * are still applied, as a batch has at most one operation for a Uri.
+     */
+    @NonNull
+    private ContentProviderResult[] applyBatches(@NonNull final List<ContentProviderOperation> operations,
+                                                 @NonNull final int[] sizes) {
+        final ContentProviderResult[] results = new ContentProviderResult[operations.size()];
+        final int maxBatchBytes = getMaxBatchBytes();
+        int start = 0;
+        int batchBytes = 0;
+
+        for (int i = 0; i < operations.size(); i++) {
+            if (i > start && batchBytes + sizes[i] > maxBatchBytes) {
+                applyBatch(operations, start, i, results);
+                start = i;
+                batchBytes = 0;
+            }
+            batchBytes += sizes[i];
+        }
+
+        applyBatch(operations, start, operations.size(), results);
+
+        return results;
+    }
+
+    private void applyBatch(@NonNull final List<ContentProviderOperation> operations,
+                            int start,
+                            int end,
+                            @NonNull final ContentProviderResult[] results) {
+        try {
+            final ContentProviderResult[] batchResults =
+                    contentResolver.applyBatch(getAuthority(), new ArrayList<>(operations.subList(start, end)));
+            System.arraycopy(batchResults, 0, results, start, Math.min(batchResults.length, end - start));
+        } catch (TransactionTooLargeException e) {
+            if (end - start == 1) {
+                Log.e(TAG, "Operation too large for a transaction", e);
+                return;
+            }
+
+            Log.w(TAG, "Splitting a batch of " + (end - start) + " operations too large for a transaction");
+            final int middle = (start + end) >>> 1;
+            applyBatch(operations, start, middle, results);
+            applyBatch(operations, middle, end, results);
+        } catch (RemoteException | OperationApplicationException | RuntimeException e) {
+            Log.e(TAG, "Error while applying a batch of " + (end - start) + " operations", e);
+        }
+    }
+
+    private static final class PreparedBatch {
+        @NonNull
+        final List<Uri> lockedUris;
+
+        @NonNull
+        final List<CoreOperation> operations;
+
+        // Results of the values that need no operation, followed by the applied ones.
+        @NonNull
+        final List<CoreOperationResult> results;
+
+        PreparedBatch(@NonNull final List<Uri> lockedUris, int size) {
+            this.lockedUris = lockedUris;
+            this.operations = new ArrayList<>(size);
+            this.results = new ArrayList<>(size);
+        }
+    }
+
+    private static void notifyCompletion(@NonNull final List<CoreOperationResult> results) {
+        for (CoreOperationResult result : results) {
+            // Emit whether the operation was executed successfully.
+            result.notifyCompletion();
+        }
     }
 
     @NonNull
@@ -160,114 +452,87 @@ public abstract class ContentProviderStoreCoreBase<U> {
         return new Handler(handlerThread.getLooper());
     }
 
+    /**
+     * Returns the handler of a thread shared by the content observers of all store cores. The
+     * observers should only hand the changes over, so that one store can't delay the others.
+     */
+    @NonNull
+    protected static synchronized Handler getDispatchHandler() {
+        if (dispatchHandler == null) {
+            dispatchHandler = createHandler(ContentProviderStoreCoreBase.class.getSimpleName());
+        }
+        return dispatchHandler;
+    }
+
     /**
      * Implements grouping logic for batching the content provider operations. The default
      * logic buffers the operations with debounced timer while applying a hard limit for the
-     * number of operations.
+     * number of operations. A group is also closed when its first operation has waited for the
+     * maximum grouping latency, so a steady trickle of operations can't delay it indefinitely.
      *
-     * The data is serialized into a binder transaction. An attempt to pass here a too large
-     * batch of operations will result in a failed binder transaction.
+     * The data is serialized into a binder transaction. The groups are further split to batches
+     * by their estimated size, see getMaxBatchBytes.
      */
     @NonNull
     protected <R> Observable<List<R>> groupOperations(@NonNull final Observable<R> source) {
-        return source.publish(stream -> stream.buffer(
-                Observable.merge(
-                        stream.window(groupMaxSize).skip(1),
-                        stream.debounce(groupingTimeout, TimeUnit.MILLISECONDS))))
+        // The boundary is created anew for each group, so that all limits count from the group start.
+        return source.publish(stream -> stream.buffer(() -> Observable.merge(
+                        stream.skip(groupMaxSize - 1).take(1),
+                        stream.debounce(groupingTimeout, TimeUnit.MILLISECONDS),
+                        stream.take(1).delay(maxGroupingLatency, TimeUnit.MILLISECONDS))))
                 .filter(list -> !list.isEmpty());
     }
 
     @NonNull
-    private Observable<CoreOperation> createCoreOperation(@NonNull final CoreValue<U> value) {
-        Observable<CoreOperation> valueObservable;
-
+    private CoreOperation createCoreOperation(@NonNull final CoreValue<U> value,
+                                              @NonNull final Map<Uri, U> currentItems) {
         switch (value.type()) {
             case PUT:
-                valueObservable = createCoreOperation((CoreValuePut<U>) value);
-                break;
+                return createCoreOperation((CoreValuePut<U>) value, currentItems.get(value.uri()));
             case DELETE:
-                valueObservable = createCoreOperation((CoreValueDelete<U>) value);
-                break;
+                Log.v(TAG, "Create delete contentOperation for " + value.uri());
+                return ((CoreValueDelete<U>) value).toDeleteOperation();
             default:
                 throw new IllegalStateException("Unknown value type " + value.type());
         }
-
-        return valueObservable
-                .subscribeOn(Schedulers.io())
-                .onErrorReturn(__ -> value.noOperation())
-                .doOnNext(this::releaseIfNoOp)
-                .filter(CoreOperation::isValid);
     }
 
     @NonNull
-    private Observable<CoreOperation> createCoreOperation(@NonNull final CoreValueDelete<U> value) {
-        return Observable
-                .fromCallable(() -> {
-                    Uri uri = value.uri();
+    private CoreOperation createCoreOperation(@NonNull final CoreValuePut<U> value,
+                                              @Nullable final U currentItem) {
+        final Uri uri = value.uri();
+
+        if (currentItem == null) {
+            // Upserts are never read, and the last put replaces the earlier ones.
+            final U item = isUpsertEnabled() ? value.lastItem() : foldItems(null, value.items());
+            Log.v(TAG, "Create insertion contentOperation for " + uri);
+            return value.toInsertOperation(getContentValuesForItem(item));
+        }
+
+        final U newItem = foldItems(currentItem, value.items());
 
-                    // We block until this Uri is freed for operations. Failure to lock
-                    // will throw, which we'll catch later. This will ensure that we don't try
-                    // to execute multiple operations for a same Uri in a same batch.
-                    lock(uri);
+        if (!newItem.equals(currentItem)) {
+            Log.v(TAG, "Create update contentOperation for " + uri);
+            return value.toUpdateOperation(getContentValuesForItem(newItem));
+        }
 
-                    Log.v(TAG, "Create delete contentOperation for " + uri);
-                    return value.toDeleteOperation();
-                });
+        Log.v(TAG, "Data already up to date at " + uri);
+        return value.noOperation();
     }
 
+    /**
+     * Merges the items in order into the current item, or into the first item if there is no
+     * current item, as merge(merge(current, first), second).
+     */
     @NonNull
-    private Observable<CoreOperation> createCoreOperation(@NonNull final CoreValuePut<U> value) {
-        return Observable
-                .fromCallable(() -> {
-                    Uri uri = value.uri();
-
-                    lock(uri);
-
-                    final Cursor cursor = contentResolver.query(uri, getProjection(), null, null, null);
-
-                    if (cursor == null || !cursor.moveToFirst()) {
-                        if (cursor != null) {
-                            cursor.close();
-                        }
-
-                        Log.v(TAG, "Create insertion contentOperation for " + uri);
-                        return value.toInsertOperation(getContentValuesForItem(value.item()));
-                    }
+    private U foldItems(@Nullable final U currentItem, @NonNull final List<U> items) {
+        U item = currentItem != null ? currentItem : items.get(0);
 
-                    final U currentItem = read(cursor);
-                    final U newItem = mergedItem(currentItem, value.item());
-
-                    cursor.close();
-
-                    if (!newItem.equals(currentItem)) {
-                        Log.v(TAG, "Create update contentOperation for " + uri);
-                        return value.toUpdateOperation(getContentValuesForItem(newItem));
-                    }
-
-                    Log.v(TAG, "Data already up to date at " + uri);
-                    return value.noOperation();
-                });
-    }
-
-    private void releaseIfNoOp(@NonNull final CoreOperation operation) {
-        if (!operation.isValid()) {
-            release(new CoreOperationResult(operation, false));
+        for (int i = currentItem != null ? 0 : 1; i < items.size(); i++) {
+            item = mergedItem(item, items.get(i));
         }
-    }
 
-    private void lock(@NonNull final Uri uri) throws InterruptedException {
-        locker.acquire(uri);
-    }
-
-    private void release(@NonNull final CoreOperationResult operation) {
-        try {
-            locker.release(operation.uri());
-            // Emit whether the operation was executed successfully.
-            operation.notifyCompletion();
-        } catch (IllegalStateException e) {
-            // Release may throw if the lock wasn't successfully acquired.
-            Log.e(TAG, "Couldn't release lock!", e);
-        }
+        return item;
     }
 
     @NonNull
@@ -288,6 +553,75 @@ public abstract class ContentProviderStoreCoreBase<U> {
         return createModifyingOperation(notifier -> CoreValuePut.create(notifier, uri, item));
     }
 
+    /**
+     * Puts the items with one read of the current values, unless upsert is enabled, and one batch
+     * of content provider operations. Unlike single puts, the batch bypasses the operation grouping, but it holds the
+     * locks of all its Uris, so the operations of a Uri are still executed one at a time. The batch
+     * waits for the locks without holding a thread.
+     */
+    @NonNull
+    protected Single<Map<Uri, Boolean>> putAllByUri(@NonNull final Map<Uri, U> items) {
+        checkNotNull(items);
+
+        if (items.isEmpty()) {
+            return Single.just(Collections.emptyMap());
+        }
+
+        return locker.withLocks(items.keySet(), Schedulers.io(), () -> applyPuts(items));
+    }
+
+    @NonNull
+    private Map<Uri, Boolean> applyPuts(@NonNull final Map<Uri, U> items) throws Exception {
+        final List<Uri> uris = new ArrayList<>(items.keySet());
+
+        final Map<Uri, U> currentItems = isUpsertEnabled()
+                ? Collections.emptyMap()
+                : queryItems(uris);
+        final Map<Uri, Boolean> results = new LinkedHashMap<>(items.size());
+        final ArrayList<ContentProviderOperation> operations = new ArrayList<>(items.size());
+        final List<Uri> operationUris = new ArrayList<>(items.size());
+        final int[] sizes = new int[items.size()];
+
+        for (Map.Entry<Uri, U> entry : items.entrySet()) {
+            final Uri uri = entry.getKey();
+            final U currentItem = currentItems.get(uri);
+            results.put(uri, false);
+
+            if (currentItem == null) {
+                final ContentValues values = getContentValuesForItem(entry.getValue());
+                sizes[operations.size()] = OperationSize.estimate(uri, values);
+                operations.add(ContentProviderOperation.newInsert(uri)
+                        .withValues(values)
+                        .build());
+                operationUris.add(uri);
+                continue;
+            }
+
+            final U newItem = mergedItem(currentItem, entry.getValue());
+
+            if (!newItem.equals(currentItem)) {
+                final ContentValues values = getContentValuesForItem(newItem);
+                sizes[operations.size()] = OperationSize.estimate(uri, values);
+                operations.add(ContentProviderOperation.newUpdate(uri)
+                        .withValues(values)
+                        .build());
+                operationUris.add(uri);
+            }
+        }
+
+        if (!operations.isEmpty()) {
+            final ContentProviderResult[] operationResults = applyBatches(operations, sizes);
+
+            for (int i = 0; i < operationResults.length; i++) {
+                final ContentProviderResult result = operationResults[i];
+                results.put(operationUris.get(i), result != null && (result.count == null || result.count > 0));
+            }
+        }
+
+        Log.v(TAG, String.format("Applied %s operations for %s puts", operations.size(), items.size()));
+        return results;
+    }
+
     @NonNull
     protected Single<Boolean> delete(@NonNull final Uri uri) {
         checkNotNull(uri);
@@ -316,6 +650,23 @@ public abstract class ContentProviderStoreCoreBase<U> {
                 .subscribeOn(Schedulers.io());
     }
 
+    /**
+     * Gets the items matching the query. The selection, the sort order and the limit of the query
+     * are passed on to the provider, so only the matching rows are read.
+     */
+    @NonNull
+    protected Single<List<U>> getAllOnce(@NonNull final StoreQuery<U> query) {
+        checkNotNull(query);
+        checkState(query.getFilter() == null || query.getSelection() != null,
+                "Query with a filter needs a selection in a content provider");
+        checkState(query.getComparator() == null || query.getSortOrder() != null,
+                "Query with a comparator needs a sort order in a content provider");
+
+        return Single.fromCallable(() -> queryList(getContentUri(), query.getSelection(),
+                query.getSelectionArgs(), sortOrderWithLimit(query)))
+                .subscribeOn(Schedulers.io());
+    }
+
     @NonNull
     protected Maybe<U> getOnce(@NonNull final Uri uri) {
         return getAllOnce(get(uri))
@@ -328,10 +679,78 @@ public abstract class ContentProviderStoreCoreBase<U> {
                 .map(queryResults -> queryResults.get(0));
     }
 
+    /**
+     * Gets the current items of the given Uris. With an id column the items are read with one
+     * query, instead of one query per Uri.
+     */
+    @NonNull
+    protected Single<Map<Uri, U>> getOnce(@NonNull final Collection<Uri> uris) {
+        checkNotNull(uris);
+
+        if (uris.isEmpty()) {
+            return Single.just(Collections.emptyMap());
+        }
+
+        return Single.fromCallable(() -> queryItems(uris))
+                .subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * Gets a page of items ordered by the id column. The page continues from the id of the last
+     * item of the previous page, which keeps the query cost independent of the page position and
+     * the cursor window small.
+     */
+    @NonNull
+    protected Single<StorePage<U>> getPage(@Nullable final StorePage<U> previousPage, int pageSize) {
+        checkState(pageSize > 0, "Page size must be positive");
+
+        return Single.fromCallable(() -> queryPage(previousPage, pageSize))
+                .subscribeOn(Schedulers.io());
+    }
+
+    @NonNull
+    private StorePage<U> queryPage(@Nullable final StorePage<U> previousPage, int pageSize) {
+        final String idColumn = getIdColumn();
+        checkState(idColumn != null, "Paging requires an id column");
+
+        if (previousPage != null && !previousPage.hasNext()) {
+            return new StorePage<>(new ArrayList<>(0), null);
+        }
+
+        final String selection = previousPage == null ? null : idColumn + " > ?";
+        final String[] selectionArgs = previousPage == null ? null : new String[]{ (String) previousPage.nextKey() };
+
+        // The provider passes the sort order on to SQLite, which lets us append the limit to it.
+        final Cursor cursor = contentResolver.query(getContentUri(), getProjection(),
+                selection, selectionArgs, idColumn + " ASC LIMIT " + pageSize);
+
+        final List<U> items = new ArrayList<>(pageSize);
+        String lastId = null;
+
+        if (cursor != null) {
+            final int idIndex = cursor.getColumnIndex(idColumn);
+            while (cursor.moveToNext()) {
+                items.add(read(cursor));
+                lastId = cursor.getString(idIndex);
+            }
+            cursor.close();
+        }
+
+        return new StorePage<>(items, items.size() == pageSize ? lastId : null);
+    }
+
     @NonNull
     private List<U> queryList(@NonNull final Uri uri) {
-        Cursor cursor = contentResolver.query(uri, getProjection(), null, null, null);
-        List<U> list = new ArrayList<>(10);
+        return queryList(uri, null, null, null);
+    }
+
+    @NonNull
+    private List<U> queryList(@NonNull final Uri uri,
+                              @Nullable final String selection,
+                              @Nullable final String[] selectionArgs,
+                              @Nullable final String sortOrder) {
+        Cursor cursor = contentResolver.query(uri, getProjection(), selection, selectionArgs, sortOrder);
+        List<U> list = new ArrayList<>(cursor != null ? cursor.getCount() : 0);
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
@@ -349,6 +768,77 @@ public abstract class ContentProviderStoreCoreBase<U> {
         return list;
     }
 
+    /**
+     * Reads the current items of the given Uris. With an id column the items are read with one
+     * query per up to 500 Uris, and otherwise with one query per Uri.
+     */
+    @NonNull
+    private Map<Uri, U> queryItems(@NonNull final Collection<Uri> uris) {
+        final Map<Uri, U> items = new HashMap<>(uris.size());
+        final String idColumn = getIdColumn();
+
+        if (idColumn == null) {
+            for (Uri uri : uris) {
+                final List<U> list = queryList(uri);
+                if (!list.isEmpty()) {
+                    items.put(uri, list.get(0));
+                }
+            }
+            return items;
+        }
+
+        final Map<String, Uri> urisById = new HashMap<>(uris.size());
+        for (Uri uri : uris) {
+            urisById.put(uri.getLastPathSegment(), uri);
+        }
+
+        final List<String> ids = new ArrayList<>(urisById.keySet());
+
+        for (int start = 0; start < ids.size(); start += MAX_SELECTION_ARGS) {
+            final List<String> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_SELECTION_ARGS));
+            final Cursor cursor = contentResolver.query(getContentUri(), getProjection(),
+                    inSelection(idColumn, chunk.size()), chunk.toArray(new String[chunk.size()]), null);
+
+            if (cursor != null) {
+                final int idIndex = cursor.getColumnIndex(idColumn);
+                while (cursor.moveToNext()) {
+                    final Uri uri = urisById.get(cursor.getString(idIndex));
+                    if (uri != null) {
+                        items.put(uri, read(cursor));
+                    }
+                }
+                cursor.close();
+            }
+        }
+
+        return items;
+    }
+
+    @Nullable
+    private String sortOrderWithLimit(@NonNull final StoreQuery<U> query) {
+        if (!query.hasLimit()) {
+            return query.getSortOrder();
+        }
+
+        // The provider passes the sort order on to SQLite, so the limit has to follow an order.
+        final String idColumn = getIdColumn();
+        final String sortOrder = query.getSortOrder() != null ? query.getSortOrder()
+                : idColumn != null ? idColumn + " ASC"
+                : "rowid ASC";
+
+        return sortOrder + " LIMIT " + query.getLimit();
+    }
+
+    @NonNull
+    private static String inSelection(@NonNull final String column, int count) {
+        final StringBuilder builder = new StringBuilder(column.length() + 6 + 2 * count);
+        builder.append(column).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "?" : ",?");
+        }
+        return builder.append(')').toString();
+    }
+
     @NonNull
     protected ContentResolver getContentResolver() {
         return contentResolver;
@@ -372,6 +862,36 @@ public abstract class ContentProviderStoreCoreBase<U> {
     @NonNull
     protected abstract ContentValues getContentValuesForItem(@NonNull final U item);
 
+    /**
+     * Returns the column that holds the last path segment of the item Uris, or null if the store
+     * has no such column. The column has to be included in the projection. If given, operations
+     * on several items, including the grouped puts, read the current items with a single query
+     * instead of one query per item.
+     */
+    @Nullable
+    protected String getIdColumn() {
+        return null;
+    }
+
+    /**
+     * Returns the estimated number of bytes at most sent to the provider in one batch. Batches
+     * are kept well below the binder transaction limit, as the limit is shared by all ongoing
+     * transactions of the process.
+     */
+    protected int getMaxBatchBytes() {
+        return DEFAULT_MAX_BATCH_BYTES;
+    }
+
+    /**
+     * Returns true if the provider replaces an existing row when an item with the same id is
+     * inserted, for example with a primary key declared ON CONFLICT REPLACE. Puts are then written
+     * as inserts without reading the current items, and mergeValues is not used. As the items are
+     * not compared, every put is reported as a change and notifies the observers of the Uri.
+     */
+    protected boolean isUpsertEnabled() {
+        return false;
+    }
+
     @NonNull
     protected U mergeValues(@NonNull final U oldItem, @NonNull final U newItem) {
         return newItem; // Default behavior is new values overriding
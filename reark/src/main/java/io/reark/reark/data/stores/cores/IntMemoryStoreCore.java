@@ -0,0 +1,482 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+import io.reark.reark.data.stores.StoreChange;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.StreamOverflow;
+import io.reark.reark.data.stores.interfaces.StoreCoreInterface;
+import io.reark.reark.utils.IntObjectMap;
+
+import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * An in-memory StoreCore for stores that use int ids. Unlike the generic MemoryStoreCore, the
+ * items are keyed with the actual id instead of its hash code, so ids never collide, and the
+ * primitive int methods do not box the id.
+ *
+ * All access to the data is synchronized on the core. The changes are queued under the lock and
+ * published after it is released, one thread at a time, which keeps the emissions and the change
+ * log in the order of the puts without running observers under the lock. As in the
+ * MemoryStoreCore, the stream of an id is released when its last observer disposes, and the latest
+ * changes are only kept in the change log if a capacity is given for it.
+ *
+ * A put with the primitive int methods allocates nothing beyond what the merge function does, as
+ * long as the core has no change log and no observers of getChangesSince. Otherwise each change
+ * allocates its StoreChange.
+ *
+ * @param <U> Type of the data this store core contains.
+ */
+public class IntMemoryStoreCore<U> implements StoreCoreInterface<Integer, U> {
+    @NonNull
+    private static final Single<Boolean> CHANGED = Single.just(true);
+
+    @NonNull
+    private static final Single<Boolean> UNCHANGED = Single.just(false);
+
+    @NonNull
+    private final BiFunction<U, U, U> putMergeFunction;
+
+    @NonNull
+    private final IntObjectMap<U> cache = new IntObjectMap<>();
+
+    @NonNull
+    private final IntObjectMap<StreamHolder<U>> subjectCache = new IntObjectMap<>();
+
+    @NonNull
+    private final Subject<U> subject = PublishSubject.<U>create().toSerialized();
+
+    @NonNull
+    private final StoreChangeLog<Integer, U> changeLog;
+
+    // Changes waiting to be published, as a ring of ids and items. A null item is a delete.
+    // Guarded by this, as are the head, the count and the publishing flag.
+    @NonNull
+    private int[] pendingIds = new int[8];
+
+    @NonNull
+    private Object[] pendingItems = new Object[8];
+
+    private int pendingHead;
+
+    private int pendingCount;
+
+    private boolean publishing;
+
+    public IntMemoryStoreCore() {
+        this((v1, v2) -> v2);
+    }
+
+    public IntMemoryStoreCore(@NonNull final BiFunction<U, U, U> putMergeFunction) {
+        this(putMergeFunction, 0);
+    }
+
+    /**
+     * @param changeLogCapacity Number of latest changes kept for observers continuing from a
+     *                          sequence number. With zero no changes are kept, and such observers
+     *                          get a snapshot instead.
+     */
+    public IntMemoryStoreCore(@NonNull final BiFunction<U, U, U> putMergeFunction, int changeLogCapacity) {
+        checkState(changeLogCapacity >= 0, "Change log capacity must not be negative");
+
+        this.putMergeFunction = get(putMergeFunction);
+        this.changeLog = new StoreChangeLog<>(changeLogCapacity);
+    }
+
+    @NonNull
+    @Override
+    public Maybe<U> getCached(@NonNull final Integer id) {
+        checkNotNull(id);
+
+        return getCached(id.intValue());
+    }
+
+    @NonNull
+    public Maybe<U> getCached(int id) {
+        final U value;
+
+        synchronized (this) {
+            value = cache.get(id);
+        }
+
+        return value == null
+                ? Maybe.empty()
+                : Maybe.just(value);
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<Integer, U>> getCached(@NonNull final Collection<Integer> ids) {
+        checkNotNull(ids);
+
+        final Map<Integer, U> items = new LinkedHashMap<>(ids.size());
+
+        synchronized (this) {
+            for (Integer id : ids) {
+                final U value = cache.get(id);
+                if (value != null) {
+                    items.put(id, value);
+                }
+            }
+        }
+
+        return Single.just(items);
+    }
+
+    @NonNull
+    @Override
+    public Single<List<U>> getCached() {
+        return Single.fromCallable(() -> {
+            synchronized (this) {
+                final List<U> list = new ArrayList<>(cache.size());
+                cache.addValuesTo(list);
+                return list;
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<List<U>> getCached(@NonNull final StoreQuery<U> query) {
+        checkNotNull(query);
+
+        return Single.fromCallable(() -> {
+            final QueryCollector<U> collector = new QueryCollector<>(query);
+
+            synchronized (this) {
+                for (int slot = cache.nextSlot(0); slot >= 0 && !collector.isFull(); slot = cache.nextSlot(slot + 1)) {
+                    collector.offer(cache.valueAt(slot));
+                }
+            }
+
+            return collector.items();
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<StorePage<U>> getCachedPage(@Nullable final StorePage<U> previousPage, int pageSize) {
+        checkState(pageSize > 0, "Page size must be positive");
+
+        return Single.fromCallable(() -> {
+            if (previousPage != null && !previousPage.hasNext()) {
+                return new StorePage<>(new ArrayList<>(0), null);
+            }
+
+            final PageKeyCollector collector = new PageKeyCollector(pageSize,
+                    previousPage == null ? null : (Integer) previousPage.nextKey());
+            final List<U> items;
+            final int[] keys;
+
+            synchronized (this) {
+                for (int slot = cache.nextSlot(0); slot >= 0; slot = cache.nextSlot(slot + 1)) {
+                    collector.offer(cache.keyAt(slot));
+                }
+
+                keys = collector.keys();
+                items = new ArrayList<>(keys.length);
+                for (int key : keys) {
+                    items.add(cache.get(key));
+                }
+            }
+
+            return new StorePage<>(items, keys.length == pageSize ? keys[keys.length - 1] : null);
+        });
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getCachedFlowable(int pageSize) {
+        return StorePage.flowable(previousPage -> getCachedPage(previousPage, pageSize));
+    }
+
+    @NonNull
+    @Override
+    public Observable<U> getStream(@NonNull final Integer id) {
+        checkNotNull(id);
+
+        return getStream(id.intValue());
+    }
+
+    @NonNull
+    public Observable<U> getStream(int id) {
+        return Observable.defer(() -> acquireStream(id)
+                .doFinally(() -> releaseStream(id)));
+    }
+
+    @NonNull
+    @Override
+    public Observable<U> getStream() {
+        return subject;
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final Integer id, @NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream(id));
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream());
+    }
+
+    @NonNull
+    @Override
+    public Observable<StoreChange<Integer, U>> getChangesSince(long sequence) {
+        return changeLog.getChangesSince(sequence, this::getCached);
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> put(@NonNull final Integer id, @NonNull final U item) {
+        checkNotNull(id);
+
+        return put(id.intValue(), item);
+    }
+
+    @NonNull
+    public Single<Boolean> put(int id, @NonNull final U item) {
+        checkNotNull(item);
+
+        final boolean changed;
+
+        try {
+            synchronized (this) {
+                changed = putItem(id, item);
+            }
+        } catch (Exception e) {
+            return Single.error(e);
+        } finally {
+            publishPending();
+        }
+
+        return changed ? CHANGED : UNCHANGED;
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<Integer, Boolean>> putAll(@NonNull final Map<Integer, U> items) {
+        checkNotNull(items);
+
+        final Map<Integer, Boolean> results = new LinkedHashMap<>(items.size());
+
+        try {
+            synchronized (this) {
+                for (Map.Entry<Integer, U> entry : items.entrySet()) {
+                    results.put(entry.getKey(), putItem(get(entry.getKey()), get(entry.getValue())));
+                }
+            }
+        } catch (Exception e) {
+            return Single.error(e);
+        } finally {
+            publishPending();
+        }
+
+        return Single.just(results);
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> delete(@NonNull final Integer id) {
+        checkNotNull(id);
+
+        return delete(id.intValue());
+    }
+
+    @NonNull
+    public Single<Boolean> delete(int id) {
+        return Single.fromCallable(() -> {
+            final boolean removed;
+
+            synchronized (this) {
+                removed = cache.remove(id) != null;
+
+                if (removed) {
+                    enqueue(id, null);
+                }
+            }
+
+            publishPending();
+            return removed;
+        });
+    }
+
+    private boolean putItem(int id, @NonNull final U item) throws Exception {
+        final U currentItem = cache.get(id);
+        U newItem = item;
+
+        // Not logged, as puts are expected to be frequent and should not allocate strings.
+        if (currentItem != null) {
+            if (newItem.equals(currentItem)) {
+                return false;
+            }
+
+            newItem = putMergeFunction.apply(currentItem, newItem);
+
+            if (newItem.equals(currentItem)) {
+                return false;
+            }
+        }
+
+        cache.put(id, newItem);
+        enqueue(id, newItem);
+
+        return true;
+    }
+
+    // Guarded by this.
+    private void enqueue(int id, @Nullable final U item) {
+        if (pendingCount == pendingIds.length) {
+            final int[] ids = new int[pendingIds.length * 2];
+            final Object[] items = new Object[pendingItems.length * 2];
+
+            for (int i = 0; i < pendingCount; i++) {
+                final int index = (pendingHead + i) & (pendingIds.length - 1);
+                ids[i] = pendingIds[index];
+                items[i] = pendingItems[index];
+            }
+
+            pendingIds = ids;
+            pendingItems = items;
+            pendingHead = 0;
+        }
+
+        final int tail = (pendingHead + pendingCount) & (pendingIds.length - 1);
+        pendingIds[tail] = id;
+        pendingItems[tail] = item;
+        pendingCount++;
+    }
+
+    /**
+     * Publishes the queued changes in order, unless another thread is already publishing them.
+     */
+    @SuppressWarnings("unchecked")
+    private void publishPending() {
+        synchronized (this) {
+            if (publishing || pendingCount == 0) {
+                return;
+            }
+            publishing = true;
+        }
+
+        boolean drained = false;
+
+        try {
+            while (true) {
+                final int id;
+                final U item;
+                final StreamHolder<U> holder;
+
+                synchronized (this) {
+                    if (pendingCount == 0) {
+                        publishing = false;
+                        drained = true;
+                        return;
+                    }
+
+                    id = pendingIds[pendingHead];
+                    item = (U) pendingItems[pendingHead];
+                    pendingItems[pendingHead] = null;
+                    pendingHead = (pendingHead + 1) & (pendingIds.length - 1);
+                    pendingCount--;
+                    holder = item != null ? subjectCache.get(id) : null;
+                }
+
+                changeLog.append(id, item);
+
+                if (item != null) {
+                    subject.onNext(item);
+
+                    if (holder != null) {
+                        holder.subject.onNext(item);
+                    }
+                }
+            }
+        } finally {
+            if (!drained) {
+                synchronized (this) {
+                    publishing = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of ids that currently have a stream with at least one observer.
+     */
+    public synchronized int getStreamCount() {
+        return subjectCache.size();
+    }
+
+    @NonNull
+    private synchronized Subject<U> acquireStream(int id) {
+        StreamHolder<U> holder = subjectCache.get(id);
+
+        if (holder == null) {
+            holder = new StreamHolder<>();
+            subjectCache.put(id, holder);
+        }
+
+        holder.subscriberCount++;
+        return holder.subject;
+    }
+
+    private synchronized void releaseStream(int id) {
+        final StreamHolder<U> holder = subjectCache.get(id);
+
+        if (holder != null && --holder.subscriberCount == 0) {
+            subjectCache.remove(id);
+        }
+    }
+
+    private static final class StreamHolder<U> {
+        @NonNull
+        final Subject<U> subject = PublishSubject.create();
+
+        int subscriberCount;
+    }
+}
@@ -26,23 +26,44 @@
 package io.reark.reark.data.stores.cores;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.functions.BiFunction;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 import io.reactivex.subjects.Subject;
+import io.reark.reark.data.stores.StoreChange;
 import io.reark.reark.data.stores.StoreItem;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.StreamOverflow;
+import io.reark.reark.data.stores.cores.codec.ValueCodec;
+import io.reark.reark.data.stores.cores.eviction.EvictionPolicy;
 import io.reark.reark.data.stores.interfaces.StoreCoreInterface;
 import io.reark.reark.utils.Log;
 
 import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
 import static io.reark.reark.utils.Preconditions.get;
 
 /**
@@ -50,30 +71,159 @@ import static io.reark.reark.utils.Preconditions.get;
  * that the MemoryStoreCore cannot be shared across Android processes and it will be destroyed with
  * the app.
  *
+ * Puts are atomic per id: concurrent puts to the same id are merged one after another, and no
+ * locks are taken while merging. The changes of an id are published to the streams and the change
+ * log in the order they were committed. Each commit takes a short lock on one of a fixed number of
+ * stripes, and the changes queued on a stripe are published outside of the lock by one thread at a
+ * time.
+ *
+ * By default the MemoryStoreCore keeps all items until they are deleted. A bounded core can be
+ * created by giving an EvictionPolicy, which then decides the items to drop when the core is full.
+ * A bounded core commits its values under a lock shared with the eviction, though merges are still
+ * computed without it.
+ *
+ * With a ValueCodec the items are kept only in their encoded form, trading read latency for a
+ * smaller heap. A small hot cache of decoded items can be added in front of the encoded values to
+ * avoid decoding the most recently used items again. Cores with codecs are built with the Builder.
+ *
+ * An encoded core can also keep a snapshot of its items in a file. The snapshot is written in the
+ * background at most once a second while the items change. A new core restores the snapshot on
+ * the io scheduler when created. Until the restore has finished, reads and writes are chained after
+ * it, and after the writes issued before them, instead of blocking the caller.
+ *
+ * Secondary indexes given to the Builder allow finding and following items by other keys than
+ * their ids, with a cost proportional to the number of items found.
+ *
+ * Puts and deletes can be recorded in a bounded change log, from which observers can continue after
+ * the last change they saw. The log is only kept if a capacity is given to the Builder, as it holds
+ * on to the latest items. Without it, getChangesSince emits a snapshot followed by the future
+ * changes. Evictions and restored items are not recorded as changes.
+ *
+ * The streams of single ids are reference counted. The subject of an id is created when the first
+ * observer subscribes to it, and released when the last one disposes.
+ *
  * @param <T> Type of the id used in this store core.
  * @param <U> Type of the data this store core contains.
  */
 public class MemoryStoreCore<T, U> implements StoreCoreInterface<T, U> {
     private static final String TAG = MemoryStoreCore.class.getSimpleName();
 
+    private static final long SNAPSHOT_INTERVAL_MS = 1000;
+
+    private static final int PUBLICATION_STRIPES = 32;
+
     @NonNull
     private final BiFunction<U, U, U> putMergeFunction;
 
+    @Nullable
+    private final EvictionPolicy<U> evictionPolicy;
+
+    @Nullable
+    private final ValueCodec<U> valueCodec;
+
+    @Nullable
+    private final Map<Integer, HotValue<U>> hotCache;
+
+    @Nullable
+    private final MemoryStoreSnapshot snapshot;
+
+    @NonNull
+    private final Subject<Boolean> snapshotRequests = PublishSubject.<Boolean>create().toSerialized();
+
+    private volatile boolean restored;
+
+    @NonNull
+    private final Object restoreLock = new Object();
+
+    // Completes when the restore and the writes chained after it have finished. Guarded by
+    // restoreLock, and null once restored.
+    @Nullable
+    private Completable restoreChain;
+
+    @NonNull
+    private final List<MemoryStoreIndex<?, U>> indexes;
+
+    @NonNull
+    private final Object indexLock = new Object();
+
+    // Bounded cores commit values and evict under this lock, so that the eviction policy always
+    // tracks the committed values.
     @NonNull
-    private final Map<Integer, U> cache = new ConcurrentHashMap<>(10);
+    private final Object evictionLock = new Object();
 
     @NonNull
-    private final PublishSubject<StoreItem<T, U>> subject = PublishSubject.create();
+    private final StoreChangeLog<T, U> changeLog;
 
+    // Commits of ids hashing to a stripe are queued on it in commit order.
     @NonNull
-    private final ConcurrentMap<Integer, Subject<U>> subjectCache = new ConcurrentHashMap<>(20, 0.75f, 4);
+    private final PublicationStripe<T, U>[] stripes = createStripes();
+
+    // Holds the items, or their encoded bytes when a codec is used.
+    @NonNull
+    private final ConcurrentMap<Integer, Object> cache = new ConcurrentHashMap<>(10);
+
+    @NonNull
+    private final Subject<StoreItem<T, U>> subject = PublishSubject.<StoreItem<T, U>>create().toSerialized();
+
+    @NonNull
+    private final ConcurrentMap<Integer, StreamHolder<U>> subjectCache = new ConcurrentHashMap<>(20, 0.75f, 4);
 
     public MemoryStoreCore() {
         this((v1, v2) -> v2);
     }
 
     public MemoryStoreCore(@NonNull final BiFunction<U, U, U> putMergeFunction) {
+        this(putMergeFunction, null, null, 0, null, new ArrayList<>(0), new StoreChangeLog<>(0));
+    }
+
+    public MemoryStoreCore(@NonNull final BiFunction<U, U, U> putMergeFunction,
+                           @NonNull final EvictionPolicy<U> evictionPolicy) {
+        this(putMergeFunction, get(evictionPolicy), null, 0, null, new ArrayList<>(0), new StoreChangeLog<>(0));
+    }
+
+    private MemoryStoreCore(@NonNull final BiFunction<U, U, U> putMergeFunction,
+                            @Nullable final EvictionPolicy<U> evictionPolicy,
+                            @Nullable final ValueCodec<U> valueCodec,
+                            int hotCacheSize,
+                            @Nullable final File snapshotFile,
+                            @NonNull final List<MemoryStoreIndex<?, U>> indexes,
+                            @NonNull final StoreChangeLog<T, U> changeLog) {
         this.putMergeFunction = get(putMergeFunction);
+        this.evictionPolicy = evictionPolicy;
+        this.valueCodec = valueCodec;
+        this.hotCache = valueCodec != null && hotCacheSize > 0
+                ? Collections.synchronizedMap(new LinkedHashMap<Integer, HotValue<U>>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<Integer, HotValue<U>> eldest) {
+                        return size() > hotCacheSize;
+                    }
+                })
+                : null;
+        this.snapshot = snapshotFile != null ? new MemoryStoreSnapshot(snapshotFile) : null;
+        this.restored = snapshot == null;
+        this.indexes = get(indexes);
+        this.changeLog = get(changeLog);
+
+        if (snapshot != null) {
+            snapshotRequests
+                    .sample(SNAPSHOT_INTERVAL_MS, TimeUnit.MILLISECONDS, Schedulers.io())
+                    .subscribe(__ -> {
+                        try {
+                            writeSnapshotFile();
+                        } catch (IOException e) {
+                            Log.w(TAG, "Could not write snapshot", e);
+                        }
+                    }, Log.onError(TAG, "Error in snapshot requests"));
+
+            // A failed restore leaves the core empty, as a missing snapshot does.
+            final Completable restore = Completable.fromAction(this::restoreSnapshot)
+                    .doOnError(e -> Log.w(TAG, "Could not restore snapshot", e))
+                    .onErrorComplete()
+                    .subscribeOn(Schedulers.io())
+                    .cache();
+            restoreChain = restore;
+            restore.subscribe(this::finishRestore);
+        }
     }
 
     @NonNull
@@ -81,19 +231,128 @@ public class MemoryStoreCore<T, U> implements StoreCoreInterface<T, U> {
     public Maybe<U> getCached(@NonNull final T id) {
         checkNotNull(id);
 
-        final U value = cache.get(getHashCodeForId(id));
+        if (!restored) {
+            return Maybe.defer(() -> whenRestored().andThen(Maybe.defer(() -> getCachedItem(id))));
+        }
+
+        return getCachedItem(id);
+    }
+
+    @NonNull
+    private Maybe<U> getCachedItem(@NonNull final T id) {
+        final int hash = getHashCodeForId(id);
+        final U value = getValue(hash);
+
+        if (value == null) {
+            return Maybe.empty();
+        }
+
+        if (evictionPolicy != null) {
+            evictionPolicy.onAccess(hash);
+        }
+
+        return Maybe.just(value);
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<T, U>> getCached(@NonNull final Collection<T> ids) {
+        checkNotNull(ids);
+
+        if (!restored) {
+            return afterRestore(() -> getCachedItems(ids));
+        }
 
-        return value == null
-                ? Maybe.empty()
-                : Maybe.just(value);
+        return Single.just(getCachedItems(ids));
+    }
+
+    @NonNull
+    private Map<T, U> getCachedItems(@NonNull final Collection<T> ids) {
+        final Map<T, U> items = new LinkedHashMap<>(ids.size());
+
+        for (T id : ids) {
+            final int hash = getHashCodeForId(id);
+            final U value = getValue(hash);
+
+            if (value != null) {
+                items.put(id, value);
+
+                if (evictionPolicy != null) {
+                    evictionPolicy.onAccess(hash);
+                }
+            }
+        }
+
+        return items;
     }
 
     @NonNull
     @Override
     public Single<List<U>> getCached() {
-        return Observable.fromIterable(cache.keySet())
-                .map(cache::get)
-                .toList();
+        return afterRestore(() -> {
+            final List<U> items = new ArrayList<>(cache.size());
+
+            for (Map.Entry<Integer, Object> entry : cache.entrySet()) {
+                items.add(decode(entry.getKey(), entry.getValue()));
+            }
+
+            return items;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<List<U>> getCached(@NonNull final StoreQuery<U> query) {
+        checkNotNull(query);
+
+        return afterRestore(() -> {
+            final QueryCollector<U> collector = new QueryCollector<>(query);
+
+            for (Map.Entry<Integer, Object> entry : cache.entrySet()) {
+                if (collector.isFull()) {
+                    break;
+                }
+                collector.offer(decode(entry.getKey(), entry.getValue()));
+            }
+
+            return collector.items();
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<StorePage<U>> getCachedPage(@Nullable final StorePage<U> previousPage, int pageSize) {
+        checkState(pageSize > 0, "Page size must be positive");
+
+        return afterRestore(() -> {
+            if (previousPage != null && !previousPage.hasNext()) {
+                return new StorePage<>(new ArrayList<>(0), null);
+            }
+
+            // The pages are ordered by the hash keys of the items.
+            final PageKeyCollector collector = new PageKeyCollector(pageSize,
+                    previousPage == null ? null : (Integer) previousPage.nextKey());
+            for (Integer key : cache.keySet()) {
+                collector.offer(key);
+            }
+
+            final int[] keys = collector.keys();
+            final List<U> items = new ArrayList<>(keys.length);
+            for (int key : keys) {
+                final U value = getValue(key);
+                if (value != null) {
+                    items.add(value);
+                }
+            }
+
+            return new StorePage<>(items, keys.length == pageSize ? keys[keys.length - 1] : null);
+        });
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getCachedFlowable(int pageSize) {
+        return StorePage.flowable(previousPage -> getCachedPage(previousPage, pageSize));
     }
 
     @NonNull
@@ -101,10 +360,10 @@ public class MemoryStoreCore<T, U> implements StoreCoreInterface<T, U> {
     public Observable<U> getStream(@NonNull final T id) {
         checkNotNull(id);
 
-        int hash = getHashCodeForId(id);
-        subjectCache.putIfAbsent(hash, PublishSubject.create());
+        final int hash = getHashCodeForId(id);
 
-        return subjectCache.get(hash);
+        return Observable.defer(() -> acquireStream(hash)
+                .doFinally(() -> releaseStream(hash)));
     }
 
     @NonNull
@@ -113,51 +372,619 @@ public class MemoryStoreCore<T, U> implements StoreCoreInterface<T, U> {
         return subject.map(StoreItem::item);
     }
 
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final T id, @NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream(id));
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream());
+    }
+
+    @NonNull
+    @Override
+    public Observable<StoreChange<T, U>> getChangesSince(long sequence) {
+        return changeLog.getChangesSince(sequence, this::getCached);
+    }
+
     @NonNull
     @Override
     public Single<Boolean> put(@NonNull final T id, @NonNull final U item) {
         checkNotNull(id);
         checkNotNull(item);
 
+        return write(() -> putItem(id, item, putMergeFunction) != null);
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<T, Boolean>> putAll(@NonNull final Map<T, U> items) {
+        checkNotNull(items);
+
+        return write(() -> {
+            final Map<T, Boolean> results = new LinkedHashMap<>(items.size());
+
+            for (Map.Entry<T, U> entry : items.entrySet()) {
+                results.put(entry.getKey(), putItem(get(entry.getKey()), get(entry.getValue()), putMergeFunction) != null);
+            }
+
+            return results;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> delete(@NonNull final T id) {
+        return Single.defer(() -> write(() -> {
+            final int hash = getHashCodeForId(id);
+            final PublicationStripe<T, U> stripe = stripeFor(hash);
+            final boolean removed;
+
+            synchronized (stripe) {
+                removed = remove(hash);
+
+                if (removed) {
+                    stripe.pending.add(new PendingChange<>(hash, id, null));
+                }
+            }
+
+            if (hotCache != null) {
+                hotCache.remove(hash);
+            }
+
+            if (removed) {
+                updateIndexes(hash);
+                requestSnapshot();
+                publishPending(stripe);
+            }
+
+            return removed;
+        }));
+    }
+
+    /**
+     * Puts the item like put, and returns the value committed by this put, or null if the item did
+     * not change the value. Only for cores without a snapshot, as it runs right away.
+     */
+    @Nullable
+    U putAndGet(@NonNull final T id, @NonNull final U item) throws Exception {
+        checkState(snapshot == null, "Core has a snapshot file");
+
+        return putItem(get(id), get(item), putMergeFunction);
+    }
+
+    /**
+     * Replaces the value with the item without merging them. Only for cores without a snapshot.
+     */
+    boolean overwrite(@NonNull final T id, @NonNull final U item) throws Exception {
+        checkState(snapshot == null, "Core has a snapshot file");
+
+        return putItem(get(id), get(item), (v1, v2) -> v2) != null;
+    }
+
+    /**
+     * Puts the item only if the core has no value for the id. Only for cores without a snapshot.
+     */
+    boolean putIfAbsent(@NonNull final T id, @NonNull final U item) throws Exception {
+        checkState(snapshot == null, "Core has a snapshot file");
+
+        return putItem(get(id), get(item), (v1, v2) -> v1) != null;
+    }
+
+    @Nullable
+    private U putItem(@NonNull final T id,
+                      @NonNull final U item,
+                      @NonNull final BiFunction<U, U, U> mergeFunction) throws Exception {
         final int hash = getHashCodeForId(id);
-        U newItem = item;
-        boolean valuesEqual = false;
+        final PublicationStripe<T, U> stripe = stripeFor(hash);
+        U newItem;
+        Object newStored;
+
+        // Merge against the current value and retry if another put changed it meanwhile. This
+        // never loses a merge, and puts to different ids do not block each other. Encoded values
+        // are compared by identity, which is what the retry needs.
+        while (true) {
+            final Object currentStored = cache.get(hash);
 
-        if (cache.containsKey(hash)) {
-            final U currentItem = cache.get(hash);
+            if (currentStored == null) {
+                newItem = item;
 
-            valuesEqual = newItem.equals(currentItem);
+                if (!canHold(id, newItem)) {
+                    return null;
+                }
 
-            if (!valuesEqual) {
-                Log.v(TAG, "Merging values at " + id);
-                try {
-                    newItem = putMergeFunction.apply(currentItem, newItem);
-                } catch (Exception e) {
-                    return Single.error(e);
+                newStored = encode(newItem);
+                if (commit(stripe, hash, id, null, newStored, newItem)) {
+                    break;
                 }
-                valuesEqual = newItem.equals(currentItem);
+                continue;
+            }
+
+            final U currentItem = decode(hash, currentStored);
+
+            if (item.equals(currentItem)) {
+                Log.v(TAG, "Data already up to date at " + id);
+                return null;
+            }
+
+            Log.v(TAG, "Merging values at " + id);
+            newItem = mergeFunction.apply(currentItem, item);
+
+            if (newItem.equals(currentItem)) {
+                Log.v(TAG, "Data already up to date at " + id);
+                return null;
+            }
+
+            if (!canHold(id, newItem)) {
+                return null;
+            }
+
+            newStored = encode(newItem);
+            if (commit(stripe, hash, id, currentStored, newStored, newItem)) {
+                break;
+            }
+        }
+
+        if (hotCache != null) {
+            hotCache.put(hash, new HotValue<>(newStored, newItem));
+        }
+
+        updateIndexes(hash);
+        requestSnapshot();
+        publishPending(stripe);
+
+        return newItem;
+    }
+
+    /**
+     * Returns false if the item is too large for the eviction policy to keep. Such an item would
+     * be evicted as soon as it was written, so it is not written at all.
+     */
+    private boolean canHold(@NonNull final T id, @NonNull final U item) {
+        if (evictionPolicy == null || evictionPolicy.canHold(item)) {
+            return true;
+        }
+
+        Log.w(TAG, "Item too large to keep at " + id);
+        return false;
+    }
+
+    /**
+     * Commits the new value and queues it for publication under the lock of the stripe, so that
+     * the queue of the stripe is in commit order. Returns false if the stored value was changed
+     * meanwhile.
+     */
+    private boolean commit(@NonNull final PublicationStripe<T, U> stripe,
+                           int hash,
+                           @NonNull final T id,
+                           @Nullable final Object currentStored,
+                           @NonNull final Object newStored,
+                           @NonNull final U newItem) {
+        synchronized (stripe) {
+            if (!commit(hash, currentStored, newStored, newItem)) {
+                return false;
             }
+
+            stripe.pending.add(new PendingChange<>(hash, id, newItem));
+            return true;
         }
+    }
 
-        if (valuesEqual) {
-            Log.v(TAG, "Data already up to date at " + id);
-            return Single.just(false);
+    /**
+     * Publishes the queued changes of the stripe in order, unless another thread is already
+     * publishing them.
+     */
+    private void publishPending(@NonNull final PublicationStripe<T, U> stripe) {
+        synchronized (stripe) {
+            if (stripe.publishing || stripe.pending.isEmpty()) {
+                return;
+            }
+            stripe.publishing = true;
         }
 
-        cache.put(hash, newItem);
-        subject.onNext(new StoreItem<>(id, newItem));
+        boolean drained = false;
+
+        try {
+            while (true) {
+                final PendingChange<T, U> change;
+
+                synchronized (stripe) {
+                    change = stripe.pending.poll();
+
+                    if (change == null) {
+                        stripe.publishing = false;
+                        drained = true;
+                        return;
+                    }
+                }
+
+                changeLog.append(change.id, change.item);
+
+                if (change.item != null) {
+                    subject.onNext(new StoreItem<>(change.id, change.item));
 
-        if (subjectCache.containsKey(hash)) {
-            subjectCache.get(hash).onNext(newItem);
+                    final StreamHolder<U> holder = subjectCache.get(change.hash);
+                    if (holder != null) {
+                        holder.subject.onNext(change.item);
+                    }
+                }
+            }
+        } finally {
+            if (!drained) {
+                synchronized (stripe) {
+                    stripe.publishing = false;
+                }
+            }
         }
+    }
 
-        return Single.just(true);
+    @NonNull
+    private PublicationStripe<T, U> stripeFor(int hash) {
+        // Spread the high bits, as ids often differ only in them.
+        return stripes[(hash ^ (hash >>> 16)) & (PUBLICATION_STRIPES - 1)];
     }
 
     @NonNull
-    @Override
-    public Single<Boolean> delete(@NonNull final T id) {
-        return Single.fromCallable(() -> cache.remove(getHashCodeForId(id)) != null);
+    @SuppressWarnings("unchecked")
+    private static <T, U> PublicationStripe<T, U>[] createStripes() {
+        final PublicationStripe<T, U>[] stripes = (PublicationStripe<T, U>[]) new PublicationStripe<?, ?>[PUBLICATION_STRIPES];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new PublicationStripe<>();
+        }
+
+        return stripes;
+    }
+
+    /**
+     * Writes the snapshot of the current items right away, for example when the app is about to be
+     * stopped. Only available for cores created with a snapshot file.
+     */
+    @NonNull
+    public Completable writeSnapshot() {
+        checkState(snapshot != null, "Core has no snapshot file");
+
+        return Completable.defer(() -> whenRestored().andThen(Completable.fromAction(this::writeSnapshotFile)));
+    }
+
+    /**
+     * Returns the items that have the given key in the index.
+     */
+    @NonNull
+    public <K extends Comparable<? super K>> Single<List<U>> getCached(@NonNull final MemoryStoreIndex<K, U> index,
+                                                                     @NonNull final K key) {
+        return getCachedRange(index, key, key);
+    }
+
+    /**
+     * Returns the items that have keys between the given keys in the index, both keys inclusive.
+     * The items are ordered by their keys.
+     */
+    @NonNull
+    public <K extends Comparable<? super K>> Single<List<U>> getCachedRange(@NonNull final MemoryStoreIndex<K, U> index,
+                                                                          @NonNull final K fromKey,
+                                                                          @NonNull final K toKey) {
+        checkIndex(index);
+        checkNotNull(fromKey);
+        checkNotNull(toKey);
+        checkState(fromKey.compareTo(toKey) <= 0, "Range start must not be after its end");
+
+        return afterRestore(() -> {
+            final List<Integer> hashes = index.getHashes(fromKey, toKey);
+            final List<U> items = new ArrayList<>(hashes.size());
+
+            for (Integer hash : hashes) {
+                final U value = getValue(hash);
+
+                // Skip items that changed after the index was read.
+                if (value != null && index.isInRange(value, fromKey, toKey)) {
+                    items.add(value);
+
+                    if (evictionPolicy != null) {
+                        evictionPolicy.onAccess(hash);
+                    }
+                }
+            }
+
+            return items;
+        });
+    }
+
+    /**
+     * Returns a stream of the items put with the given key in the index.
+     */
+    @NonNull
+    public <K extends Comparable<? super K>> Observable<U> getStream(@NonNull final MemoryStoreIndex<K, U> index,
+                                                                   @NonNull final K key) {
+        return getStreamRange(index, key, key);
+    }
+
+    /**
+     * Returns a stream of the items put with keys between the given keys in the index, both keys
+     * inclusive.
+     */
+    @NonNull
+    public <K extends Comparable<? super K>> Observable<U> getStreamRange(@NonNull final MemoryStoreIndex<K, U> index,
+                                                                        @NonNull final K fromKey,
+                                                                        @NonNull final K toKey) {
+        checkIndex(index);
+        checkNotNull(fromKey);
+        checkNotNull(toKey);
+        checkState(fromKey.compareTo(toKey) <= 0, "Range start must not be after its end");
+
+        return getStream().filter(item -> index.isInRange(item, fromKey, toKey));
+    }
+
+    /**
+     * Returns the number of ids that currently have a stream with at least one observer.
+     */
+    public int getStreamCount() {
+        return subjectCache.size();
+    }
+
+    @NonNull
+    private Subject<U> acquireStream(int hash) {
+        synchronized (subjectCache) {
+            StreamHolder<U> holder = subjectCache.get(hash);
+
+            if (holder == null) {
+                holder = new StreamHolder<>();
+                subjectCache.put(hash, holder);
+            }
+
+            holder.subscriberCount++;
+            return holder.subject;
+        }
+    }
+
+    private void releaseStream(int hash) {
+        synchronized (subjectCache) {
+            final StreamHolder<U> holder = subjectCache.get(hash);
+
+            if (holder != null && --holder.subscriberCount == 0) {
+                subjectCache.remove(hash);
+            }
+        }
+    }
+
+    /**
+     * Replaces the current stored value, or adds the new one if there is no current value. Returns
+     * false if the stored value was changed meanwhile. Bounded cores record the write and evict
+     * under the eviction lock, so a concurrent put can't commit a value the policy then evicts
+     * without tracking it.
+     */
+    private boolean commit(int hash,
+                           @Nullable final Object currentStored,
+                           @NonNull final Object newStored,
+                           @NonNull final U newItem) {
+        if (evictionPolicy == null) {
+            return replace(hash, currentStored, newStored);
+        }
+
+        synchronized (evictionLock) {
+            if (!replace(hash, currentStored, newStored)) {
+                return false;
+            }
+
+            evict(evictionPolicy.onWrite(hash, newItem));
+            return true;
+        }
+    }
+
+    private boolean replace(int hash, @Nullable final Object currentStored, @NonNull final Object newStored) {
+        return currentStored == null
+                ? cache.putIfAbsent(hash, newStored) == null
+                : cache.replace(hash, currentStored, newStored);
+    }
+
+    private boolean remove(int hash) {
+        if (evictionPolicy == null) {
+            return cache.remove(hash) != null;
+        }
+
+        synchronized (evictionLock) {
+            if (cache.remove(hash) == null) {
+                return false;
+            }
+
+            evictionPolicy.onRemove(hash);
+            return true;
+        }
+    }
+
+    // Guarded by evictionLock.
+    private void evict(@NonNull final List<Integer> evictedHashes) {
+        for (Integer evictedHash : evictedHashes) {
+            Log.v(TAG, "Evicting value at " + evictedHash);
+            cache.remove(evictedHash);
+
+            if (hotCache != null) {
+                hotCache.remove(evictedHash);
+            }
+
+            updateIndexes(evictedHash);
+        }
+    }
+
+    private void checkIndex(@NonNull final MemoryStoreIndex<?, U> index) {
+        checkNotNull(index);
+        checkState(indexes.contains(index), "Index does not belong to this core");
+    }
+
+    private void updateIndexes(int hash) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+
+        // Reading the current value under the lock keeps the indexes right even when puts to the
+        // same id finish in a different order than they changed the value.
+        synchronized (indexLock) {
+            final U value = getValue(hash);
+
+            for (MemoryStoreIndex<?, U> index : indexes) {
+                index.update(hash, value);
+            }
+        }
+    }
+
+    private void requestSnapshot() {
+        if (snapshot != null) {
+            snapshotRequests.onNext(true);
+        }
+    }
+
+    // Snapshots are only requested by writes, which run after the restore.
+    private void writeSnapshotFile() throws IOException {
+        final Map<Integer, byte[]> values = new HashMap<>(cache.size() * 4 / 3 + 1);
+        for (Map.Entry<Integer, Object> entry : cache.entrySet()) {
+            values.put(entry.getKey(), (byte[]) entry.getValue());
+        }
+
+        synchronized (get(snapshot)) {
+            snapshot.write(values);
+        }
+
+        Log.v(TAG, "Wrote snapshot of " + values.size() + " values");
+    }
+
+    /**
+     * Returns a Completable that completes once the restore and the writes issued so far have
+     * finished.
+     */
+    @NonNull
+    private Completable whenRestored() {
+        synchronized (restoreLock) {
+            return restored ? Completable.complete() : get(restoreChain);
+        }
+    }
+
+    /**
+     * Runs the read once the restore and the writes issued before it have finished.
+     */
+    @NonNull
+    private <R> Single<R> afterRestore(@NonNull final Callable<R> read) {
+        return Single.defer(() -> whenRestored().andThen(Single.fromCallable(read)));
+    }
+
+    /**
+     * Runs the write right away once restored. Until then the write is chained after the restore
+     * and the earlier writes, and started without waiting for a subscriber, as the writes of a
+     * restored core are.
+     */
+    @NonNull
+    private <R> Single<R> write(@NonNull final Callable<R> write) {
+        if (!restored) {
+            synchronized (restoreLock) {
+                if (!restored) {
+                    final Single<R> result = get(restoreChain)
+                            .andThen(Single.fromCallable(write))
+                            .cache();
+
+                    restoreChain = result.toCompletable().onErrorComplete().cache();
+                    result.subscribe(__ -> { }, Log.onError(TAG, "Error writing after restore"));
+                    return result;
+                }
+            }
+        }
+
+        try {
+            return Single.just(write.call());
+        } catch (Exception e) {
+            return Single.error(e);
+        }
+    }
+
+    /**
+     * Marks the core restored once the writes chained after the restore have finished, and no
+     * more writes were chained meanwhile.
+     */
+    private void finishRestore() {
+        final Completable chain;
+
+        synchronized (restoreLock) {
+            chain = get(restoreChain);
+        }
+
+        chain.subscribe(() -> {
+            synchronized (restoreLock) {
+                if (restoreChain == chain) {
+                    restored = true;
+                    restoreChain = null;
+                    return;
+                }
+            }
+
+            finishRestore();
+        });
+    }
+
+    private void restoreSnapshot() {
+        final long startTime = System.currentTimeMillis();
+        final Map<Integer, byte[]> values;
+
+        try {
+            values = get(snapshot).read();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not restore snapshot", e);
+            return;
+        }
+
+        for (Map.Entry<Integer, byte[]> entry : values.entrySet()) {
+            final int hash = entry.getKey();
+
+            final byte[] stored = entry.getValue();
+
+            // Only a bounded core needs the decoded item, for its eviction policy.
+            final boolean added = evictionPolicy != null
+                    ? commit(hash, null, stored, get(valueCodec).decode(stored))
+                    : replace(hash, null, stored);
+
+            if (added) {
+                updateIndexes(hash);
+            }
+        }
+
+        Log.v(TAG, "Restored " + values.size() + " values in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    @Nullable
+    private U getValue(int hash) {
+        final Object stored = cache.get(hash);
+
+        return stored == null ? null : decode(hash, stored);
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private U decode(int hash, @NonNull final Object stored) {
+        if (valueCodec == null) {
+            return (U) stored;
+        }
+
+        if (hotCache != null) {
+            // The hot value is valid only as long as the same encoded value is stored.
+            final HotValue<U> hotValue = hotCache.get(hash);
+            if (hotValue != null && hotValue.stored == stored) {
+                return hotValue.value;
+            }
+        }
+
+        final U value = valueCodec.decode((byte[]) stored);
+
+        if (hotCache != null) {
+            hotCache.put(hash, new HotValue<>(stored, value));
+        }
+
+        return value;
+    }
+
+    @NonNull
+    private Object encode(@NonNull final U item) {
+        return valueCodec == null ? item : valueCodec.encode(item);
     }
 
     protected int getHashCodeForId(@NonNull final T id) {
@@ -165,4 +992,166 @@ public class MemoryStoreCore<T, U> implements StoreCoreInterface<T, U> {
 
         return id.hashCode();
     }
+
+    private static final class StreamHolder<U> {
+        @NonNull
+        final Subject<U> subject = PublishSubject.<U>create().toSerialized();
+
+        int subscriberCount;
+    }
+
+    // Guarded by itself.
+    private static final class PublicationStripe<T, U> {
+        @NonNull
+        final ArrayDeque<PendingChange<T, U>> pending = new ArrayDeque<>();
+
+        boolean publishing;
+    }
+
+    private static final class PendingChange<T, U> {
+        final int hash;
+
+        @NonNull
+        final T id;
+
+        // Null for a delete.
+        @Nullable
+        final U item;
+
+        PendingChange(int hash, @NonNull final T id, @Nullable final U item) {
+            this.hash = hash;
+            this.id = id;
+            this.item = item;
+        }
+    }
+
+    private static final class HotValue<U> {
+        @NonNull
+        final Object stored;
+
+        @NonNull
+        final U value;
+
+        HotValue(@NonNull final Object stored, @NonNull final U value) {
+            this.stored = stored;
+            this.value = value;
+        }
+    }
+
+    public static class Builder<T, U> {
+        @NonNull
+        private BiFunction<U, U, U> putMergeFunction = (v1, v2) -> v2;
+
+        @Nullable
+        private EvictionPolicy<U> evictionPolicy;
+
+        @Nullable
+        private ValueCodec<U> valueCodec;
+
+        private int hotCacheSize;
+
+        @Nullable
+        private File snapshotFile;
+
+        @NonNull
+        private final List<MemoryStoreIndex<?, U>> indexes = new ArrayList<>();
+
+        private int changeLogCapacity;
+
+        @Nullable
+        private StoreChangeLog<T, U> changeLog;
+
+        @NonNull
+        public Builder<T, U> putMergeFunction(@NonNull final BiFunction<U, U, U> putMergeFunction) {
+            this.putMergeFunction = get(putMergeFunction);
+
+            return this;
+        }
+
+        @NonNull
+        public Builder<T, U> evictionPolicy(@NonNull final EvictionPolicy<U> evictionPolicy) {
+            this.evictionPolicy = get(evictionPolicy);
+
+            return this;
+        }
+
+        /**
+         * Stores the items encoded with the given codec instead of as objects.
+         */
+        @NonNull
+        public Builder<T, U> valueCodec(@NonNull final ValueCodec<U> valueCodec) {
+            this.valueCodec = get(valueCodec);
+
+            return this;
+        }
+
+        /**
+         * Keeps up to the given number of recently used items also in decoded form. Only used
+         * together with a codec.
+         */
+        @NonNull
+        public Builder<T, U> hotCacheSize(int hotCacheSize) {
+            checkState(hotCacheSize >= 0, "Hot cache size must not be negative");
+
+            this.hotCacheSize = hotCacheSize;
+
+            return this;
+        }
+
+        /**
+         * Keeps a snapshot of the items in the given file, and restores the items from it. Only
+         * used together with a codec, which also encodes the snapshot.
+         */
+        @NonNull
+        public Builder<T, U> snapshotFile(@NonNull final File snapshotFile) {
+            this.snapshotFile = get(snapshotFile);
+
+            return this;
+        }
+
+        /**
+         * Adds secondary indexes to the core.
+         */
+        @NonNull
+        public Builder<T, U> indexes(@NonNull final Collection<? extends MemoryStoreIndex<?, U>> indexes) {
+            for (MemoryStoreIndex<?, U> index : get(indexes)) {
+                this.indexes.add(get(index));
+            }
+
+            return this;
+        }
+
+        /**
+         * Keeps the given number of latest changes for observers continuing from a sequence
+         * number. By default no changes are kept, and such observers get a snapshot instead.
+         */
+        @NonNull
+        public Builder<T, U> changeLogCapacity(int changeLogCapacity) {
+            checkState(changeLogCapacity > 0, "Change log capacity must be positive");
+
+            this.changeLogCapacity = changeLogCapacity;
+
+            return this;
+        }
+
+        /**
+         * Records the changes in the given log, which may be shared by several cores.
+         */
+        @NonNull
+        Builder<T, U> changeLog(@NonNull final StoreChangeLog<T, U> changeLog) {
+            this.changeLog = get(changeLog);
+
+            return this;
+        }
+
+        @NonNull
+        public MemoryStoreCore<T, U> build() {
+            checkState(hotCacheSize == 0 || valueCodec != null, "Hot cache requires a value codec");
+            checkState(snapshotFile == null || valueCodec != null, "Snapshot requires a value codec");
+
+            return new MemoryStoreCore<>(putMergeFunction, evictionPolicy, valueCodec, hotCacheSize, snapshotFile,
+                    new ArrayList<>(indexes),
+                    changeLog != null ? changeLog : new StoreChangeLog<>(changeLogCapacity));
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A secondary index of a MemoryStoreCore. The index maps a key derived from each item to the
+ * items with that key, so that the items can be looked up by the key, or by a range of keys,
+ * without scanning the whole core. Items for which no key is derived are not indexed.
+ *
+ * The index is given to the core when the core is built, and the core keeps it up to date on
+ * puts, deletes and evictions. An index can only be used with a single core.
+ *
+ * @param <K> Type of the index key.
+ * @param <U> Type of the data the store core contains.
+ */
+public final class MemoryStoreIndex<K extends Comparable<? super K>, U> {
+
+    @NonNull
+    private final GetKeyForItem<K, U> getKeyForItem;
+
+    @NonNull
+    private final ConcurrentSkipListMap<K, Set<Integer>> hashesByKey = new ConcurrentSkipListMap<>();
+
+    // Only accessed by the core while holding its index lock.
+    @NonNull
+    private final Map<Integer, K> keysByHash = new HashMap<>();
+
+    public MemoryStoreIndex(@NonNull final GetKeyForItem<K, U> getKeyForItem) {
+        this.getKeyForItem = get(getKeyForItem);
+    }
+
+    /**
+     * Moves the item of the hash under its current key, or removes it if the item is gone.
+     */
+    void update(int hash, @Nullable final U item) {
+        final K newKey = item == null ? null : getKeyForItem.call(item);
+        final K oldKey = newKey == null ? keysByHash.remove(hash) : keysByHash.put(hash, newKey);
+
+        if (oldKey == null ? newKey == null : oldKey.equals(newKey)) {
+            return;
+        }
+
+        if (oldKey != null) {
+            final Set<Integer> hashes = hashesByKey.get(oldKey);
+            if (hashes != null) {
+                hashes.remove(hash);
+                if (hashes.isEmpty()) {
+                    hashesByKey.remove(oldKey);
+                }
+            }
+        }
+
+        if (newKey != null) {
+            Set<Integer> hashes = hashesByKey.get(newKey);
+            if (hashes == null) {
+                hashes = Collections.newSetFromMap(new ConcurrentHashMap<>(4));
+                hashesByKey.put(newKey, hashes);
+            }
+            hashes.add(hash);
+        }
+    }
+
+    /**
+     * @return Hashes of the items with keys between the given keys, both inclusive. The result may
+     * include items that have just changed, so the caller should check the items with isInRange.
+     */
+    @NonNull
+    List<Integer> getHashes(@NonNull final K fromKey, @NonNull final K toKey) {
+        final List<Integer> result = new ArrayList<>();
+
+        for (Set<Integer> hashes : hashesByKey.subMap(fromKey, true, toKey, true).values()) {
+            result.addAll(hashes);
+        }
+
+        return result;
+    }
+
+    boolean isInRange(@NonNull final U item, @NonNull final K fromKey, @NonNull final K toKey) {
+        final K key = getKeyForItem.call(item);
+
+        return key != null && key.compareTo(fromKey) >= 0 && key.compareTo(toKey) <= 0;
+    }
+
+    public interface GetKeyForItem<K, U> {
+        @Nullable
+        K call(@NonNull final U item);
+    }
+}
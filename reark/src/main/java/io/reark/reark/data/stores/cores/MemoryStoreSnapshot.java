@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * Reads and writes the encoded values of a store core in a single file. The file holds a header
+ * followed by the internal key and the bytes of each value. Writes go to a temporary file that
+ * then replaces the previous snapshot, so a crash never leaves a partial snapshot behind.
+ */
+final class MemoryStoreSnapshot {
+    private static final int MAGIC = 0x52524b53;
+    private static final int VERSION = 1;
+
+    @NonNull
+    private final File file;
+
+    MemoryStoreSnapshot(@NonNull final File file) {
+        this.file = get(file);
+    }
+
+    /**
+     * @return The values of the snapshot by their internal keys, or an empty map if there is no
+     * snapshot.
+     */
+    @NonNull
+    Map<Integer, byte[]> read() throws IOException {
+        if (!file.exists()) {
+            return new HashMap<>(0);
+        }
+
+        final DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unknown snapshot format in " + file);
+            }
+
+            final int count = readSize(input);
+            final Map<Integer, byte[]> values = new HashMap<>(count * 4 / 3 + 1);
+
+            for (int i = 0; i < count; i++) {
+                final int key = input.readInt();
+                final byte[] bytes = new byte[readSize(input)];
+                input.readFully(bytes);
+                values.put(key, bytes);
+            }
+
+            return values;
+        } finally {
+            input.close();
+        }
+    }
+
+    void write(@NonNull final Map<Integer, byte[]> values) throws IOException {
+        final File tempFile = new File(file.getPath() + ".tmp");
+
+        final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)));
+
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(values.size());
+
+            for (Map.Entry<Integer, byte[]> entry : values.entrySet()) {
+                output.writeInt(entry.getKey());
+                output.writeInt(entry.getValue().length);
+                output.write(entry.getValue());
+            }
+        } finally {
+            output.close();
+        }
+
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Could not replace snapshot " + file);
+        }
+    }
+
+    private int readSize(@NonNull final DataInputStream input) throws IOException {
+        final int size = input.readInt();
+
+        if (size < 0) {
+            throw new IOException("Corrupted snapshot " + file);
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the smallest keys after a given key. Only the keys of one page are held in memory, so
+ * a page can be picked from an unordered map of any size.
+ */
+final class PageKeyCollector {
+
+    private final PriorityQueue<Integer> largestFirst;
+
+    private final int pageSize;
+
+    @Nullable
+    private final Integer afterKey;
+
+    PageKeyCollector(int pageSize, @Nullable final Integer afterKey) {
+        this.largestFirst = new PriorityQueue<>(pageSize, Collections.reverseOrder());
+        this.pageSize = pageSize;
+        this.afterKey = afterKey;
+    }
+
+    void offer(int key) {
+        if (afterKey != null && key <= afterKey) {
+            return;
+        }
+
+        if (largestFirst.size() < pageSize) {
+            largestFirst.add(key);
+        } else if (key < largestFirst.peek()) {
+            largestFirst.poll();
+            largestFirst.add(key);
+        }
+    }
+
+    /**
+     * Returns the collected keys in ascending order.
+     */
+    int[] keys() {
+        final int[] keys = new int[largestFirst.size()];
+        int i = 0;
+        for (Integer key : largestFirst) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import io.reark.reark.data.stores.StoreQuery;
+
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * Evaluates a StoreQuery in memory over items offered one at a time. With a comparator and a
+ * limit only the limit number of best items is kept, and without a comparator the collector is
+ * full as soon as it has the limit number of items.
+ */
+final class QueryCollector<U> {
+
+    @Nullable
+    private final StoreQuery.Filter<U> filter;
+
+    @Nullable
+    private final Comparator<U> comparator;
+
+    private final int limit;
+
+    @NonNull
+    private final List<U> items = new ArrayList<>();
+
+    // The worst kept item at the head, when sorting with a limit.
+    @Nullable
+    private final PriorityQueue<U> bestItems;
+
+    QueryCollector(@NonNull final StoreQuery<U> query) {
+        checkState(query.getSelection() == null || query.getFilter() != null,
+                "Query with a selection needs a filter in memory");
+        checkState(query.getSortOrder() == null || query.getComparator() != null,
+                "Query with a sort order needs a comparator in memory");
+
+        this.filter = query.getFilter();
+        this.comparator = query.getComparator();
+        this.limit = query.getLimit();
+        this.bestItems = comparator != null && limit > 0
+                ? new PriorityQueue<>(limit + 1, Collections.reverseOrder(comparator))
+                : null;
+    }
+
+    /**
+     * @return True if no further item can change the result.
+     */
+    boolean isFull() {
+        return comparator == null && limit > 0 && items.size() >= limit;
+    }
+
+    void offer(@NonNull final U item) {
+        if (isFull() || (filter != null && !filter.call(item))) {
+            return;
+        }
+
+        if (bestItems != null) {
+            bestItems.offer(item);
+            if (bestItems.size() > limit) {
+                bestItems.poll();
+            }
+        } else {
+            items.add(item);
+        }
+    }
+
+    @NonNull
+    List<U> items() {
+        if (bestItems != null) {
+            items.addAll(bestItems);
+        }
+
+        if (comparator != null) {
+            Collections.sort(items, comparator);
+        }
+
+        return items;
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.subjects.SingleSubject;
+import io.reark.reark.data.stores.StoreChange;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.StreamOverflow;
+import io.reark.reark.data.stores.interfaces.StoreCoreInterface;
+
+import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A memory store core that spreads its ids over a number of shards. Each shard is a MemoryStoreCore
+ * with a writer thread of its own, which applies all puts and deletes of the shard. The writes of
+ * an id are thus applied and emitted in the order they were made, and writers of different shards
+ * do not contend with each other. Reads do not go through the writer threads.
+ *
+ * Writes are asynchronous: the returned Single emits once the writer thread has applied the write.
+ * Writes are submitted immediately, also if the Single is not subscribed to. The writer threads
+ * are stopped with shutdown, after which writes fail.
+ *
+ * The shards record their changes in one shared change log, so the sequence numbers are in the
+ * order the writes were applied across all shards.
+ *
+ * Paging goes through the shards one after another, so the pages are ordered first by shard.
+ *
+ * @param <T> Type of the id used in this store core.
+ * @param <U> Type of the data this store core contains.
+ */
+public class ShardedMemoryStoreCore<T, U> implements StoreCoreInterface<T, U> {
+
+    @NonNull
+    private final List<MemoryStoreCore<T, U>> shards;
+
+    @NonNull
+    private final List<ExecutorService> writers;
+
+    @NonNull
+    private final StoreChangeLog<T, U> changeLog = new StoreChangeLog<>();
+
+    public ShardedMemoryStoreCore(int shardCount) {
+        this(shardCount, (v1, v2) -> v2);
+    }
+
+    public ShardedMemoryStoreCore(int shardCount, @NonNull final BiFunction<U, U, U> putMergeFunction) {
+        checkState(shardCount > 0, "Shard count must be positive");
+        checkNotNull(putMergeFunction);
+
+        shards = new ArrayList<>(shardCount);
+        writers = new ArrayList<>(shardCount);
+
+        for (int i = 0; i < shardCount; i++) {
+            final String threadName = "MemoryStoreShard-" + i;
+            shards.add(new MemoryStoreCore.Builder<T, U>()
+                    .putMergeFunction(putMergeFunction)
+                    .changeLog(changeLog)
+                    .build());
+            writers.add(Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> put(@NonNull final T id, @NonNull final U item) {
+        checkNotNull(id);
+        checkNotNull(item);
+
+        final int shard = getShard(id);
+
+        return write(shard, () -> shards.get(shard).put(id, item));
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<T, Boolean>> putAll(@NonNull final Map<T, U> items) {
+        checkNotNull(items);
+
+        final List<Map<T, U>> shardItems = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            shardItems.add(new LinkedHashMap<>());
+        }
+        for (Map.Entry<T, U> entry : items.entrySet()) {
+            shardItems.get(getShard(get(entry.getKey()))).put(entry.getKey(), get(entry.getValue()));
+        }
+
+        final List<Single<Map<T, Boolean>>> results = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            final int shard = i;
+            final Map<T, U> shardMap = shardItems.get(shard);
+            if (!shardMap.isEmpty()) {
+                results.add(write(shard, () -> shards.get(shard).putAll(shardMap)));
+            }
+        }
+
+        if (results.isEmpty()) {
+            return Single.just(new LinkedHashMap<>(0));
+        }
+
+        // Report the results in the order of the given items.
+        return Single.zip(results, shardResults -> {
+            final Map<T, Boolean> merged = new LinkedHashMap<>(items.size());
+            for (T id : items.keySet()) {
+                merged.put(id, findResult(shardResults, id));
+            }
+            return merged;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> delete(@NonNull final T id) {
+        checkNotNull(id);
+
+        final int shard = getShard(id);
+
+        return write(shard, () -> shards.get(shard).delete(id));
+    }
+
+    @NonNull
+    @Override
+    public Maybe<U> getCached(@NonNull final T id) {
+        return shards.get(getShard(get(id))).getCached(id);
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<T, U>> getCached(@NonNull final Collection<T> ids) {
+        checkNotNull(ids);
+
+        final Map<T, U> items = new LinkedHashMap<>(ids.size());
+        for (T id : ids) {
+            final U item = shards.get(getShard(get(id))).getCached(id).blockingGet();
+            if (item != null) {
+                items.put(id, item);
+            }
+        }
+
+        return Single.just(items);
+    }
+
+    @NonNull
+    @Override
+    public Single<List<U>> getCached() {
+        final List<Single<List<U>>> shardItems = new ArrayList<>(shards.size());
+        for (MemoryStoreCore<T, U> shard : shards) {
+            shardItems.add(shard.getCached());
+        }
+
+        return Single.zip(shardItems, lists -> {
+            final List<U> items = new ArrayList<>();
+            for (Object list : lists) {
+                items.addAll(castList(list));
+            }
+            return items;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<List<U>> getCached(@NonNull final StoreQuery<U> query) {
+        checkNotNull(query);
+
+        final List<Single<List<U>>> shardItems = new ArrayList<>(shards.size());
+        for (MemoryStoreCore<T, U> shard : shards) {
+            shardItems.add(shard.getCached(query));
+        }
+
+        // Each shard has applied the query to its items, so evaluating it again over the shard
+        // results gives the order and the limit over all shards.
+        return Single.zip(shardItems, lists -> {
+            final QueryCollector<U> collector = new QueryCollector<>(query);
+            for (Object list : lists) {
+                for (U item : castList(list)) {
+                    collector.offer(item);
+                }
+            }
+            return collector.items();
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<StorePage<U>> getCachedPage(@Nullable final StorePage<U> previousPage, int pageSize) {
+        checkState(pageSize > 0, "Page size must be positive");
+
+        return Single.fromCallable(() -> {
+            if (previousPage != null && !previousPage.hasNext()) {
+                return new StorePage<>(new ArrayList<>(0), null);
+            }
+
+            final ShardPageKey<U> key = previousPage == null
+                    ? new ShardPageKey<>(0, null)
+                    : castKey(previousPage.nextKey());
+            int shard = key.shard;
+            StorePage<U> shardPage = shards.get(shard).getCachedPage(key.shardPage, pageSize).blockingGet();
+
+            // Skip over shards that have no more items.
+            while (shardPage.items().isEmpty() && shard + 1 < shards.size()) {
+                shard++;
+                shardPage = shards.get(shard).getCachedPage(null, pageSize).blockingGet();
+            }
+
+            final Object nextKey = shardPage.hasNext() ? new ShardPageKey<>(shard, shardPage)
+                    : shard + 1 < shards.size() ? new ShardPageKey<U>(shard + 1, null)
+                    : null;
+
+            return new StorePage<>(shardPage.items(), nextKey);
+        });
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getCachedFlowable(int pageSize) {
+        return StorePage.flowable(previousPage -> getCachedPage(previousPage, pageSize));
+    }
+
+    @NonNull
+    @Override
+    public Observable<U> getStream(@NonNull final T id) {
+        return shards.get(getShard(get(id))).getStream(id);
+    }
+
+    @NonNull
+    @Override
+    public Observable<U> getStream() {
+        final List<Observable<U>> streams = new ArrayList<>(shards.size());
+        for (MemoryStoreCore<T, U> shard : shards) {
+            streams.add(shard.getStream());
+        }
+
+        return Observable.merge(streams);
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final T id, @NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream(id));
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream());
+    }
+
+    @NonNull
+    @Override
+    public Observable<StoreChange<T, U>> getChangesSince(long sequence) {
+        return changeLog.getChangesSince(sequence, this::getCached);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Stops the writer threads once they have applied the writes submitted so far. The items can
+     * still be read, but later writes fail.
+     */
+    public void shutdown() {
+        for (ExecutorService writer : writers) {
+            writer.shutdown();
+        }
+    }
+
+    @NonNull
+    private <R> Single<R> write(int shard, @NonNull final ShardWrite<R> shardWrite) {
+        final SingleSubject<R> result = SingleSubject.create();
+
+        try {
+            writers.get(shard).execute(() -> {
+                try {
+                    shardWrite.call().subscribe(result);
+                } catch (Exception e) {
+                    result.onError(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return Single.error(new IllegalStateException("Core has been shut down", e));
+        }
+
+        return result;
+    }
+
+    private int getShard(@NonNull final T id) {
+        final int hash = id.hashCode();
+
+        // Spread the high bits, as ids are often small consecutive numbers.
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shards.size();
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static <T> Boolean findResult(@NonNull final Object[] shardResults, @NonNull final T id) {
+        for (Object shardResult : shardResults) {
+            final Map<T, Boolean> results = (Map<T, Boolean>) shardResult;
+            if (results.containsKey(id)) {
+                return results.get(id);
+            }
+        }
+
+        return null;
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private List<U> castList(@NonNull final Object list) {
+        return (List<U>) list;
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private static <U> ShardPageKey<U> castKey(@Nullable final Object key) {
+        return (ShardPageKey<U>) get(key);
+    }
+
+    private interface ShardWrite<R> {
+        @NonNull
+        Single<R> call();
+    }
+
+    private static final class ShardPageKey<U> {
+        final int shard;
+
+        @Nullable
+        final StorePage<U> shardPage;
+
+        ShardPageKey(int shard, @Nullable final StorePage<U> shardPage) {
+            this.shard = shard;
+            this.shardPage = shardPage;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+import io.reactivex.subjects.UnicastSubject;
+import io.reark.reark.data.stores.StoreChange;
+
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A bounded log of the latest changes of a store core. The log stamps each change with the next
+ * sequence number, and lets subscribers continue from the last change they saw.
+ *
+ * The sequence numbers start from one in every instance of the log, so the numbers handed out
+ * carry a random epoch of the instance in their high bits. A subscriber continuing with a number
+ * from another instance, such as one saved before the app was restarted, gets a snapshot instead
+ * of changes that would only happen to have the same numbers.
+ *
+ * A log with zero capacity keeps no changes, and only stamps the sequence numbers and emits the
+ * changes to its current subscribers. Subscribers continuing from an earlier change then get a
+ * snapshot. Such a log does not allocate anything for a change while nobody is subscribed.
+ *
+ * @param <T> Type of the id used in the store core.
+ * @param <U> Type of the data the store core contains.
+ */
+public final class StoreChangeLog<T, U> {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    // The sign bit is left unused, so that the numbers stay positive.
+    private static final int SEQUENCE_BITS = 39;
+
+    private static final int EPOCH_BITS = 24;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final int capacity;
+
+    private final long epoch;
+
+    // Guarded by this, as is the sequence number.
+    @NonNull
+    private final ArrayDeque<StoreChange<T, U>> changes;
+
+    private long lastSequence;
+
+    @NonNull
+    private final Subject<StoreChange<T, U>> subject = PublishSubject.create();
+
+    public StoreChangeLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StoreChangeLog(int capacity) {
+        this(capacity, 1 + new Random().nextInt((1 << EPOCH_BITS) - 1));
+    }
+
+    StoreChangeLog(int capacity, int epoch) {
+        checkState(capacity >= 0, "Capacity must not be negative");
+        checkState(epoch >= 0 && epoch < 1 << EPOCH_BITS, "Epoch out of range: " + epoch);
+
+        this.capacity = capacity;
+        this.epoch = (long) epoch << SEQUENCE_BITS;
+        this.changes = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Records a put of the item, or a delete if the item is null.
+     */
+    public synchronized void append(@NonNull final T id, @Nullable final U item) {
+        final long sequence = epoch | ++lastSequence;
+
+        if (capacity == 0 && !subject.hasObservers()) {
+            return;
+        }
+
+        final StoreChange<T, U> change = item != null
+                ? StoreChange.put(sequence, id, item)
+                : StoreChange.delete(sequence, id);
+
+        if (capacity > 0) {
+            if (changes.size() == capacity) {
+                changes.removeFirst();
+            }
+            changes.addLast(change);
+        }
+
+        // Emitting under the lock keeps the stream in sequence order.
+        subject.onNext(change);
+    }
+
+    /**
+     * Returns the number of the latest change, or zero if there are none.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence == 0 ? 0 : epoch | lastSequence;
+    }
+
+    /**
+     * Returns a stream of the changes after the given sequence number. The changes still in the
+     * log are replayed first. If some of the missed changes are no longer in the log, a snapshot
+     * read with the given function is emitted instead of them. Changes made while the snapshot is
+     * read may also be emitted after it.
+     *
+     * @param sequence Sequence number of the last change seen, or zero to get all changes.
+     *                 A number from another instance of the log gives a snapshot.
+     * @param snapshot Function for reading all current items of the store core.
+     */
+    @NonNull
+    public Observable<StoreChange<T, U>> getChangesSince(long sequence,
+                                                         @NonNull final SnapshotReader<U> snapshot) {
+        checkState(sequence >= 0, "Sequence must not be negative");
+        get(snapshot);
+
+        return Observable.defer(() -> {
+            // Start buffering live changes before reading the log, so that none falls in between.
+            // The buffer only holds the changes made until the replay has been emitted.
+            final UnicastSubject<StoreChange<T, U>> liveChanges = UnicastSubject.create();
+            final Disposable liveDisposable = subject.subscribe(liveChanges::onNext);
+
+            final List<StoreChange<T, U>> missedChanges = new ArrayList<>();
+            final long logSequence;
+            final boolean truncated;
+
+            synchronized (this) {
+                logSequence = epoch | lastSequence;
+                final long seen = sequence & SEQUENCE_MASK;
+
+                // A sequence of another epoch, or ahead of the log, is from another instance.
+                truncated = (sequence != 0 && (sequence & ~SEQUENCE_MASK) != epoch)
+                        || seen > lastSequence
+                        || (seen < lastSequence && (changes.isEmpty()
+                                || sequenceOf(changes.peekFirst().sequence()) > seen + 1));
+
+                if (!truncated) {
+                    for (StoreChange<T, U> change : changes) {
+                        if (sequenceOf(change.sequence()) > seen) {
+                            missedChanges.add(change);
+                        }
+                    }
+                }
+            }
+
+            final Observable<StoreChange<T, U>> replay = truncated
+                    ? snapshot.read()
+                            .map(items -> StoreChange.<T, U>snapshot(logSequence, items))
+                            .toObservable()
+                    : Observable.fromIterable(missedChanges);
+
+            return replay
+                    .concatWith(liveChanges.filter(change -> change.sequence() > logSequence))
+                    .doFinally(liveDisposable::dispose);
+        });
+    }
+
+    /**
+     * Returns the number of the change within its instance of the log, without the epoch.
+     */
+    static long sequenceOf(long sequence) {
+        return sequence & SEQUENCE_MASK;
+    }
+
+    public interface SnapshotReader<U> {
+        @NonNull
+        Single<List<U>> read();
+    }
+}
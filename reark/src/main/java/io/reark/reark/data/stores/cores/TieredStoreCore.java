@@ -0,0 +1,459 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.BiFunction;
+import io.reark.reark.data.stores.DefaultStore.GetIdForItem;
+import io.reark.reark.data.stores.StoreChange;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.StreamOverflow;
+import io.reark.reark.data.stores.cores.eviction.LruEvictionPolicy;
+import io.reark.reark.data.stores.interfaces.StoreCoreInterface;
+import io.reark.reark.utils.Log;
+
+import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A StoreCore that keeps the recently used items of a persistent core in a bounded memory cache.
+ * Reads of single ids are served from the memory when possible, and otherwise read through from
+ * the persistent core. Ids that were not found are remembered as well, so repeated reads of
+ * missing ids do not reach the persistent core either.
+ *
+ * The memory cache follows the change stream of the persistent core. This keeps the cache up to
+ * date also with writes made by other processes, as long as the persistent core reports them.
+ * Deletes are not part of the stream, so deletes from other processes are not seen.
+ *
+ * Writes go through to the persistent core by default, and a written id is read again from the
+ * persistent core, which merged the write. In write behind mode a put is merged to the memory cache
+ * right away, and the merged value is written to the persistent core in the background. An id
+ * missing from the memory cache is read from the persistent core before the merge, so that the
+ * written value keeps the persisted fields.
+ *
+ * @param <T> Type of the id used in this store core.
+ * @param <U> Type of the data this store core contains.
+ */
+public class TieredStoreCore<T, U> implements StoreCoreInterface<T, U> {
+    private static final String TAG = TieredStoreCore.class.getSimpleName();
+
+    @NonNull
+    private final StoreCoreInterface<T, U> persistentCore;
+
+    @NonNull
+    private final GetIdForItem<T, U> getIdForItem;
+
+    @Nullable
+    private final BiFunction<U, U, U> writeBehindMergeFunction;
+
+    @NonNull
+    private final MemoryStoreCore<T, U> memoryCore;
+
+    @NonNull
+    private final Map<T, Boolean> missingIds;
+
+    @NonNull
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong hitCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong missCount = new AtomicLong();
+
+    @NonNull
+    private final Disposable persistentStreamDisposable;
+
+    private TieredStoreCore(@NonNull final StoreCoreInterface<T, U> persistentCore,
+                            @NonNull final GetIdForItem<T, U> getIdForItem,
+                            @Nullable final BiFunction<U, U, U> writeBehindMergeFunction,
+                            final int maxSize) {
+        this.persistentCore = get(persistentCore);
+        this.getIdForItem = get(getIdForItem);
+        this.writeBehindMergeFunction = writeBehindMergeFunction;
+        this.memoryCore = new MemoryStoreCore<>(
+                writeBehindMergeFunction != null ? writeBehindMergeFunction : (v1, v2) -> v2,
+                new LruEvictionPolicy<>(maxSize));
+        this.missingIds = Collections.synchronizedMap(new LinkedHashMap<T, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<T, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        });
+
+        persistentStreamDisposable = persistentCore.getStream()
+                .subscribe(item -> refresh(getIdForItem.call(item), item),
+                        Log.onError(TAG, "Error following the persistent core"));
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> put(@NonNull final T id, @NonNull final U item) {
+        checkNotNull(id);
+        checkNotNull(item);
+
+        if (writeBehindMergeFunction == null) {
+            // Invalidated before the write, so that the refresh following it is kept.
+            invalidate(id);
+            return persistentCore.put(id, item);
+        }
+
+        return readForWrite(Collections.singletonList(id))
+                .andThen(Single.fromCallable(() -> putBehind(id, item)));
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<T, Boolean>> putAll(@NonNull final Map<T, U> items) {
+        checkNotNull(items);
+
+        if (writeBehindMergeFunction == null) {
+            for (T id : items.keySet()) {
+                invalidate(id);
+            }
+            return persistentCore.putAll(items);
+        }
+
+        return readForWrite(items.keySet())
+                .andThen(Single.fromCallable(() -> {
+                    final Map<T, Boolean> results = new LinkedHashMap<>(items.size());
+                    for (Map.Entry<T, U> entry : items.entrySet()) {
+                        results.put(entry.getKey(), putBehind(get(entry.getKey()), get(entry.getValue())));
+                    }
+                    return results;
+                }));
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> delete(@NonNull final T id) {
+        checkNotNull(id);
+
+        invalidate(id);
+
+        return persistentCore.delete(id);
+    }
+
+    @NonNull
+    @Override
+    public Maybe<U> getCached(@NonNull final T id) {
+        checkNotNull(id);
+
+        return memoryCore.getCached(id)
+                .doOnSuccess(__ -> hitCount.incrementAndGet())
+                .switchIfEmpty(Maybe.defer(() -> readThrough(id)));
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<T, U>> getCached(@NonNull final Collection<T> ids) {
+        checkNotNull(ids);
+
+        return memoryCore.getCached(ids)
+                .flatMap(cachedItems -> {
+                    final List<T> readIds = new ArrayList<>();
+                    for (T id : ids) {
+                        if (!cachedItems.containsKey(id) && !missingIds.containsKey(id)) {
+                            readIds.add(id);
+                        }
+                    }
+
+                    hitCount.addAndGet(ids.size() - readIds.size());
+                    missCount.addAndGet(readIds.size());
+
+                    if (readIds.isEmpty()) {
+                        return Single.just(cachedItems);
+                    }
+
+                    final long invalidations = invalidationCount.get();
+
+                    return persistentCore.getCached(readIds)
+                            .map(readItems -> {
+                                for (T id : readIds) {
+                                    cacheReadResult(id, readItems.get(id), invalidations);
+                                }
+
+                                final Map<T, U> items = new LinkedHashMap<>(cachedItems);
+                                items.putAll(readItems);
+                                return items;
+                            });
+                });
+    }
+
+    @NonNull
+    @Override
+    public Single<List<U>> getCached() {
+        return persistentCore.getCached();
+    }
+
+    @NonNull
+    @Override
+    public Single<List<U>> getCached(@NonNull final StoreQuery<U> query) {
+        return persistentCore.getCached(query);
+    }
+
+    @NonNull
+    @Override
+    public Single<StorePage<U>> getCachedPage(@Nullable final StorePage<U> previousPage, int pageSize) {
+        return persistentCore.getCachedPage(previousPage, pageSize);
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getCachedFlowable(int pageSize) {
+        return persistentCore.getCachedFlowable(pageSize);
+    }
+
+    @NonNull
+    @Override
+    public Observable<U> getStream(@NonNull final T id) {
+        return persistentCore.getStream(id);
+    }
+
+    @NonNull
+    @Override
+    public Observable<U> getStream() {
+        return persistentCore.getStream();
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final T id, @NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream(id));
+    }
+
+    @NonNull
+    @Override
+    public Flowable<U> getStream(@NonNull final StreamOverflow overflow) {
+        return get(overflow).apply(getStream());
+    }
+
+    /**
+     * Returns the changes of the persistent core. In write behind mode a put is seen once it has
+     * been written to the persistent core.
+     */
+    @NonNull
+    @Override
+    public Observable<StoreChange<T, U>> getChangesSince(long sequence) {
+        return persistentCore.getChangesSince(sequence);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the share of the ids read with getCached, of one or several ids, that were served
+     * without reading the persistent core.
+     */
+    public double getHitRate() {
+        final long hits = hitCount.get();
+        final long total = hits + missCount.get();
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Stops following the changes of the persistent core.
+     */
+    public void dispose() {
+        persistentStreamDisposable.dispose();
+    }
+
+    @NonNull
+    private Maybe<U> readThrough(@NonNull final T id) {
+        if (missingIds.containsKey(id)) {
+            hitCount.incrementAndGet();
+            return Maybe.empty();
+        }
+
+        missCount.incrementAndGet();
+
+        // A change seen while reading may be newer than the read value, so the read is then
+        // not cached.
+        final long invalidations = invalidationCount.get();
+
+        return persistentCore.getCached(id)
+                .doOnSuccess(item -> cacheReadResult(id, item, invalidations))
+                .doOnComplete(() -> cacheReadResult(id, null, invalidations));
+    }
+
+    private void cacheReadResult(@NonNull final T id,
+                                 @Nullable final U item,
+                                 long invalidations) throws Exception {
+        if (invalidationCount.get() != invalidations) {
+            return;
+        }
+
+        if (item != null) {
+            memoryCore.overwrite(id, item);
+        } else {
+            missingIds.put(id, true);
+        }
+    }
+
+    /**
+     * Reads the ids missing from the memory cache from the persistent core with one read, so that
+     * write behind puts merge with the persisted values. A value put meanwhile is kept.
+     */
+    @NonNull
+    private Completable readForWrite(@NonNull final Collection<T> ids) {
+        return memoryCore.getCached(ids)
+                .flatMapCompletable(cachedItems -> {
+                    final List<T> readIds = new ArrayList<>();
+                    for (T id : ids) {
+                        if (!cachedItems.containsKey(id) && !missingIds.containsKey(id)) {
+                            readIds.add(id);
+                        }
+                    }
+
+                    if (readIds.isEmpty()) {
+                        return Completable.complete();
+                    }
+
+                    return persistentCore.getCached(readIds)
+                            .doOnSuccess(readItems -> {
+                                for (Map.Entry<T, U> entry : readItems.entrySet()) {
+                                    memoryCore.putIfAbsent(entry.getKey(), entry.getValue());
+                                }
+                            })
+                            .toCompletable();
+                });
+    }
+
+    private boolean putBehind(@NonNull final T id, @NonNull final U item) throws Exception {
+        // A read of the persistent core running meanwhile would miss the put.
+        invalidationCount.incrementAndGet();
+        missingIds.remove(id);
+        final U mergedItem = memoryCore.putAndGet(id, item);
+
+        if (mergedItem == null) {
+            return false;
+        }
+
+        persistentCore.put(id, mergedItem)
+                .subscribe(__ -> { }, Log.onError(TAG, "Error writing " + id + " behind"));
+
+        return true;
+    }
+
+    private void refresh(@NonNull final T id, @NonNull final U item) throws Exception {
+        invalidationCount.incrementAndGet();
+        missingIds.remove(id);
+
+        // The persistent core already holds the merged value.
+        memoryCore.overwrite(id, item);
+    }
+
+    private void invalidate(@NonNull final T id) {
+        invalidationCount.incrementAndGet();
+        missingIds.remove(id);
+        memoryCore.delete(id).subscribe();
+    }
+
+    public static class Builder<T, U> {
+        private static final int DEFAULT_MAX_SIZE = 100;
+
+        @Nullable
+        private StoreCoreInterface<T, U> persistentCore;
+
+        @Nullable
+        private GetIdForItem<T, U> getIdForItem;
+
+        @Nullable
+        private BiFunction<U, U, U> writeBehindMergeFunction;
+
+        private int maxSize = DEFAULT_MAX_SIZE;
+
+        @NonNull
+        public Builder<T, U> persistentCore(@NonNull final StoreCoreInterface<T, U> persistentCore) {
+            this.persistentCore = get(persistentCore);
+
+            return this;
+        }
+
+        @NonNull
+        public Builder<T, U> idForItem(@NonNull final GetIdForItem<T, U> getIdForItem) {
+            this.getIdForItem = get(getIdForItem);
+
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of items, and separately of missing ids, kept in memory.
+         */
+        @NonNull
+        public Builder<T, U> maxSize(int maxSize) {
+            checkState(maxSize > 0, "Max size must be positive");
+
+            this.maxSize = maxSize;
+
+            return this;
+        }
+
+        /**
+         * Enables the write behind mode. Puts are merged in the memory cache with the merge
+         * function, and the merged values are written behind. The persistent core should then
+         * replace its values with the written ones instead of merging them again.
+         */
+        @NonNull
+        public Builder<T, U> writeBehind(@NonNull final BiFunction<U, U, U> mergeFunction) {
+            this.writeBehindMergeFunction = get(mergeFunction);
+
+            return this;
+        }
+
+        @NonNull
+        public TieredStoreCore<T, U> build() {
+            checkNotNull(persistentCore, "Persistent core is required");
+            checkNotNull(getIdForItem, "Id function is required");
+
+            return new TieredStoreCore<>(persistentCore, getIdForItem, writeBehindMergeFunction, maxSize);
+        }
+    }
+}
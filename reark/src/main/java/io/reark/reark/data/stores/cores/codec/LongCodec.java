@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores.codec;
+
+import android.support.annotation.NonNull;
+
+import static io.reark.reark.utils.Preconditions.checkState;
+
+/**
+ * Encodes long values as their eight big-endian bytes, for example the write times of a store.
+ */
+public final class LongCodec implements ValueCodec<Long> {
+
+    private static final int SIZE = 8;
+
+    @NonNull
+    @Override
+    public byte[] encode(@NonNull final Long item) {
+        final long value = item;
+        final byte[] bytes = new byte[SIZE];
+
+        for (int i = 0; i < SIZE; i++) {
+            bytes[i] = (byte) (value >>> (8 * (SIZE - 1 - i)));
+        }
+
+        return bytes;
+    }
+
+    @NonNull
+    @Override
+    public Long decode(@NonNull final byte[] bytes) {
+        checkState(bytes.length == SIZE, "Invalid length of an encoded long: " + bytes.length);
+
+        long value = 0;
+        for (int i = 0; i < SIZE; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+
+        return value;
+    }
+}
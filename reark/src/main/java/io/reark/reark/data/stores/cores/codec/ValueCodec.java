@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores.codec;
+
+import android.support.annotation.NonNull;
+
+/**
+ * ValueCodec converts the items of a store core to a compact serialized form and back. A store
+ * core using a codec keeps only the encoded bytes, which usually take a fraction of the memory of
+ * the object graph, and decodes the items again when they are read.
+ *
+ * Decoding an encoded item must give an item equal to the original one.
+ *
+ * @param <U> Type of the data the store core contains.
+ */
+public interface ValueCodec<U> {
+    /**
+     * @param item The item to encode.
+     * @return The encoded bytes of the item. The caller takes ownership of the array.
+     */
+    @NonNull
+    byte[] encode(@NonNull final U item);
+
+    /**
+     * @param bytes Bytes previously returned by encode.
+     * @return The decoded item.
+     */
+    @NonNull
+    U decode(@NonNull final byte[] bytes);
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores.eviction;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * EvictionPolicy decides which items a bounded store core should drop to stay within its limits.
+ * The policy only tracks the keys the core uses internally, the core itself owns the data.
+ *
+ * @param <U> Type of the data the store core contains.
+ */
+public interface EvictionPolicy<U> {
+    /**
+     * Checks whether the policy can keep the item at all. The store core does not write an item
+     * the policy would evict right away.
+     *
+     * @param item The item about to be written.
+     * @return False if the item alone exceeds the limits of the policy.
+     */
+    boolean canHold(@NonNull final U item);
+
+    /**
+     * Records a written item.
+     *
+     * @param key Internal key of the written item.
+     * @param item The written item.
+     * @return Keys of the items the store core should evict. Can be empty, but not null.
+     */
+    @NonNull
+    List<Integer> onWrite(int key, @NonNull final U item);
+
+    /**
+     * Records a read of an existing item.
+     *
+     * @param key Internal key of the read item.
+     */
+    void onAccess(int key);
+
+    /**
+     * Records an item removed by other means than eviction, for example through a delete.
+     *
+     * @param key Internal key of the removed item.
+     */
+    void onRemove(int key);
+
+    /**
+     * @return Total number of items evicted by this policy.
+     */
+    long getEvictionCount();
+}
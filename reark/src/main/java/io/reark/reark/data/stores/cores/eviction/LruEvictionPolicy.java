@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores.eviction;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * Least recently used eviction policy. Items are weighed when written, and the least recently
+ * written or read items are evicted once the total weight exceeds the maximum weight. With the
+ * default weigher every item weighs one, and the maximum weight is the maximum number of items.
+ *
+ * @param <U> Type of the data the store core contains.
+ */
+public final class LruEvictionPolicy<U> implements EvictionPolicy<U> {
+
+    @NonNull
+    private final Map<Integer, Integer> weights = new LinkedHashMap<>(16, 0.75f, true);
+
+    @NonNull
+    private final Weigher<U> weigher;
+
+    private final long maxWeight;
+
+    private long totalWeight;
+
+    private long evictionCount;
+
+    private long evictedWeight;
+
+    public LruEvictionPolicy(final int maxSize) {
+        this(maxSize, __ -> 1);
+    }
+
+    public LruEvictionPolicy(final long maxWeight, @NonNull final Weigher<U> weigher) {
+        checkState(maxWeight > 0, "Max weight must be positive.");
+
+        this.maxWeight = maxWeight;
+        this.weigher = get(weigher);
+    }
+
+    @Override
+    public boolean canHold(@NonNull final U item) {
+        return weigher.weigh(get(item)) <= maxWeight;
+    }
+
+    @NonNull
+    @Override
+    public synchronized List<Integer> onWrite(int key, @NonNull final U item) {
+        final int weight = weigher.weigh(get(item));
+        checkState(weight >= 0, "Weight cannot be negative: " + item);
+
+        final Integer previousWeight = weights.put(key, weight);
+        totalWeight += weight - (previousWeight != null ? previousWeight : 0);
+
+        if (totalWeight <= maxWeight) {
+            return Collections.emptyList();
+        }
+
+        final List<Integer> evicted = new ArrayList<>(1);
+        final Iterator<Map.Entry<Integer, Integer>> iterator = weights.entrySet().iterator();
+
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            final Map.Entry<Integer, Integer> eldest = iterator.next();
+            iterator.remove();
+
+            totalWeight -= eldest.getValue();
+            evictedWeight += eldest.getValue();
+            evictionCount++;
+            evicted.add(eldest.getKey());
+        }
+
+        return evicted;
+    }
+
+    @Override
+    public synchronized void onAccess(int key) {
+        // Access ordered map moves the key to the tail on get.
+        weights.get(key);
+    }
+
+    @Override
+    public synchronized void onRemove(int key) {
+        final Integer weight = weights.remove(key);
+
+        if (weight != null) {
+            totalWeight -= weight;
+        }
+    }
+
+    @Override
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return Total weight of the items evicted by this policy.
+     */
+    public synchronized long getEvictedWeight() {
+        return evictedWeight;
+    }
+
+    /**
+     * @return Current total weight of the tracked items.
+     */
+    public synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return Current number of the tracked items.
+     */
+    public synchronized int getSize() {
+        return weights.size();
+    }
+
+    public interface Weigher<U> {
+        int weigh(@NonNull final U item);
+    }
+}
@@ -49,14 +49,18 @@ public final class CoreOperation {
     @NonNull
     private final ContentProviderOperation operation;
 
+    private final int estimatedSize;
+
     CoreOperation(@NonNull Uri uri, @NonNull Subject<Boolean> completionNotifier) {
-        this(uri, completionNotifier, NO_OP);
+        this(uri, completionNotifier, NO_OP, 0);
     }
 
-    CoreOperation(@NonNull Uri uri, @NonNull Subject<Boolean> completionNotifier, @NonNull ContentProviderOperation operation) {
+    CoreOperation(@NonNull Uri uri, @NonNull Subject<Boolean> completionNotifier, @NonNull ContentProviderOperation operation,
+                  int estimatedSize) {
         this.uri = uri;
         this.completionNotifier = completionNotifier;
         this.operation = operation;
+        this.estimatedSize = estimatedSize;
     }
 
     @NonNull
@@ -74,6 +78,13 @@ public final class CoreOperation {
         return operation;
     }
 
+    /**
+     * Returns the estimated size of the operation in a binder transaction.
+     */
+    public int estimatedSize() {
+        return estimatedSize;
+    }
+
     public boolean isValid() {
         return !NO_OP.equals(operation);
     }
@@ -54,7 +54,8 @@ public final class CoreValueDelete<U> implements CoreValue<U> {
 
     @NonNull
     public CoreOperation toDeleteOperation() {
-        return new CoreOperation(uri, completionNotifier, ContentProviderOperation.newDelete(uri).build());
+        return new CoreOperation(uri, completionNotifier, ContentProviderOperation.newDelete(uri).build(),
+                OperationSize.estimate(uri, null));
     }
 
     @Override
@@ -30,10 +30,14 @@ import android.content.ContentValues;
 import android.net.Uri;
 import android.support.annotation.NonNull;
 
+import java.util.Collections;
+import java.util.List;
+
 import io.reactivex.subjects.Subject;
 
 /**
- * A class used to represent a change to the database.
+ * A class used to represent a change to the database. Puts of the same Uri may be folded into one
+ * value, which keeps their items in the order of the puts.
  */
 public final class CoreValuePut<U> implements CoreValue<U> {
 
@@ -41,20 +45,25 @@ public final class CoreValuePut<U> implements CoreValue<U> {
     private final Uri uri;
 
     @NonNull
-    private final U item;
+    private final List<U> items;
 
     @NonNull
     private final Subject<Boolean> completionNotifier;
 
-    private CoreValuePut(@NonNull Uri uri, @NonNull U item, @NonNull Subject<Boolean> completionNotifier) {
+    private CoreValuePut(@NonNull Uri uri, @NonNull List<U> items, @NonNull Subject<Boolean> completionNotifier) {
         this.uri = uri;
-        this.item = item;
+        this.items = items;
         this.completionNotifier = completionNotifier;
     }
 
     @NonNull
     public static <U> CoreValuePut<U> create(@NonNull Subject<Boolean> completionNotifier, @NonNull Uri uri, @NonNull U item) {
-        return new CoreValuePut<>(uri, item, completionNotifier);
+        return new CoreValuePut<>(uri, Collections.singletonList(item), completionNotifier);
+    }
+
+    @NonNull
+    public static <U> CoreValuePut<U> create(@NonNull Subject<Boolean> completionNotifier, @NonNull Uri uri, @NonNull List<U> items) {
+        return new CoreValuePut<>(uri, Collections.unmodifiableList(items), completionNotifier);
     }
 
     @NonNull
@@ -62,7 +71,7 @@ public final class CoreValuePut<U> implements CoreValue<U> {
         return new CoreOperation(uri, completionNotifier, ContentProviderOperation
                 .newInsert(uri)
                 .withValues(values)
-                .build());
+                .build(), OperationSize.estimate(uri, values));
     }
 
     @NonNull
@@ -70,7 +79,7 @@ public final class CoreValuePut<U> implements CoreValue<U> {
         return new CoreOperation(uri, completionNotifier, ContentProviderOperation
                 .newUpdate(uri)
                 .withValues(values)
-                .build());
+                .build(), OperationSize.estimate(uri, values));
     }
 
     @Override
@@ -79,9 +88,17 @@ public final class CoreValuePut<U> implements CoreValue<U> {
         return uri;
     }
 
+    /**
+     * Returns the items of the folded puts in the order of the puts.
+     */
+    @NonNull
+    public List<U> items() {
+        return items;
+    }
+
     @NonNull
-    public U item() {
-        return item;
+    public U lastItem() {
+        return items.get(items.size() - 1);
     }
 
     @NonNull
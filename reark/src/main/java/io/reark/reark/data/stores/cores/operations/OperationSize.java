@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores.operations;
+
+import android.content.ContentValues;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Map;
+
+/**
+ * Estimates the number of bytes an operation takes in a binder transaction. The estimate follows
+ * how Parcel writes the Uri and the values, and is meant for keeping batches well below the
+ * transaction limit rather than for exact accounting.
+ */
+public final class OperationSize {
+
+    // Operation type, flags and the other fixed fields of a parceled operation.
+    private static final int OPERATION_OVERHEAD = 64;
+
+    private static final int TYPE_TAG = 4;
+
+    private OperationSize() {
+    }
+
+    public static int estimate(@NonNull final Uri uri, @Nullable final ContentValues values) {
+        int size = OPERATION_OVERHEAD + stringSize(uri.toString());
+
+        if (values != null) {
+            for (Map.Entry<String, Object> entry : values.valueSet()) {
+                size += stringSize(entry.getKey()) + TYPE_TAG + valueSize(entry.getValue());
+            }
+        }
+
+        return size;
+    }
+
+    private static int valueSize(@Nullable final Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Integer
+                || value instanceof Short || value instanceof Byte || value instanceof Float) {
+            return 4;
+        } else if (value instanceof Long || value instanceof Double) {
+            return 8;
+        } else if (value instanceof String) {
+            return stringSize((String) value);
+        } else if (value instanceof byte[]) {
+            return 4 + ((byte[]) value).length;
+        }
+
+        return 4 + stringSize(value.toString());
+    }
+
+    private static int stringSize(@Nullable final String value) {
+        // Length, UTF-16 characters and a terminator, padded to four bytes.
+        return value == null ? 4 : 4 + (((value.length() + 1) * 2 + 3) & ~3);
+    }
+}
@@ -26,12 +26,20 @@
 package io.reark.reark.data.stores.interfaces;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reark.reark.data.stores.StoreChange;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.StreamOverflow;
 
 /**
  * StoreCore is the underlying persistence mechanism of a store. It is not mandatory for a store to
@@ -60,6 +68,17 @@ public interface StoreCoreInterface<T, U> {
     @NonNull
     Single<Boolean> put(@NonNull final T id, @NonNull final U item);
 
+    /**
+     * Takes a map of identifiers and items to be persisted together. The core may write the items
+     * more efficiently than with separate puts, for instance in one transaction.
+     *
+     * @param items Persisted items mapped by their ids.
+     * @return Single that emits, for each id, true if the value was updated or inserted, and false
+     * otherwise.
+     */
+    @NonNull
+    Single<Map<T, Boolean>> putAll(@NonNull final Map<T, U> items);
+
     /**
      * Takes an identifier to be deleted, and returns Single that emits when the operation has been
      * executed.
@@ -83,6 +102,18 @@ public interface StoreCoreInterface<T, U> {
     @NonNull
     Maybe<U> getCached(@NonNull final T id);
 
+    /**
+     * Takes a collection of identifiers and returns a Single that emits the items found with them.
+     * The core may read the items more efficiently than with separate gets, for instance with one
+     * query.
+     *
+     * @param ids Identifiers for the data items to be retrieved from cache.
+     * @return Single that emits the found data items mapped by their ids. Ids with no data item in
+     * the cache are left out of the map.
+     */
+    @NonNull
+    Single<Map<T, U>> getCached(@NonNull final Collection<T> ids);
+
     /**
      * Returns an Observable that emits all items from the underlying persisting structure (in case
      * the store uses an in-memory strategy this could mean the items are emitted synchronously).
@@ -94,6 +125,40 @@ public interface StoreCoreInterface<T, U> {
     @NonNull
     Single<List<U>> getCached();
 
+    /**
+     * Returns the items that match the query. The query is evaluated by the core, so that items
+     * filtered out are not read from the underlying persisting structure where possible.
+     *
+     * @param query The query to evaluate.
+     * @return Single that emits a list of the matching items, in the order of the query if it
+     * has one. In case no items match, an empty list is emitted.
+     */
+    @NonNull
+    Single<List<U>> getCached(@NonNull final StoreQuery<U> query);
+
+    /**
+     * Returns a Single that emits one page of the items in the underlying persisting structure.
+     * The pages are read by key, so that a page costs the same regardless of its position, and
+     * the items of the core are never held in memory all at once.
+     *
+     * @param previousPage The page after which to continue, or null for the first page.
+     * @param pageSize The maximum number of items in the page.
+     * @return Single that emits the page. The last page has no next key.
+     */
+    @NonNull
+    Single<StorePage<U>> getCachedPage(@Nullable final StorePage<U> previousPage, int pageSize);
+
+    /**
+     * Returns a Flowable that emits all items from the underlying persisting structure. The items
+     * are read in pages as they are requested, so the memory use does not depend on the number of
+     * items in the core.
+     *
+     * @param pageSize The number of items read at a time.
+     * @return Flowable that emits all data items and completes.
+     */
+    @NonNull
+    Flowable<U> getCachedFlowable(int pageSize);
+
     /**
      * Takes an identifier and returns an Observable that emits all matching _future_ items that are
      * put into the core. Unlike most store getStream equivalents, the StoreCore getStream does not
@@ -117,4 +182,40 @@ public interface StoreCoreInterface<T, U> {
      */
     @NonNull
     Observable<U> getStream();
+
+    /**
+     * A variant of getStream with backpressure. Items the subscriber is not ready to receive are
+     * handled with the given overflow strategy.
+     *
+     * @param id Identifier for the stream of data items.
+     * @param overflow Strategy for the items put faster than the subscriber receives them.
+     * @return A Flowable that emits all future items matching the given identifier that are put
+     * into the core.
+     */
+    @NonNull
+    Flowable<U> getStream(@NonNull final T id, @NonNull final StreamOverflow overflow);
+
+    /**
+     * A variant of getStream with backpressure. Items the subscriber is not ready to receive are
+     * handled with the given overflow strategy.
+     *
+     * @param overflow Strategy for the items put faster than the subscriber receives them.
+     * @return A Flowable that emits all future items that are put into the core.
+     */
+    @NonNull
+    Flowable<U> getStream(@NonNull final StreamOverflow overflow);
+
+    /**
+     * Returns an Observable that emits the changes made to the core after the given sequence
+     * number, followed by all _future_ changes. Each put and delete of the core is stamped with the
+     * next sequence number. In case some of the missed changes are no longer kept by the core, or
+     * the sequence number is from another instance of the core, a snapshot of all items is emitted
+     * in their place.
+     *
+     * @param sequence Sequence number of the last change seen, or zero to get all changes.
+     * @return An Observable that emits the missed changes, or a snapshot, and then all future
+     * changes of the core.
+     */
+    @NonNull
+    Observable<StoreChange<T, U>> getChangesSince(long sequence);
 }
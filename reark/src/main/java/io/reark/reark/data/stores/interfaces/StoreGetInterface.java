@@ -27,10 +27,15 @@ package io.reark.reark.data.stores.interfaces;
 
 import android.support.annotation.NonNull;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.StreamOverflow;
 
 /**
  * Interface for stores from which one can get data in the form of a single item or a stream of
@@ -57,6 +62,17 @@ public interface StoreGetInterface<T, U, R> {
     @NonNull
     Single<R> getOnce(@NonNull final T id);
 
+    /**
+     * Get the latest items in the store with the specified identifiers. The store may read the
+     * items more efficiently than with separate getOnce calls.
+     *
+     * @param ids The identifiers of the requested objects, as defined by the store.
+     * @return A single that emits the items mapped by their ids. Ids with no item are mapped to a
+     * value representing empty data.
+     */
+    @NonNull
+    Single<Map<T, R>> getOnce(@NonNull final Collection<T> ids);
+
     /**
      * Get all current items in the store. The returned observable always completes, unlike in its
      * sibling getOnceAndStream.
@@ -66,6 +82,15 @@ public interface StoreGetInterface<T, U, R> {
     @NonNull
     Single<List<U>> getOnce();
 
+    /**
+     * Get the current items in the store that match the query.
+     *
+     * @param query The query to evaluate, as supported by the store.
+     * @return A single that emits the list of matching items and completes.
+     */
+    @NonNull
+    Single<List<U>> getOnce(@NonNull final StoreQuery<U> query);
+
     /**
      * Get a full stream of items with the specified identifier. Whenever a store receives a new
      * item with the id, it pushes it to the stream.
@@ -80,4 +105,56 @@ public interface StoreGetInterface<T, U, R> {
      */
     @NonNull
     Observable<R> getOnceAndStream(@NonNull final T id);
+
+    /**
+     * A variant of getOnceAndStream that keeps the item fresh. The stored item is emitted right
+     * away as usual, but if the item is missing or has expired, the refresh is called with the id
+     * before the item is emitted. The refreshed item then arrives in the stream.
+     *
+     * @param id The identifier of the requested object, as defined by the store.
+     * @param refresh Function starting a refresh of the item from its source.
+     * @return An observable that first emits the latest item, or a value representing no data,
+     * and then emits all further items with the same id as they are inserted into the store.
+     */
+    @NonNull
+    Observable<R> getOnceAndStream(@NonNull final T id, @NonNull final Refresh<T> refresh);
+
+    /**
+     * A variant of getOnceAndStream with backpressure. Items the subscriber is not ready to
+     * receive are handled with the given overflow strategy, which may also apply to the first item.
+     *
+     * @param id The identifier of the requested object, as defined by the store.
+     * @param overflow Strategy for the items put faster than the subscriber receives them.
+     * @return A Flowable that first emits the latest item, and then all further items with the
+     * same id as they are inserted into the store.
+     */
+    @NonNull
+    Flowable<R> getOnceAndStream(@NonNull final T id, @NonNull final StreamOverflow overflow);
+
+    /**
+     * Get a stream of the items with the specified identifier that are put into the store after
+     * the call. Unlike getOnceAndStream, the stream does not read the current item first, so a
+     * caller that has already read it doesn't read it again.
+     *
+     * @param id The identifier of the requested object, as defined by the store.
+     * @return An observable that emits all further items with the id as they are inserted into
+     * the store.
+     */
+    @NonNull
+    Observable<R> getStream(@NonNull final T id);
+
+    /**
+     * Check whether the item with the specified identifier should be refreshed from its source.
+     * The stored item can still be used while the refresh is in progress.
+     *
+     * @param id The identifier of the requested object, as defined by the store.
+     * @return A single that emits true if the store has no item with the id, or the item is older
+     * than the time to live of the store.
+     */
+    @NonNull
+    Single<Boolean> isExpired(@NonNull final T id);
+
+    interface Refresh<T> {
+        void call(@NonNull T id);
+    }
 }
@@ -27,6 +27,8 @@ package io.reark.reark.data.stores.interfaces;
 
 import android.support.annotation.NonNull;
 
+import java.util.List;
+
 import io.reactivex.Single;
 
 /**
@@ -45,4 +47,15 @@ public interface StorePutInterface<U> {
      */
     @NonNull
     Single<Boolean> put(@NonNull final U item);
+
+    /**
+     * Inserts several data items into the store at once. The ids are deduced from the items as in
+     * put. If the list contains several items with the same id, only the last one of them is put.
+     *
+     * @param items The data items to insert into the store.
+     * @return Single that emits a list with a result for each item, in the order of the items. The
+     * result is true if the value was updated or inserted, and false otherwise.
+     */
+    @NonNull
+    Single<List<Boolean>> putAll(@NonNull final List<U> items);
 }
@@ -29,6 +29,10 @@ import android.support.annotation.NonNull;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import io.reark.reark.utils.Log;
 
@@ -53,7 +57,56 @@ public abstract class OverwritablePojo<T extends OverwritablePojo<T>> {
             return (T) this;
         }
 
-        for (Field field : getTypeParameterClass().getDeclaredFields()) {
+        for (Field field : getAccessibleFields()) {
+            try {
+                if (!isEmpty(field, other)) {
+                    field.set(this, field.get(other));
+                }
+            } catch (IllegalAccessException e) {
+                Log.e(TAG, "Failed set at " + field.getName(), e);
+            }
+        }
+
+        return (T) this;
+    }
+
+    /**
+     * Returns the names of the fields whose values differ in the other instance. The fields are
+     * the same ones overwrite walks, and the values are compared with equals.
+     */
+    @NonNull
+    public Set<String> getChangedFields(@NonNull final T other) {
+        checkNotNull(other, "Can't compare with null value");
+
+        final Set<String> changedFields = new HashSet<>();
+
+        if (other == this) {
+            return changedFields;
+        }
+
+        for (Field field : getAccessibleFields()) {
+            try {
+                final Object value = field.get(this);
+                final Object otherValue = field.get(other);
+
+                if (value == null ? otherValue != null : !value.equals(otherValue)) {
+                    changedFields.add(field.getName());
+                }
+            } catch (IllegalAccessException e) {
+                Log.e(TAG, "Failed get at " + field.getName(), e);
+                changedFields.add(field.getName());
+            }
+        }
+
+        return changedFields;
+    }
+
+    @NonNull
+    private List<Field> getAccessibleFields() {
+        final Field[] declaredFields = getTypeParameterClass().getDeclaredFields();
+        final List<Field> fields = new ArrayList<>(declaredFields.length);
+
+        for (Field field : declaredFields) {
             final int modifiers = field.getModifiers();
 
             if (hasIllegalAccessModifiers(modifiers)) {
@@ -61,21 +114,15 @@ public abstract class OverwritablePojo<T extends OverwritablePojo<T>> {
             }
 
             if (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers)) {
-                // We want to overwrite also private and final fields. This allows field access
+                // We want to access also private and final fields. This allows field access
                 // for this instance of the field. The actual field of the class isn't modified.
                 field.setAccessible(true);
             }
 
-            try {
-                if (!isEmpty(field, other)) {
-                    field.set(this, field.get(other));
-                }
-            } catch (IllegalAccessException e) {
-                Log.e(TAG, "Failed set at " + field.getName(), e);
-            }
+            fields.add(field);
         }
 
-        return (T) this;
+        return fields;
     }
 
     protected boolean hasIllegalAccessModifiers(int modifiers) {
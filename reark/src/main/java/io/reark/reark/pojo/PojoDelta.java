@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.pojo;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * A change of a pojo, with the names of the fields that changed from the previous value. The first
+ * value of a stream has no previous value, and all of its fields count as changed.
+ *
+ * @param <T> Type of the pojo.
+ */
+public final class PojoDelta<T> {
+
+    @Nullable
+    private final T previous;
+
+    @NonNull
+    private final T current;
+
+    @NonNull
+    private final Set<String> changedFields;
+
+    public PojoDelta(@Nullable final T previous,
+                     @NonNull final T current,
+                     @NonNull final Set<String> changedFields) {
+        this.previous = previous;
+        this.current = get(current);
+        this.changedFields = Collections.unmodifiableSet(get(changedFields));
+    }
+
+    @Nullable
+    public T getPrevious() {
+        return previous;
+    }
+
+    @NonNull
+    public T getCurrent() {
+        return current;
+    }
+
+    /**
+     * Returns the names of the changed fields. The set is empty for the first value.
+     */
+    @NonNull
+    public Set<String> getChangedFields() {
+        return changedFields;
+    }
+
+    public boolean isInitial() {
+        return previous == null;
+    }
+
+    public boolean hasChanged(@NonNull final String fieldName) {
+        return previous == null || changedFields.contains(get(fieldName));
+    }
+
+    @Override
+    public String toString() {
+        return "PojoDelta{" +
+                "current=" + current +
+                ", changedFields=" + changedFields +
+                '}';
+    }
+}
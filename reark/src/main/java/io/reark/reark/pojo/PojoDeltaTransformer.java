@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.pojo;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Set;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+
+/**
+ * Turns a stream of pojos into a stream of their deltas. Each value is compared field by field to
+ * the previous one, and values with no changed fields are left out. The values are compared after
+ * they have been emitted, so they must not be modified in place.
+ *
+ * @param <T> Type of the pojos.
+ */
+public final class PojoDeltaTransformer<T extends OverwritablePojo<T>>
+        implements ObservableTransformer<T, PojoDelta<T>> {
+
+    @Override
+    public ObservableSource<PojoDelta<T>> apply(@NonNull final Observable<T> upstream) {
+        return Observable.defer(() -> {
+            final DeltaState<T> state = new DeltaState<>();
+
+            return upstream
+                    .map(state::next)
+                    .filter(delta -> delta.isInitial() || !delta.getChangedFields().isEmpty());
+        });
+    }
+
+    private static final class DeltaState<T extends OverwritablePojo<T>> {
+        private T previous;
+
+        @NonNull
+        PojoDelta<T> next(@NonNull final T current) {
+            final Set<String> changedFields = previous != null
+                    ? previous.getChangedFields(current)
+                    : Collections.<String>emptySet();
+            final PojoDelta<T> delta = new PojoDelta<>(previous, current, changedFields);
+
+            previous = current;
+
+            return delta;
+        }
+    }
+}
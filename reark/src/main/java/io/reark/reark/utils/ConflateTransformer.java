@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.CompositeDisposable;
+
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * Conflates bursts of items. The first item is emitted right away and opens a window. Of the items
+ * arriving during the window only the latest is kept, and it is emitted when the window closes,
+ * opening a new window. A quiet stream has no open window and schedules nothing.
+ *
+ * @param <T> Type of the items.
+ */
+public final class ConflateTransformer<T> implements ObservableTransformer<T, T> {
+
+    private final long windowMs;
+
+    @NonNull
+    private final Scheduler scheduler;
+
+    @NonNull
+    private final AtomicLong conflatedCount;
+
+    /**
+     * @param window Length of the conflation window.
+     * @param timeUnit Time unit of the window.
+     * @param scheduler Scheduler for closing the windows, and emitting the items kept.
+     * @param conflatedCount Counter increased for each item dropped in favor of a later one.
+     */
+    public ConflateTransformer(long window,
+                               @NonNull final TimeUnit timeUnit,
+                               @NonNull final Scheduler scheduler,
+                               @NonNull final AtomicLong conflatedCount) {
+        checkState(window > 0, "Window must be positive");
+
+        this.windowMs = get(timeUnit).toMillis(window);
+        this.scheduler = get(scheduler);
+        this.conflatedCount = get(conflatedCount);
+    }
+
+    @Override
+    public ObservableSource<T> apply(@NonNull final Observable<T> upstream) {
+        return Observable.create(emitter -> {
+            final Window window = new Window(emitter, scheduler.createWorker());
+            final CompositeDisposable disposables = new CompositeDisposable(window.worker);
+
+            emitter.setDisposable(disposables);
+            disposables.add(upstream.subscribe(window::onNext, window::onError, window::onComplete));
+        });
+    }
+
+    // Emits while holding its lock, which keeps the emissions serialized.
+    private final class Window implements Runnable {
+        @NonNull
+        final ObservableEmitter<T> emitter;
+
+        @NonNull
+        final Scheduler.Worker worker;
+
+        @Nullable
+        private T pendingItem;
+
+        private boolean open;
+
+        Window(@NonNull final ObservableEmitter<T> emitter, @NonNull final Scheduler.Worker worker) {
+            this.emitter = emitter;
+            this.worker = worker;
+        }
+
+        synchronized void onNext(@NonNull final T item) {
+            if (!open) {
+                open = true;
+                emitter.onNext(item);
+                worker.schedule(this, windowMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            if (pendingItem != null) {
+                conflatedCount.incrementAndGet();
+            }
+            pendingItem = item;
+        }
+
+        synchronized void onError(@NonNull final Throwable error) {
+            emitter.onError(error);
+        }
+
+        synchronized void onComplete() {
+            if (pendingItem != null) {
+                emitter.onNext(pendingItem);
+                pendingItem = null;
+            }
+            emitter.onComplete();
+        }
+
+        @Override
+        public synchronized void run() {
+            if (pendingItem == null) {
+                open = false;
+                return;
+            }
+
+            emitter.onNext(pendingItem);
+            pendingItem = null;
+            worker.schedule(this, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+}
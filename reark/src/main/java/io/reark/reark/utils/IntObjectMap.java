@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import static io.reark.reark.utils.Preconditions.checkNotNull;
+
+/**
+ * Map from primitive int keys to object values. Uses open addressing with linear probing, so
+ * reads and writes of existing keys do not allocate, and keys are never boxed. Null values are
+ * not supported.
+ *
+ * The map is not thread-safe, the owner is expected to synchronize the access.
+ *
+ * @param <V> Type of the values.
+ */
+public final class IntObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private int mask;
+
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        allocate(tableSizeFor(Math.max(expectedSize, 1) * 2));
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return The previous value of the key, or null if there was none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V put(int key, @NonNull final V value) {
+        checkNotNull(value);
+
+        int index = indexOf(key);
+
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                final V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+
+        if (++size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes the value of the key.
+     *
+     * @return The removed value, or null if there was none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = indexOf(key);
+
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                final V previous = (V) values[index];
+                shiftKeysBack(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds all values of the map to the given list.
+     */
+    @SuppressWarnings("unchecked")
+    public void addValuesTo(@NonNull final List<? super V> list) {
+        checkNotNull(list);
+
+        for (Object value : values) {
+            if (value != null) {
+                list.add((V) value);
+            }
+        }
+    }
+
+    /**
+     * Returns the first slot at or after the given slot that holds an entry, or -1 if there is
+     * none. Iterating with nextSlot, keyAt and valueAt does not allocate. The slots are only valid
+     * until the map is modified.
+     */
+    public int nextSlot(int slot) {
+        for (int i = Math.max(slot, 0); i < values.length; i++) {
+            if (values[i] != null) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    // Removal without tombstones: entries following the removed slot in the same probe
+    // sequence are moved back so that lookups never stop at a hole too early.
+    private void shiftKeysBack(int index) {
+        int last = index;
+        int slot = (index + 1) & mask;
+
+        while (values[slot] != null) {
+            final int ideal = indexOf(keys[slot]);
+
+            if (((slot - ideal) & mask) >= ((slot - last) & mask)) {
+                keys[last] = keys[slot];
+                values[last] = values[slot];
+                last = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        values[last] = null;
+    }
+
+    private void rehash(int newCapacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private int indexOf(int key) {
+        // Spread the bits so that sequential ids do not form long probe chains.
+        final int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.utils;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+import static io.reark.reark.utils.Preconditions.checkNotNull;
+import static io.reark.reark.utils.Preconditions.checkState;
+import static io.reark.reark.utils.Preconditions.get;
+
+/**
+ * Asynchronous counterpart of ObjectLockHandler. Equal objects share a lock, which is granted to
+ * one request at a time in the order of the requests. Waiting for a lock does not block a thread:
+ * a request is queued, and continues when the lock is released.
+ *
+ * A request may lock several objects. It is queued for all of them at once, and granted when it
+ * is first in the queues of all its objects, so two requests can't wait for each other.
+ */
+public final class ObjectLockQueue<T> {
+
+    // Queues of the requests by object. The first request of a queue holds or waits for the lock.
+    @NonNull
+    private final Map<T, ArrayDeque<Request<T>>> queues = new HashMap<>();
+
+    /**
+     * Returns a Completable that completes when the locks of all the objects are held. The
+     * Completable completes on the thread that released the last of the locks. The caller has to
+     * release the objects after the Completable has completed. Disposing the Completable before
+     * the locks are granted cancels the request, but once granted, the locks are held until they
+     * are released.
+     */
+    @NonNull
+    public Completable acquire(@NonNull final Collection<T> objects) {
+        final List<T> requestObjects = distinct(objects);
+
+        return Completable.create(emitter -> {
+            final Request<T> request = new Request<>(requestObjects, emitter::onComplete);
+            emitter.setCancellable(() -> cancel(request));
+            enqueue(request);
+        });
+    }
+
+    /**
+     * Runs the task on the scheduler while holding the locks of all the objects, and releases the
+     * locks after it. Disposing the Single before the task has started cancels the request. A
+     * started task always runs to completion.
+     */
+    @NonNull
+    public <R> Single<R> withLocks(@NonNull final Collection<T> objects,
+                                   @NonNull final Scheduler scheduler,
+                                   @NonNull final Callable<R> task) {
+        final List<T> requestObjects = distinct(objects);
+        checkNotNull(scheduler);
+        checkNotNull(task);
+
+        return Single.create(emitter -> {
+            final Request<T> request = new Request<>(requestObjects, () -> scheduler.scheduleDirect(() -> {
+                try {
+                    final R result = task.call();
+                    release(requestObjects);
+                    emitter.onSuccess(result);
+                } catch (Exception e) {
+                    release(requestObjects);
+                    emitter.onError(e);
+                }
+            }));
+            emitter.setCancellable(() -> cancel(request));
+            enqueue(request);
+        });
+    }
+
+    /**
+     * Releases the locks of the objects, and grants them to the next requests. If any of the
+     * objects is not locked, none of the locks are released.
+     */
+    public void release(@NonNull final Collection<T> objects) {
+        final List<T> releasedObjects = distinct(objects);
+        final List<Request<T>> grantedRequests = new ArrayList<>(1);
+
+        synchronized (queues) {
+            for (T object : releasedObjects) {
+                final ArrayDeque<Request<T>> queue = queues.get(object);
+
+                if (queue == null || !queue.peekFirst().granted) {
+                    throw new IllegalStateException("Tried to release without acquiring first: " + object);
+                }
+            }
+
+            for (T object : releasedObjects) {
+                queues.get(object).removeFirst();
+                grantNext(object, grantedRequests);
+            }
+        }
+
+        runGranted(grantedRequests);
+    }
+
+    private void enqueue(@NonNull final Request<T> request) {
+        final boolean granted;
+
+        synchronized (queues) {
+            for (T object : request.objects) {
+                ArrayDeque<Request<T>> queue = queues.get(object);
+                if (queue == null) {
+                    queue = new ArrayDeque<>(2);
+                    queues.put(object, queue);
+                }
+                queue.addLast(request);
+            }
+
+            granted = isFirstInAll(request);
+            request.granted = granted;
+        }
+
+        if (granted) {
+            request.onGranted.run();
+        }
+    }
+
+    private void cancel(@NonNull final Request<T> request) {
+        final List<Request<T>> grantedRequests = new ArrayList<>(1);
+
+        synchronized (queues) {
+            if (request.granted || request.cancelled) {
+                // A granted request is released by its holder.
+                return;
+            }
+            request.cancelled = true;
+
+            for (T object : request.objects) {
+                final ArrayDeque<Request<T>> queue = queues.get(object);
+                if (queue != null && queue.remove(request)) {
+                    grantNext(object, grantedRequests);
+                }
+            }
+        }
+
+        runGranted(grantedRequests);
+    }
+
+    // Guarded by queues.
+    private void grantNext(@NonNull final T object, @NonNull final List<Request<T>> grantedRequests) {
+        final ArrayDeque<Request<T>> queue = queues.get(object);
+
+        if (queue.isEmpty()) {
+            queues.remove(object);
+            return;
+        }
+
+        final Request<T> next = queue.peekFirst();
+        if (!next.granted && isFirstInAll(next)) {
+            next.granted = true;
+            grantedRequests.add(next);
+        }
+    }
+
+    // Guarded by queues.
+    private boolean isFirstInAll(@NonNull final Request<T> request) {
+        for (T object : request.objects) {
+            if (queues.get(object).peekFirst() != request) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static <T> void runGranted(@NonNull final List<Request<T>> grantedRequests) {
+        for (Request<T> request : grantedRequests) {
+            request.onGranted.run();
+        }
+    }
+
+    @NonNull
+    private static <T> List<T> distinct(@NonNull final Collection<T> objects) {
+        checkNotNull(objects);
+
+        final List<T> distinctObjects = new ArrayList<>(new LinkedHashSet<>(objects));
+        for (T object : distinctObjects) {
+            checkNotNull(object);
+        }
+        checkState(!distinctObjects.isEmpty(), "Objects must not be empty");
+
+        return distinctObjects;
+    }
+
+    private static final class Request<T> {
+        @NonNull
+        final List<T> objects;
+
+        @NonNull
+        final Runnable onGranted;
+
+        // Guarded by the queues of the lock.
+        boolean granted;
+
+        boolean cancelled;
+
+        Request(@NonNull final List<T> objects, @NonNull final Runnable onGranted) {
+            this.objects = get(objects);
+            this.onGranted = get(onGranted);
+        }
+    }
+}
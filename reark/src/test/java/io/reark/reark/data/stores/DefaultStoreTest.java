@@ -0,0 +1,293 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.Pair;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subscribers.TestSubscriber;
+import io.reark.reark.data.stores.cores.MemoryStoreCore;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class DefaultStoreTest {
+
+    private static final Pair<Integer, String> NONE = Pair.create(-1, null);
+
+    private MemoryStoreCore<Integer, Pair<Integer, String>> core;
+    private TestStore store;
+
+    @Before
+    public void setup() {
+        core = new MemoryStoreCore<>();
+        store = new TestStore(core, 10);
+    }
+
+    @Test
+    public void getOnceAndStream_WithLatestOverflow_EmitsLatestOnRequest() {
+        store.put(Pair.create(100, "test string 1"));
+        TestSubscriber<Pair<Integer, String>> testSubscriber =
+                store.getOnceAndStream(100, StreamOverflow.latest()).test(1);
+
+        store.put(Pair.create(100, "test string 2"));
+        store.put(Pair.create(100, "test string 3"));
+        testSubscriber.request(1);
+
+        testSubscriber.assertValues(Pair.create(100, "test string 1"), Pair.create(100, "test string 3"));
+    }
+
+    @Test
+    public void getOnceAndStream_WithConflation_EmitsLatestOfBurst() {
+        TestScheduler scheduler = new TestScheduler();
+        store.setConflationWindow(16, TimeUnit.MILLISECONDS, scheduler);
+        TestObserver<Pair<Integer, String>> testObserver = store.getOnceAndStream(100).test();
+
+        store.put(Pair.create(100, "test string 1"));
+        store.put(Pair.create(100, "test string 2"));
+        scheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+
+        testObserver.assertValues(NONE, Pair.create(100, "test string 2"));
+        assertEquals(1, store.getConflatedCount());
+    }
+
+    @Test
+    public void getStream_WithStoredItem_EmitsOnlyLaterItems() {
+        store.put(Pair.create(100, "test string 1"));
+        TestObserver<Pair<Integer, String>> testObserver = store.getStream(100).test();
+
+        store.put(Pair.create(100, "test string 2"));
+
+        testObserver.assertValues(Pair.create(100, "test string 2"));
+    }
+
+    @Test
+    public void getOnceAndStream_WithRefreshAndNoData_Refreshes() {
+        List<Integer> refreshed = new ArrayList<>();
+
+        TestObserver<Pair<Integer, String>> testObserver =
+                store.getOnceAndStream(100, refreshed::add).test();
+
+        testObserver.assertValues(NONE);
+        assertEquals(singletonList(100), refreshed);
+    }
+
+    @Test
+    public void getOnceAndStream_WithRefreshAndFreshData_EmitsWithoutRefresh() {
+        List<Integer> refreshed = new ArrayList<>();
+        store.put(Pair.create(100, "test string 1"));
+        store.currentTime += 9;
+
+        TestObserver<Pair<Integer, String>> testObserver =
+                store.getOnceAndStream(100, refreshed::add).test();
+
+        testObserver.assertValues(Pair.create(100, "test string 1"));
+        assertEquals(emptyList(), refreshed);
+    }
+
+    @Test
+    public void getOnceAndStream_WithRefreshAndOldData_EmitsOldDataAndRefreshes() {
+        store.put(Pair.create(100, "test string 1"));
+        store.currentTime += 10;
+
+        TestObserver<Pair<Integer, String>> testObserver = store
+                .getOnceAndStream(100, id -> store.put(Pair.create(id, "test string 2")))
+                .test();
+
+        testObserver.assertValues(Pair.create(100, "test string 1"), Pair.create(100, "test string 2"));
+    }
+
+    @Test
+    public void put_WithFailingCore_DoesNotRecordWriteTime() {
+        MemoryStoreCore<Integer, Pair<Integer, String>> failingCore = new MemoryStoreCore<Integer, Pair<Integer, String>>() {
+            @NonNull
+            @Override
+            public Single<Boolean> put(@NonNull final Integer id, @NonNull final Pair<Integer, String> item) {
+                return Single.error(new IllegalStateException("Write failed"));
+            }
+        };
+        store = new TestStore(failingCore, 10);
+        failingCore.put(100, Pair.create(100, "test string 1"));
+        store.currentTime += 10;
+
+        store.put(Pair.create(100, "test string 2")).test();
+
+        store.isExpired(100)
+                .test()
+                .assertValue(true);
+    }
+
+    @Test
+    public void isExpired_WithNoData_ReturnsTrue() {
+        store.isExpired(100)
+                .test()
+                .assertValue(true);
+    }
+
+    @Test
+    public void isExpired_WithFreshData_ReturnsFalse() {
+        store.put(Pair.create(100, "test string 1"));
+        store.currentTime += 9;
+
+        store.isExpired(100)
+                .test()
+                .assertValue(false);
+    }
+
+    @Test
+    public void isExpired_WithOldData_ReturnsTrue() {
+        store.put(Pair.create(100, "test string 1"));
+        store.currentTime += 10;
+
+        store.isExpired(100)
+                .test()
+                .assertValue(true);
+    }
+
+    @Test
+    public void isExpired_AfterRewrite_ReturnsFalse() {
+        store.put(Pair.create(100, "test string 1"));
+        store.currentTime += 10;
+        store.put(Pair.create(100, "test string 1"));
+
+        store.isExpired(100)
+                .test()
+                .assertValue(false);
+    }
+
+    @Test
+    public void isExpired_WithDataWrittenDirectlyToCore_ReturnsFalse() {
+        // Writes from other processes are only seen through the core.
+        core.put(100, Pair.create(100, "test string 1"));
+
+        store.isExpired(100)
+                .test()
+                .assertValue(false);
+    }
+
+    @Test
+    public void isExpired_AfterDelete_ReturnsTrue() {
+        store.put(Pair.create(100, "test string 1"));
+        store.delete(100);
+
+        store.isExpired(100)
+                .test()
+                .assertValue(true);
+    }
+
+    @Test
+    public void isExpired_WithWriteTimesFromEarlierStore_ReturnsFalse() {
+        MemoryStoreCore<Integer, Long> writeTimeCore = new MemoryStoreCore<>(Math::max);
+        store = new TestStore(core, 10, writeTimeCore);
+        store.put(Pair.create(100, "test string 1"));
+
+        // A new store, as after a restart, reads the write times kept by the earlier one.
+        store = new TestStore(core, 10, writeTimeCore);
+        store.currentTime += 9;
+
+        store.isExpired(100)
+                .test()
+                .assertValue(false);
+    }
+
+    @Test
+    public void isExpired_WithDataWrittenDirectlyToCoreAfterDispose_ReturnsTrue() {
+        store.dispose();
+        core.put(100, Pair.create(100, "test string 1"));
+
+        store.isExpired(100)
+                .test()
+                .assertValue(true);
+    }
+
+    @Test
+    public void putAll_WithResultMissingFromCore_ReturnsFalse() {
+        MemoryStoreCore<Integer, Pair<Integer, String>> partialCore = new MemoryStoreCore<Integer, Pair<Integer, String>>() {
+            @NonNull
+            @Override
+            public Single<Map<Integer, Boolean>> putAll(@NonNull final Map<Integer, Pair<Integer, String>> items) {
+                return Single.just(Collections.singletonMap(100, true));
+            }
+        };
+        store = new TestStore(partialCore, 10);
+
+        store.putAll(Arrays.asList(Pair.create(100, "test string 1"), Pair.create(200, "test string 2")))
+                .test()
+                .assertValue(Arrays.asList(true, false));
+    }
+
+    @Test
+    public void isExpired_WithNoTimeToLive_ReturnsTrue() {
+        store = new TestStore(core, 0);
+        store.put(Pair.create(100, "test string 1"));
+
+        store.isExpired(100)
+                .test()
+                .assertValue(true);
+    }
+
+    private static class TestStore extends DefaultStore<Integer, Pair<Integer, String>, Pair<Integer, String>> {
+        long currentTime = 1000;
+
+        TestStore(@NonNull final MemoryStoreCore<Integer, Pair<Integer, String>> core, long timeToLive) {
+            super(core,
+                    pair -> pair.first,
+                    pair -> pair != null ? pair : NONE,
+                    () -> NONE,
+                    timeToLive, TimeUnit.MILLISECONDS);
+        }
+
+        TestStore(@NonNull final MemoryStoreCore<Integer, Pair<Integer, String>> core,
+                  long timeToLive,
+                  @NonNull final MemoryStoreCore<Integer, Long> writeTimeCore) {
+            super(core,
+                    pair -> pair.first,
+                    pair -> pair != null ? pair : NONE,
+                    () -> NONE,
+                    timeToLive, TimeUnit.MILLISECONDS,
+                    writeTimeCore);
+        }
+
+        @Override
+        protected long getCurrentTimeMillis() {
+            return currentTime;
+        }
+    }
+}
@@ -30,11 +30,14 @@ import android.support.v4.util.Pair;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
 
+import static java.util.Arrays.asList;
+
 public class MemoryStoreTest {
 
     private MemoryStore<Integer, Pair<Integer, String>, Pair<Integer, String>> memoryStore;
@@ -234,4 +237,33 @@ public class MemoryStoreTest {
                 .assertNoErrors()
                 .assertValue(value);
     }
+
+    @Test
+    public void putAll_ReturnsResultsInItemOrder() {
+        final Pair<Integer, String> value1 = new Pair<>(100, "test string 1");
+        final Pair<Integer, String> value2 = new Pair<>(200, "test string 2");
+
+        memoryStore.put(value2);
+        memoryStore.putAll(asList(value1, value2))
+                .test()
+                .assertValue(asList(true, false));
+
+        memoryStore.getOnce(100)
+                .test()
+                .assertValue(value1);
+    }
+
+    @Test
+    public void getOnce_WithIds_ReturnsValuesAndNoneValues_InIdOrder() {
+        final Pair<Integer, String> value1 = new Pair<>(100, "test string 1");
+        final Pair<Integer, String> value2 = new Pair<>(200, "test string 2");
+
+        memoryStore.put(value1);
+        memoryStore.put(value2);
+
+        memoryStore.getOnce(asList(200, 300, 100))
+                .test()
+                .assertValue(map -> new ArrayList<>(map.keySet()).equals(asList(200, 300, 100))
+                        && new ArrayList<>(map.values()).equals(asList(value2, NONE, value1)));
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores;
+
+import org.junit.Test;
+
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class StreamOverflowTest {
+
+    private final PublishSubject<Integer> subject = PublishSubject.create();
+
+    @Test
+    public void latest_KeepsOnlyLatestItem() {
+        TestSubscriber<Integer> testSubscriber = StreamOverflow.latest().apply(subject).test(0);
+
+        subject.onNext(1);
+        subject.onNext(2);
+        subject.onNext(3);
+        testSubscriber.request(2);
+        subject.onNext(4);
+
+        testSubscriber.assertValues(3, 4).assertNoErrors();
+    }
+
+    @Test
+    public void drop_DropsItemsWithoutRequests() {
+        TestSubscriber<Integer> testSubscriber = StreamOverflow.drop().apply(subject).test(0);
+
+        subject.onNext(1);
+        subject.onNext(2);
+        testSubscriber.request(1);
+        subject.onNext(3);
+
+        testSubscriber.assertValues(3).assertNoErrors();
+    }
+
+    @Test
+    public void buffer_KeepsNewestItemsUpToCapacity() {
+        TestSubscriber<Integer> testSubscriber = StreamOverflow.buffer(2).apply(subject).test(0);
+
+        subject.onNext(1);
+        subject.onNext(2);
+        subject.onNext(3);
+        testSubscriber.request(3);
+
+        testSubscriber.assertValues(2, 3).assertNoErrors();
+    }
+
+    @Test
+    public void buffer_WithRequests_EmitsAllItems() {
+        TestSubscriber<Integer> testSubscriber = StreamOverflow.buffer(1).apply(subject).test();
+
+        subject.onNext(1);
+        subject.onNext(2);
+        subject.onNext(3);
+
+        testSubscriber.assertValues(1, 2, 3).assertNoErrors();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void buffer_WithZeroCapacity_Throws() {
+        StreamOverflow.buffer(0);
+    }
+}
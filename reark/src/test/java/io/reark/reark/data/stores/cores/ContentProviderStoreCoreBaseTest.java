@@ -11,12 +11,27 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
+import io.reark.reark.data.stores.StoreQuery;
 
 import static io.reark.reark.data.stores.cores.ContentProviderStoreCoreBase.DEFAULT_GROUPING_TIMEOUT_MS;
 import static io.reark.reark.data.stores.cores.ContentProviderStoreCoreBase.DEFAULT_GROUP_MAX_SIZE;
+import static io.reark.reark.data.stores.cores.ContentProviderStoreCoreBase.DEFAULT_MAX_GROUPING_LATENCY_MS;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ContentProviderStoreCoreBaseTest {
 
@@ -77,6 +92,178 @@ public class ContentProviderStoreCoreBaseTest {
                 .assertValueCount(3);
     }
 
+    @Test
+    public void groupOperations_WithSteadyTrickle_EmitsGroupWithinMaxLatency() {
+        // Items closer to each other than the grouping timeout never let the debounce fire.
+        Observable<Long> trickle = Observable.interval(DEFAULT_GROUPING_TIMEOUT_MS / 2, TimeUnit.MILLISECONDS);
+
+        contentStoreCore.groupOperations(trickle)
+                .test()
+                .awaitDone(DEFAULT_MAX_GROUPING_LATENCY_MS + 4 * DEFAULT_GROUPING_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .assertNotComplete()
+                .assertValueCount(1);
+    }
+
+    @Test
+    public void getAllOnce_WithQuery_PassesQueryToProvider() {
+        StoreQuery<Integer> query = new StoreQuery.Builder<Integer>()
+                .selection("value > ?", "10")
+                .sortOrder("value DESC")
+                .limit(5)
+                .build();
+
+        contentStoreCore.getAllOnce(query)
+                .test()
+                .awaitDone(DEFAULT_GROUPING_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .assertValue(emptyList());
+
+        verify(contentStoreCore.getContentResolver())
+                .query(null, new String[0], "value > ?", new String[]{ "10" }, "value DESC LIMIT 5");
+    }
+
+    @Test
+    public void getAllOnce_WithLimitOnly_OrdersByRowBeforeLimit() {
+        StoreQuery<Integer> query = new StoreQuery.Builder<Integer>()
+                .limit(5)
+                .build();
+
+        contentStoreCore.getAllOnce(query)
+                .test()
+                .awaitDone(DEFAULT_GROUPING_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .assertValue(emptyList());
+
+        verify(contentStoreCore.getContentResolver())
+                .query(null, new String[0], null, null, "rowid ASC LIMIT 5");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getAllOnce_WithFilterOnly_Throws() {
+        contentStoreCore.getAllOnce(new StoreQuery.Builder<Integer>()
+                .filter(value -> value > 10)
+                .build());
+    }
+
+    @Test
+    public void put_WithGroupedPuts_ReadsCurrentItemsWithOneQuery() {
+        ContentProviderStoreCoreBase<Integer> idContentStore = new IdColumnContentStore();
+
+        idContentStore.put(mockUri("1"), 1);
+        idContentStore.put(mockUri("2"), 2);
+
+        // Content provider operations can't be built here, so only the read is verified.
+        verify(idContentStore.getContentResolver(), timeout(4 * DEFAULT_GROUPING_TIMEOUT_MS).times(1))
+                .query(any(Uri.class), any(String[].class), eq("id IN (?,?)"), any(String[].class), (String) isNull());
+    }
+
+    @Test
+    public void put_WithSameUriInGroup_ReadsCurrentItemOnce() {
+        ContentProviderStoreCoreBase<Integer> idContentStore = new IdColumnContentStore();
+        Uri uri = mockUri("1");
+
+        idContentStore.put(uri, 1);
+        idContentStore.put(uri, 2);
+
+        verify(idContentStore.getContentResolver(), after(4 * DEFAULT_GROUPING_TIMEOUT_MS).times(1))
+                .query(any(Uri.class), any(String[].class), eq("id IN (?)"), any(String[].class), (String) isNull());
+    }
+
+    @Test
+    public void put_WithSameUriInGroup_MergesItemsInOrder() {
+        SummingContentStore summingContentStore = new SummingContentStore();
+        Uri uri = mockUri("1");
+
+        summingContentStore.put(uri, 1);
+        summingContentStore.put(uri, 2);
+        summingContentStore.put(uri, 4);
+
+        verify(summingContentStore.getContentResolver(), timeout(4 * DEFAULT_GROUPING_TIMEOUT_MS).times(1))
+                .query(any(Uri.class), any(String[].class), eq("id IN (?)"), any(String[].class), (String) isNull());
+        assertEquals(Arrays.asList("1+2", "3+4"), summingContentStore.merges);
+    }
+
+    @Test
+    public void put_WithSameUriInGroup_MergesItemsIntoCurrentItemInOrder() {
+        SubtractingContentStore subtractingContentStore = new SubtractingContentStore();
+        Uri uri = mockUri("1");
+        Cursor cursor = Mockito.mock(Cursor.class);
+        when(cursor.getColumnIndex("id")).thenReturn(0);
+        when(cursor.getString(0)).thenReturn("1");
+        when(cursor.moveToNext()).thenReturn(true, false);
+        when(subtractingContentStore.getContentResolver()
+                .query(any(Uri.class), any(String[].class), eq("id IN (?)"), any(String[].class), (String) isNull()))
+                .thenReturn(cursor);
+
+        subtractingContentStore.put(uri, 1);
+        subtractingContentStore.put(uri, 2);
+
+        // Merging the puts first would give 10-(1-2) instead of (10-1)-2.
+        verify(subtractingContentStore.getContentResolver(), after(4 * DEFAULT_GROUPING_TIMEOUT_MS).times(1))
+                .query(any(Uri.class), any(String[].class), eq("id IN (?)"), any(String[].class), (String) isNull());
+        assertEquals(Arrays.asList("10-1", "9-2"), subtractingContentStore.merges);
+    }
+
+    @Test
+    public void put_WithUpsertEnabled_DoesNotReadCurrentItems() {
+        ContentProviderStoreCoreBase<Integer> upsertContentStore = new UpsertContentStore();
+
+        upsertContentStore.put(mockUri("1"), 1);
+
+        verify(upsertContentStore.getContentResolver(), after(4 * DEFAULT_GROUPING_TIMEOUT_MS).never())
+                .query(any(Uri.class), any(String[].class), anyString(), any(String[].class), anyString());
+    }
+
+    private static Uri mockUri(String id) {
+        Uri uri = Mockito.mock(Uri.class);
+        when(uri.getLastPathSegment()).thenReturn(id);
+        return uri;
+    }
+
+    private static class IdColumnContentStore extends NullContentStore {
+
+        @Override
+        protected String getIdColumn() {
+            return "id";
+        }
+    }
+
+    private static class SummingContentStore extends IdColumnContentStore {
+
+        final List<String> merges = new CopyOnWriteArrayList<>();
+
+        @NonNull
+        @Override
+        protected Integer mergeValues(@NonNull Integer oldItem, @NonNull Integer newItem) {
+            merges.add(oldItem + "+" + newItem);
+            return oldItem + newItem;
+        }
+    }
+
+    private static class SubtractingContentStore extends IdColumnContentStore {
+
+        final List<String> merges = new CopyOnWriteArrayList<>();
+
+        @NonNull
+        @Override
+        protected Integer read(@NonNull Cursor cursor) {
+            return 10;
+        }
+
+        @NonNull
+        @Override
+        protected Integer mergeValues(@NonNull Integer oldItem, @NonNull Integer newItem) {
+            merges.add(oldItem + "-" + newItem);
+            return oldItem - newItem;
+        }
+    }
+
+    private static class UpsertContentStore extends IdColumnContentStore {
+
+        @Override
+        protected boolean isUpsertEnabled() {
+            return true;
+        }
+    }
+
     @SuppressWarnings({"ReturnOfNull", "ConstantConditions", "ZeroLengthArrayAllocation"})
     private static class NullContentStore extends ContentProviderStoreCoreBase<Integer> {
 
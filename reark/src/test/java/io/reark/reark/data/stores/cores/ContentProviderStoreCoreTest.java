@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static io.reark.reark.data.stores.cores.ContentProviderStoreCoreBase.DEFAULT_GROUPING_TIMEOUT_MS;
+import static io.reark.reark.data.stores.cores.ContentProviderStoreCoreBase.DEFAULT_GROUP_MAX_SIZE;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ContentProviderStoreCoreTest {
+
+    private static final Uri CONTENT_URI = mockUri("items");
+
+    private IdContentStore contentStore;
+
+    @Before
+    public void setup() {
+        contentStore = new IdContentStore();
+    }
+
+    @Test
+    public void onChange_WithSeveralUris_ReadsChangesWithOneQuery() {
+        contentStore.onContentChange(mockUri("1"));
+        contentStore.onContentChange(mockUri("2"));
+
+        verify(contentStore.getContentResolver(), timeout(4 * DEFAULT_GROUPING_TIMEOUT_MS).times(1))
+                .query(any(Uri.class), any(String[].class), eq("id IN (?,?)"), any(String[].class), (String) isNull());
+    }
+
+    @Test
+    public void onChange_WithSameUriTwice_ReadsItOnce() {
+        Uri uri = mockUri("1");
+
+        contentStore.onContentChange(uri);
+        contentStore.onContentChange(uri);
+
+        verify(contentStore.getContentResolver(), after(4 * DEFAULT_GROUPING_TIMEOUT_MS).times(1))
+                .query(any(Uri.class), any(String[].class), eq("id IN (?)"), any(String[].class), (String) isNull());
+    }
+
+    @Test
+    public void onChange_WithContentUri_DoesNotRead() {
+        contentStore.onContentChange(CONTENT_URI);
+
+        verify(contentStore.getContentResolver(), after(4 * DEFAULT_GROUPING_TIMEOUT_MS).never())
+                .query(any(Uri.class), any(String[].class), anyString(), any(String[].class), anyString());
+    }
+
+    @Test
+    public void onChange_WithLongOperationGrouping_ReadsChangesWithoutWaitingForIt() {
+        IdContentStore slowGroupingStore = new IdContentStore(100 * DEFAULT_GROUPING_TIMEOUT_MS);
+
+        slowGroupingStore.onContentChange(mockUri("1"));
+
+        verify(slowGroupingStore.getContentResolver(), timeout(2 * DEFAULT_GROUPING_TIMEOUT_MS).times(1))
+                .query(any(Uri.class), any(String[].class), eq("id IN (?)"), any(String[].class), (String) isNull());
+    }
+
+    @Test
+    public void onChange_DuringConstruction_DoesNotThrow() {
+        // The base constructor asks for the observer before the fields of the subclass are set.
+        new IdContentStore() {
+            @NonNull
+            @Override
+            protected ContentObserver getContentObserver() {
+                onContentChange(mockUri("1"));
+                return null;
+            }
+        };
+    }
+
+    private static Uri mockUri(String id) {
+        Uri uri = Mockito.mock(Uri.class);
+        when(uri.getLastPathSegment()).thenReturn(id);
+        return uri;
+    }
+
+    @SuppressWarnings({"ReturnOfNull", "ConstantConditions", "ZeroLengthArrayAllocation"})
+    private static class IdContentStore extends ContentProviderStoreCore<String, Integer> {
+
+        IdContentStore() {
+            super(Mockito.mock(ContentResolver.class));
+        }
+
+        IdContentStore(int groupingTimeout) {
+            super(Mockito.mock(ContentResolver.class), groupingTimeout, DEFAULT_GROUP_MAX_SIZE);
+        }
+
+        @NonNull
+        @Override
+        protected String getAuthority() {
+            return null;
+        }
+
+        @NonNull
+        @Override
+        protected ContentObserver getContentObserver() {
+            return null;
+        }
+
+        @NonNull
+        @Override
+        protected Uri getContentUri() {
+            return CONTENT_URI;
+        }
+
+        @NonNull
+        @Override
+        protected String[] getProjection() {
+            return new String[0];
+        }
+
+        @Override
+        protected String getIdColumn() {
+            return "id";
+        }
+
+        @NonNull
+        @Override
+        protected Integer read(@NonNull Cursor cursor) {
+            return null;
+        }
+
+        @NonNull
+        @Override
+        protected ContentValues getContentValuesForItem(@NonNull Integer item) {
+            return null;
+        }
+
+        @NonNull
+        @Override
+        protected Uri getUriForId(@NonNull String id) {
+            return mockUri(id);
+        }
+
+        @NonNull
+        @Override
+        protected String getIdForUri(@NonNull Uri uri) {
+            return uri.getLastPathSegment();
+        }
+    }
+}
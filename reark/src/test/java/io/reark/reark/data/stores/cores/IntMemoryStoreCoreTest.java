@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Maybe;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reark.reark.data.stores.StoreQuery;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class IntMemoryStoreCoreTest {
+
+    private IntMemoryStoreCore<String> memoryStoreCore;
+
+    @Before
+    public void setup() {
+        memoryStoreCore = new IntMemoryStoreCore<>();
+    }
+
+    @Test
+    public void put_StoresValue_AndEmitsToStreams() {
+        TestObserver<String> idObserver = memoryStoreCore.getStream(100).test();
+        TestObserver<String> allObserver = memoryStoreCore.getStream().test();
+
+        memoryStoreCore.put(100, "test value 1")
+                .test()
+                .assertValue(true);
+
+        idObserver.assertValue("test value 1");
+        allObserver.assertValue("test value 1");
+        memoryStoreCore.getCached(100)
+                .test()
+                .assertValue("test value 1");
+    }
+
+    @Test
+    public void put_EmitsToStreams_WithoutHoldingLock() {
+        List<String> reads = new ArrayList<>();
+        memoryStoreCore.getStream(100)
+                // Reading from another thread would time out if the emission held the lock.
+                .subscribe(value -> reads.add(Maybe.defer(() -> memoryStoreCore.getCached(100))
+                        .subscribeOn(Schedulers.newThread())
+                        .timeout(1, TimeUnit.SECONDS)
+                        .onErrorComplete()
+                        .blockingGet("timeout")));
+
+        memoryStoreCore.put(100, "test value 1");
+
+        assertEquals(singletonList("test value 1"), reads);
+    }
+
+    @Test
+    public void put_FromObserver_EmitsValuesInPutOrder() {
+        memoryStoreCore = new IntMemoryStoreCore<>((v1, v2) -> v2, 2);
+        TestObserver<String> testObserver = memoryStoreCore.getStream(100).test();
+        memoryStoreCore.getStream(100)
+                .filter("test value 1"::equals)
+                .subscribe(value -> memoryStoreCore.put(100, "test value 2"));
+
+        memoryStoreCore.put(100, "test value 1");
+
+        testObserver.assertValues("test value 1", "test value 2");
+        assertEquals(2, memoryStoreCore.getChangesSince(0).test().values().size());
+    }
+
+    @Test
+    public void put_WithSameValue_EmitsFalse() {
+        memoryStoreCore.put(100, "test value 1");
+
+        memoryStoreCore.put(100, "test value 1")
+                .test()
+                .assertValue(false);
+    }
+
+    @Test
+    public void put_WithIdsOfEqualHashCode_KeepsBothValues() {
+        // Ids are used as such, so ids that would collide in a hash code keyed core are distinct.
+        memoryStoreCore.put(-1, "test value 1");
+        memoryStoreCore.put(Integer.MAX_VALUE, "test value 2");
+
+        memoryStoreCore.getCached(-1)
+                .test()
+                .assertValue("test value 1");
+        memoryStoreCore.getCached(Integer.MAX_VALUE)
+                .test()
+                .assertValue("test value 2");
+    }
+
+    @Test
+    public void put_WithMergeFunction_StoresMergedValue() {
+        memoryStoreCore = new IntMemoryStoreCore<>((v1, v2) -> v1 + v2);
+        memoryStoreCore.put(100, "a");
+
+        memoryStoreCore.put(100, "b")
+                .test()
+                .assertValue(true);
+        memoryStoreCore.getCached(100)
+                .test()
+                .assertValue("ab");
+    }
+
+    @Test
+    public void delete_RemovesValue_AndEmitsTrue() {
+        memoryStoreCore.put(100, "test value 1");
+
+        memoryStoreCore.delete(100)
+                .test()
+                .assertValue(true);
+        memoryStoreCore.delete(100)
+                .test()
+                .assertValue(false);
+        memoryStoreCore.getCached(100)
+                .test()
+                .assertComplete()
+                .assertNoValues();
+    }
+
+    @Test
+    public void getCached_ReturnsAllValues() {
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+
+        memoryStoreCore.getCached()
+                .test()
+                .assertValue(list -> list.containsAll(asList("test value 1", "test value 2"))
+                        && list.size() == 2);
+    }
+
+    @Test
+    public void getStream_WithId_ReleasesStream_WhenLastObserverDisposes() {
+        TestObserver<String> testObserver1 = memoryStoreCore.getStream(100).test();
+        TestObserver<String> testObserver2 = memoryStoreCore.getStream(200).test();
+        assertEquals(2, memoryStoreCore.getStreamCount());
+
+        testObserver1.dispose();
+        testObserver2.dispose();
+
+        assertEquals(0, memoryStoreCore.getStreamCount());
+    }
+
+    @Test
+    public void getCachedFlowable_EmitsAllValuesInIdOrder() {
+        memoryStoreCore.put(300, "test value 3");
+        memoryStoreCore.put(-100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+
+        memoryStoreCore.getCachedFlowable(2)
+                .test()
+                .awaitDone(1, TimeUnit.SECONDS)
+                .assertComplete()
+                .assertValues("test value 1", "test value 2", "test value 3");
+    }
+
+    @Test
+    public void getCached_WithQuery_ReturnsMatchingItemsInOrder() {
+        memoryStoreCore.put(300, "test value 3");
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "other value 2");
+
+        memoryStoreCore.getCached(new StoreQuery.Builder<String>()
+                .filter(value -> value.startsWith("test"))
+                .comparator(String::compareTo)
+                .build())
+                .test()
+                .assertValue(asList("test value 1", "test value 3"));
+    }
+}
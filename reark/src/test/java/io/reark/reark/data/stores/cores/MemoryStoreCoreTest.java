@@ -25,19 +25,47 @@
  */
 package io.reark.reark.data.stores.cores;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
-
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
+import io.reark.reark.data.stores.StoreChange;
+import io.reark.reark.data.stores.StorePage;
+import io.reark.reark.data.stores.StoreQuery;
+import io.reark.reark.data.stores.cores.codec.ValueCodec;
+import io.reark.reark.data.stores.cores.eviction.EvictionPolicy;
+import io.reark.reark.data.stores.cores.eviction.LruEvictionPolicy;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class MemoryStoreCoreTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private MemoryStoreCore<Integer, String> memoryStoreCore;
 
     @Before
@@ -269,4 +297,547 @@ public class MemoryStoreCoreTest {
                 .assertNoErrors()
                 .assertValue("test value 2");
     }
+
+    @Test
+    public void put_WithEvictionPolicy_EvictsLeastRecentlyUsedValue() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(2);
+        memoryStoreCore = new MemoryStoreCore<>((v1, v2) -> v2, policy);
+
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+        memoryStoreCore.getCached(100).test();
+        memoryStoreCore.put(300, "test value 3");
+
+        memoryStoreCore.getCached(200)
+                .test()
+                .assertComplete()
+                .assertNoValues();
+        memoryStoreCore.getCached()
+                .test()
+                .assertValue(asList("test value 1", "test value 3"));
+        assertEquals(1, policy.getEvictionCount());
+    }
+
+    @Test
+    public void put_WithItemOverMaxWeight_ReturnsFalseAndKeepsOtherValues() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(12, String::length);
+        memoryStoreCore = new MemoryStoreCore<>((v1, v2) -> v2, policy);
+        memoryStoreCore.put(100, "test value 1");
+        TestObserver<String> testObserver = memoryStoreCore.getStream().test();
+
+        memoryStoreCore.put(200, "too large test value")
+                .test()
+                .assertValue(false);
+
+        testObserver.assertNoValues();
+        memoryStoreCore.getCached()
+                .test()
+                .assertValue(singletonList("test value 1"));
+        assertEquals(0, policy.getEvictionCount());
+    }
+
+    @Test
+    public void delete_WithEvictionPolicy_ReleasesCapacity() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(2);
+        memoryStoreCore = new MemoryStoreCore<>((v1, v2) -> v2, policy);
+
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+        memoryStoreCore.delete(100).test();
+        memoryStoreCore.put(300, "test value 3");
+
+        memoryStoreCore.getCached()
+                .test()
+                .assertValue(asList("test value 2", "test value 3"));
+        assertEquals(0, policy.getEvictionCount());
+    }
+
+    @Test
+    public void put_WithEvictionPolicy_WhileEvictingSameId_KeepsNewValue() throws InterruptedException {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(1);
+        Thread racingPut = new Thread(() -> memoryStoreCore.put(100, "test value 3"));
+        memoryStoreCore = new MemoryStoreCore<>((v1, v2) -> v2, new RacingEvictionPolicy<>(policy, () -> {
+            // Put the evicted id again from another thread, after the policy chose to evict it.
+            racingPut.start();
+            try {
+                racingPut.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+        racingPut.join();
+
+        memoryStoreCore.getCached(100)
+                .test()
+                .assertValue("test value 3");
+        assertEquals(1, policy.getSize());
+    }
+
+    @Test
+    public void getStream_WithId_ReleasesStream_WhenLastObserverDisposes() {
+        TestObserver<String> testObserver1 = memoryStoreCore.getStream(100).test();
+        TestObserver<String> testObserver2 = memoryStoreCore.getStream(100).test();
+        assertEquals(1, memoryStoreCore.getStreamCount());
+
+        testObserver1.dispose();
+        memoryStoreCore.put(100, "test value 1");
+        assertEquals(1, memoryStoreCore.getStreamCount());
+
+        testObserver2.dispose();
+        assertEquals(0, memoryStoreCore.getStreamCount());
+
+        testObserver1.assertNoValues();
+        testObserver2.assertValue("test value 1");
+    }
+
+    @Test
+    public void getStream_WithId_EmitsValues_AfterResubscribing() {
+        memoryStoreCore.getStream(100).test().dispose();
+        TestObserver<String> testObserver = memoryStoreCore.getStream(100).test();
+
+        memoryStoreCore.put(100, "test value 1");
+
+        testObserver.assertValue("test value 1");
+        assertEquals(1, memoryStoreCore.getStreamCount());
+    }
+
+    @Test
+    public void putAll_StoresValues_AndEmitsResultPerId() {
+        memoryStoreCore.put(100, "test value 1");
+        TestObserver<String> testObserver = memoryStoreCore.getStream().test();
+        Map<Integer, String> values = new LinkedHashMap<>();
+        values.put(100, "test value 1");
+        values.put(200, "test value 2");
+
+        memoryStoreCore.putAll(values)
+                .test()
+                .assertValue(results -> !results.get(100) && results.get(200));
+
+        testObserver.assertValue("test value 2");
+        memoryStoreCore.getCached(200)
+                .test()
+                .assertValue("test value 2");
+    }
+
+    @Test
+    public void getCached_WithIds_ReturnsOnlyFoundValues() {
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+
+        memoryStoreCore.getCached(asList(100, 300))
+                .test()
+                .assertValue(Collections.singletonMap(100, "test value 1"));
+    }
+
+    @Test
+    public void getCachedPage_ReturnsPagesInKeyOrder() {
+        memoryStoreCore.put(300, "test value 3");
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+
+        StorePage<String> page1 = memoryStoreCore.getCachedPage(null, 2).blockingGet();
+        StorePage<String> page2 = memoryStoreCore.getCachedPage(page1, 2).blockingGet();
+
+        assertEquals(asList("test value 1", "test value 2"), page1.items());
+        assertTrue(page1.hasNext());
+        assertEquals(singletonList("test value 3"), page2.items());
+        assertFalse(page2.hasNext());
+    }
+
+    @Test
+    public void getCachedFlowable_EmitsAllValues_AndCompletes() {
+        for (int i = 0; i < 25; i++) {
+            memoryStoreCore.put(i, "test value " + i);
+        }
+
+        memoryStoreCore.getCachedFlowable(10)
+                .test()
+                .awaitDone(1, TimeUnit.SECONDS)
+                .assertComplete()
+                .assertValueCount(25);
+    }
+
+    @Test
+    public void getCachedFlowable_ReadsPagesOnRequest() {
+        for (int i = 0; i < 25; i++) {
+            memoryStoreCore.put(i, "test value " + i);
+        }
+
+        memoryStoreCore.getCachedFlowable(10)
+                .test(3)
+                .awaitDone(100, TimeUnit.MILLISECONDS)
+                .assertNotComplete()
+                .assertValues("test value 0", "test value 1", "test value 2");
+    }
+
+    @Test
+    public void put_FromConcurrentThreads_DoesNotLoseMerges() throws InterruptedException {
+        final int threadCount = 4;
+        final int putsPerThread = 500;
+        memoryStoreCore = new MemoryStoreCore<>((v1, v2) -> v1 + "," + v2);
+        TestObserver<String> testObserver = memoryStoreCore.getStream(100).test();
+
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int thread = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < putsPerThread; j++) {
+                    memoryStoreCore.put(100, thread + "-" + j);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        memoryStoreCore.getCached(100)
+                .test()
+                .assertValue(value -> value.split(",").length == threadCount * putsPerThread);
+        testObserver.assertValueCount(threadCount * putsPerThread);
+    }
+
+    @Test
+    public void put_FromConcurrentThreads_PublishesInCommitOrder() throws InterruptedException {
+        final int threadCount = 4;
+        final int putsPerThread = 500;
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .putMergeFunction((v1, v2) -> v1 + "," + v2)
+                .changeLogCapacity(threadCount * putsPerThread)
+                .build();
+        TestObserver<String> testObserver = memoryStoreCore.getStream(100).test();
+
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int thread = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < putsPerThread; j++) {
+                    memoryStoreCore.put(100, thread + "-" + j);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Each commit merges one more value, so the values must come in order of their length.
+        List<String> changes = new ArrayList<>();
+        for (StoreChange<Integer, String> change : memoryStoreCore.getChangesSince(0).test().values()) {
+            changes.add(change.item());
+        }
+        assertIncreasingLength(testObserver.values());
+        assertIncreasingLength(changes);
+        assertEquals(threadCount * putsPerThread, changes.size());
+    }
+
+    @Test
+    public void put_WithValueCodec_StoresAndMergesValues() {
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .putMergeFunction((v1, v2) -> v1 + "," + v2)
+                .valueCodec(new CountingCodec())
+                .build();
+        TestObserver<String> getObserver = memoryStoreCore.getStream(100).test();
+
+        memoryStoreCore.put(100, "test value 1").test().assertValue(true);
+        memoryStoreCore.put(100, "test value 2").test().assertValue(true);
+
+        getObserver.assertValues("test value 1", "test value 1,test value 2");
+        memoryStoreCore.getCached(100).test().assertValue("test value 1,test value 2");
+        memoryStoreCore.getCached().test().assertValue(singletonList("test value 1,test value 2"));
+    }
+
+    @Test
+    public void getCached_WithValueCodec_DecodesOnEveryRead() {
+        CountingCodec codec = new CountingCodec();
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .valueCodec(codec)
+                .build();
+        memoryStoreCore.put(100, "test value 1");
+
+        memoryStoreCore.getCached(100).test().assertValue("test value 1");
+        memoryStoreCore.getCached(100).test().assertValue("test value 1");
+
+        assertEquals(2, codec.decodeCount);
+    }
+
+    @Test
+    public void getCached_WithHotCache_DoesNotDecodeRecentValues() {
+        CountingCodec codec = new CountingCodec();
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .valueCodec(codec)
+                .hotCacheSize(1)
+                .build();
+        memoryStoreCore.put(100, "test value 1");
+
+        memoryStoreCore.getCached(100).test().assertValue("test value 1");
+        memoryStoreCore.getCached(100).test().assertValue("test value 1");
+
+        assertEquals(0, codec.decodeCount);
+    }
+
+    @Test
+    public void getCached_WithHotCache_ReturnsUpdatedValue() {
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .valueCodec(new CountingCodec())
+                .hotCacheSize(1)
+                .build();
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+        memoryStoreCore.put(100, "test value 3");
+
+        memoryStoreCore.getCached(100).test().assertValue("test value 3");
+        memoryStoreCore.getCached(200).test().assertValue("test value 2");
+        memoryStoreCore.delete(100).test().assertValue(true);
+        memoryStoreCore.getCached(100).test().assertNoValues();
+    }
+
+    @Test
+    public void put_WithValueCodec_FromConcurrentThreads_DoesNotLoseMerges() throws InterruptedException {
+        final int threadCount = 4;
+        final int putsPerThread = 200;
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .putMergeFunction((v1, v2) -> v1 + "," + v2)
+                .valueCodec(new CountingCodec())
+                .hotCacheSize(10)
+                .build();
+
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int thread = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < putsPerThread; j++) {
+                    memoryStoreCore.put(100, thread + "-" + j);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        memoryStoreCore.getCached(100)
+                .test()
+                .assertValue(value -> value.split(",").length == threadCount * putsPerThread);
+    }
+
+    @Test
+    public void writeSnapshot_RestoresValuesInNewCore() throws IOException {
+        File file = temporaryFolder.newFile();
+        memoryStoreCore = createSnapshotCore(file);
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+
+        memoryStoreCore.writeSnapshot().test().awaitDone(1, TimeUnit.SECONDS).assertComplete();
+
+        MemoryStoreCore<Integer, String> restoredCore = createSnapshotCore(file);
+        restoredCore.getCached(100).test().awaitDone(1, TimeUnit.SECONDS).assertValue("test value 1");
+        restoredCore.getCached(200).test().awaitDone(1, TimeUnit.SECONDS).assertValue("test value 2");
+    }
+
+    @Test
+    public void getCached_DuringRestore_WaitsForRestoreAndEarlierWrites() throws IOException {
+        File file = temporaryFolder.newFile();
+        memoryStoreCore = createSnapshotCore(file);
+        memoryStoreCore.put(100, "test value 1");
+        memoryStoreCore.put(200, "test value 2");
+        memoryStoreCore.writeSnapshot().test().awaitDone(1, TimeUnit.SECONDS).assertComplete();
+        BlockingCodec codec = new BlockingCodec();
+
+        // A bounded core decodes the items while restoring, which blocks until released.
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .valueCodec(codec)
+                .evictionPolicy(new LruEvictionPolicy<>(10))
+                .snapshotFile(file)
+                .build();
+        TestObserver<Boolean> putObserver = memoryStoreCore.put(100, "test value 3").test();
+        TestObserver<String> getObserver = memoryStoreCore.getCached(100).test();
+        putObserver.assertNotTerminated();
+        getObserver.assertNotTerminated();
+        codec.release.countDown();
+
+        putObserver.awaitDone(1, TimeUnit.SECONDS).assertValue(true);
+        getObserver.awaitDone(1, TimeUnit.SECONDS).assertValue("test value 3");
+        memoryStoreCore.getCached(200).test().awaitDone(1, TimeUnit.SECONDS).assertValue("test value 2");
+    }
+
+    @Test
+    public void put_WithSnapshotFile_WritesSnapshotInBackground() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "snapshot");
+        memoryStoreCore = createSnapshotCore(file);
+
+        memoryStoreCore.put(100, "test value 1");
+
+        for (int i = 0; i < 50 && !file.exists(); i++) {
+            Thread.sleep(100);
+        }
+        createSnapshotCore(file).getCached(100).test().awaitDone(1, TimeUnit.SECONDS).assertValue("test value 1");
+    }
+
+    @Test
+    public void getCached_WithCorruptedSnapshot_ReturnsEmpty() throws IOException {
+        File file = temporaryFolder.newFile();
+        FileOutputStream output = new FileOutputStream(file);
+        output.write(new byte[]{ 1, 2, 3 });
+        output.close();
+
+        memoryStoreCore = createSnapshotCore(file);
+
+        memoryStoreCore.getCached(100).test().awaitDone(1, TimeUnit.SECONDS).assertNoValues().assertComplete();
+        memoryStoreCore.put(100, "test value 1").test().awaitDone(1, TimeUnit.SECONDS).assertValue(true);
+    }
+
+    @Test
+    public void getCached_WithQuery_ReturnsMatchingItemsInOrder() {
+        memoryStoreCore.put(1, "b");
+        memoryStoreCore.put(2, "aa");
+        memoryStoreCore.put(3, "c");
+        memoryStoreCore.put(4, "dd");
+
+        memoryStoreCore.getCached(new StoreQuery.Builder<String>()
+                .filter(value -> value.length() == 1)
+                .comparator(String::compareTo)
+                .build())
+                .test()
+                .assertValue(asList("b", "c"));
+    }
+
+    @Test
+    public void getCached_WithQuery_WithComparatorAndLimit_ReturnsFirstItems() {
+        for (int i = 0; i < 20; i++) {
+            memoryStoreCore.put(i, "test value " + (char) ('a' + (i * 7) % 20));
+        }
+
+        memoryStoreCore.getCached(new StoreQuery.Builder<String>()
+                .comparator(String::compareTo)
+                .limit(3)
+                .build())
+                .test()
+                .assertValue(asList("test value a", "test value b", "test value c"));
+    }
+
+    @Test
+    public void getCached_WithQuery_WithLimit_ReturnsLimitItems() {
+        for (int i = 0; i < 20; i++) {
+            memoryStoreCore.put(i, "test value " + i);
+        }
+
+        memoryStoreCore.getCached(new StoreQuery.Builder<String>()
+                .limit(5)
+                .build())
+                .test()
+                .assertValue(items -> items.size() == 5);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getCached_WithQuery_WithSelectionOnly_Throws() {
+        memoryStoreCore.getCached(new StoreQuery.Builder<String>()
+                .selection("value = ?", "a")
+                .build())
+                .blockingGet();
+    }
+
+    @NonNull
+    private static MemoryStoreCore<Integer, String> createSnapshotCore(@NonNull final File file) {
+        return new MemoryStoreCore.Builder<Integer, String>()
+                .valueCodec(new CountingCodec())
+                .snapshotFile(file)
+                .build();
+    }
+
+    private static void assertIncreasingLength(@NonNull final List<String> values) {
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue("Value " + i + " published out of order",
+                    values.get(i).length() > values.get(i - 1).length());
+        }
+    }
+
+    private static class BlockingCodec extends CountingCodec {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @NonNull
+        @Override
+        public String decode(@NonNull final byte[] bytes) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return super.decode(bytes);
+        }
+    }
+
+    private static class CountingCodec implements ValueCodec<String> {
+        volatile int decodeCount;
+
+        @NonNull
+        @Override
+        public byte[] encode(@NonNull final String item) {
+            return item.getBytes(Charset.forName("UTF-8"));
+        }
+
+        @NonNull
+        @Override
+        public String decode(@NonNull final byte[] bytes) {
+            decodeCount++;
+            return new String(bytes, Charset.forName("UTF-8"));
+        }
+    }
+
+    // Runs the action once after choosing the first evicted items, before the core removes them.
+    private static class RacingEvictionPolicy<U> implements EvictionPolicy<U> {
+
+        @NonNull
+        private final EvictionPolicy<U> policy;
+
+        @Nullable
+        private Runnable onEviction;
+
+        RacingEvictionPolicy(@NonNull EvictionPolicy<U> policy, @NonNull Runnable onEviction) {
+            this.policy = policy;
+            this.onEviction = onEviction;
+        }
+
+        @Override
+        public boolean canHold(@NonNull U item) {
+            return policy.canHold(item);
+        }
+
+        @NonNull
+        @Override
+        public List<Integer> onWrite(int key, @NonNull U item) {
+            List<Integer> evicted = policy.onWrite(key, item);
+            Runnable action = onEviction;
+            if (!evicted.isEmpty() && action != null) {
+                onEviction = null;
+                action.run();
+            }
+            return evicted;
+        }
+
+        @Override
+        public void onAccess(int key) {
+            policy.onAccess(key);
+        }
+
+        @Override
+        public void onRemove(int key) {
+            policy.onRemove(key);
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return policy.getEvictionCount();
+        }
+    }
 }
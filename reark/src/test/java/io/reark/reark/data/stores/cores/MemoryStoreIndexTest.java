@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.reactivex.observers.TestObserver;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+public class MemoryStoreIndexTest {
+
+    private MemoryStoreIndex<String, String> ownerIndex;
+
+    private MemoryStoreIndex<Integer, String> starIndex;
+
+    private MemoryStoreCore<Integer, String> memoryStoreCore;
+
+    @Before
+    public void setup() {
+        ownerIndex = new MemoryStoreIndex<>(MemoryStoreIndexTest::getOwner);
+        starIndex = new MemoryStoreIndex<>(MemoryStoreIndexTest::getStars);
+        memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .indexes(asList(ownerIndex, starIndex))
+                .build();
+    }
+
+    @Test
+    public void getCached_WithKey_ReturnsItemsWithKey() {
+        memoryStoreCore.put(1, "alice:10");
+        memoryStoreCore.put(2, "bob:20");
+        memoryStoreCore.put(3, "alice:30");
+
+        memoryStoreCore.getCached(ownerIndex, "alice")
+                .test()
+                .assertValue(items -> items.containsAll(asList("alice:10", "alice:30")) && items.size() == 2);
+    }
+
+    @Test
+    public void getCached_WithUnknownKey_ReturnsEmpty() {
+        memoryStoreCore.put(1, "alice:10");
+
+        memoryStoreCore.getCached(ownerIndex, "bob").test().assertValue(emptyList());
+    }
+
+    @Test
+    public void getCachedRange_ReturnsItemsInKeyOrder() {
+        memoryStoreCore.put(1, "alice:30");
+        memoryStoreCore.put(2, "bob:10");
+        memoryStoreCore.put(3, "carol:20");
+        memoryStoreCore.put(4, "dave:40");
+
+        memoryStoreCore.getCachedRange(starIndex, 10, 30)
+                .test()
+                .assertValue(asList("bob:10", "carol:20", "alice:30"));
+    }
+
+    @Test
+    public void put_WithChangedKey_MovesItemInIndex() {
+        memoryStoreCore.put(1, "alice:10");
+
+        memoryStoreCore.put(1, "bob:10");
+
+        memoryStoreCore.getCached(ownerIndex, "alice").test().assertValue(emptyList());
+        memoryStoreCore.getCached(ownerIndex, "bob").test().assertValue(asList("bob:10"));
+        memoryStoreCore.getCached(starIndex, 10).test().assertValue(asList("bob:10"));
+    }
+
+    @Test
+    public void delete_RemovesItemFromIndex() {
+        memoryStoreCore.put(1, "alice:10");
+
+        memoryStoreCore.delete(1).test();
+
+        memoryStoreCore.getCached(ownerIndex, "alice").test().assertValue(emptyList());
+    }
+
+    @Test
+    public void put_WithoutKey_DoesNotIndexItem() {
+        memoryStoreCore.put(1, "alice");
+
+        memoryStoreCore.getCachedRange(starIndex, Integer.MIN_VALUE, Integer.MAX_VALUE)
+                .test()
+                .assertValue(emptyList());
+    }
+
+    @Test
+    public void getStream_EmitsOnlyItemsWithKey() {
+        TestObserver<String> testObserver = memoryStoreCore.getStream(ownerIndex, "alice").test();
+
+        memoryStoreCore.put(1, "alice:10");
+        memoryStoreCore.put(2, "bob:20");
+        memoryStoreCore.put(1, "alice:15");
+
+        testObserver.assertValues("alice:10", "alice:15");
+    }
+
+    @Test
+    public void getStreamRange_EmitsOnlyItemsInRange() {
+        TestObserver<String> testObserver = memoryStoreCore.getStreamRange(starIndex, 10, 20).test();
+
+        memoryStoreCore.put(1, "alice:10");
+        memoryStoreCore.put(2, "bob:30");
+        memoryStoreCore.put(3, "carol:20");
+
+        testObserver.assertValues("alice:10", "carol:20");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getCached_WithIndexOfOtherCore_Throws() {
+        memoryStoreCore.getCached(new MemoryStoreIndex<String, String>(MemoryStoreIndexTest::getOwner), "alice");
+    }
+
+    @NonNull
+    private static String getOwner(@NonNull final String item) {
+        return item.split(":")[0];
+    }
+
+    private static Integer getStars(@NonNull final String item) {
+        final String[] parts = item.split(":");
+
+        return parts.length > 1 ? Integer.valueOf(parts[1]) : null;
+    }
+}
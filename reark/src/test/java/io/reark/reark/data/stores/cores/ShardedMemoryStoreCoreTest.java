@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.observers.TestObserver;
+import io.reark.reark.data.stores.StoreQuery;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class ShardedMemoryStoreCoreTest {
+
+    private static final int SHARD_COUNT = 4;
+
+    private ShardedMemoryStoreCore<Integer, String> shardedStoreCore;
+
+    @Before
+    public void setup() {
+        shardedStoreCore = new ShardedMemoryStoreCore<>(SHARD_COUNT);
+    }
+
+    @Test
+    public void put_StoresValue() {
+        shardedStoreCore.put(100, "test value 1")
+                .test()
+                .awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(true);
+
+        shardedStoreCore.getCached(100).test().assertValue("test value 1");
+    }
+
+    @Test
+    public void put_WithoutSubscribing_AppliesWritesInOrder() {
+        shardedStoreCore = new ShardedMemoryStoreCore<>(SHARD_COUNT, (v1, v2) -> v1 + "," + v2);
+
+        shardedStoreCore.put(100, "test value 1");
+        shardedStoreCore.put(100, "test value 2").blockingGet();
+
+        shardedStoreCore.getCached(100).test().assertValue("test value 1,test value 2");
+    }
+
+    @Test
+    public void put_WithFailingShardWrite_EmitsError() {
+        shardedStoreCore = new ShardedMemoryStoreCore<>(SHARD_COUNT, (v1, v2) -> {
+            throw new IllegalStateException("test error");
+        });
+        shardedStoreCore.put(100, "test value 1").blockingGet();
+
+        shardedStoreCore.put(100, "test value 2")
+                .test()
+                .awaitDone(1, TimeUnit.SECONDS)
+                .assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void put_AfterShutdown_EmitsError() {
+        shardedStoreCore.put(100, "test value 1").blockingGet();
+        shardedStoreCore.shutdown();
+
+        shardedStoreCore.put(200, "test value 2")
+                .test()
+                .awaitDone(1, TimeUnit.SECONDS)
+                .assertError(IllegalStateException.class);
+        shardedStoreCore.getCached(100).test().assertValue("test value 1");
+    }
+
+    @Test
+    public void putAll_ReturnsResultsInOrderOfItems() {
+        Map<Integer, String> items = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            items.put(i, "test value " + i);
+        }
+        shardedStoreCore.put(5, "test value 5").blockingGet();
+
+        Map<Integer, Boolean> results = shardedStoreCore.putAll(items).blockingGet();
+
+        assertEquals(new ArrayList<>(items.keySet()), new ArrayList<>(results.keySet()));
+        assertEquals(false, results.get(5));
+        assertEquals(true, results.get(6));
+    }
+
+    @Test
+    public void delete_AfterPut_RemovesValue() {
+        shardedStoreCore.put(100, "test value 1");
+
+        shardedStoreCore.delete(100)
+                .test()
+                .awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(true);
+
+        shardedStoreCore.getCached(100).test().assertNoValues();
+    }
+
+    @Test
+    public void getStream_EmitsWritesOfIdInOrder() {
+        TestObserver<String> testObserver = shardedStoreCore.getStream(100).test();
+
+        for (int i = 0; i < 100; i++) {
+            shardedStoreCore.put(100, "test value " + i);
+        }
+
+        testObserver.awaitCount(100);
+        for (int i = 0; i < 100; i++) {
+            testObserver.assertValueAt(i, "test value " + i);
+        }
+    }
+
+    @Test
+    public void getStream_EmitsWritesOfAllShards() {
+        TestObserver<String> testObserver = shardedStoreCore.getStream().test();
+
+        for (int i = 0; i < 20; i++) {
+            shardedStoreCore.put(i, "test value " + i);
+        }
+
+        testObserver.awaitCount(20).assertValueCount(20);
+    }
+
+    @Test
+    public void put_FromConcurrentThreads_KeepsLastWriteOfEachId() throws InterruptedException {
+        final int threadCount = 4;
+        final int putsPerThread = 1000;
+
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int thread = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < putsPerThread; j++) {
+                    shardedStoreCore.put(thread, thread + "-" + j);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            shardedStoreCore.put(i, i + "-" + (putsPerThread - 1)).blockingGet();
+            shardedStoreCore.getCached(i).test().assertValue(i + "-" + (putsPerThread - 1));
+        }
+    }
+
+    @Test
+    public void getCachedFlowable_EmitsValuesOfAllShards() {
+        for (int i = 0; i < 25; i++) {
+            shardedStoreCore.put(i, "test value " + i).blockingGet();
+        }
+
+        List<String> values = shardedStoreCore.getCachedFlowable(3)
+                .toList()
+                .blockingGet();
+
+        assertEquals(25, values.size());
+        assertEquals(25, new HashSet<>(values).size());
+    }
+
+    @Test
+    public void getCached_WithQuery_OrdersAndLimitsOverShards() {
+        for (int i = 0; i < 20; i++) {
+            shardedStoreCore.put(i, "test value " + (char) ('a' + i)).blockingGet();
+        }
+
+        shardedStoreCore.getCached(new StoreQuery.Builder<String>()
+                .comparator(String::compareTo)
+                .limit(3)
+                .build())
+                .test()
+                .awaitDone(1, TimeUnit.SECONDS)
+                .assertValue(asList("test value a", "test value b", "test value c"));
+    }
+}
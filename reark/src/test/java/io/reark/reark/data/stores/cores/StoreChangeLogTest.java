@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reark.reark.data.stores.StoreChange;
+import io.reark.reark.data.stores.StoreChange.Type;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class StoreChangeLogTest {
+
+    private StoreChangeLog<Integer, String> changeLog;
+
+    @Before
+    public void setup() {
+        // Without an epoch the sequence numbers are the plain change numbers.
+        changeLog = new StoreChangeLog<>(3, 0);
+    }
+
+    @Test
+    public void append_StampsIncreasingSequenceNumbers() {
+        changeLog.append(1, "a");
+        changeLog.append(2, "b");
+        changeLog.append(1, null);
+
+        assertEquals(3, changeLog.getLastSequence());
+    }
+
+    @Test
+    public void getChangesSince_ReplaysMissedChanges() {
+        changeLog.append(1, "a");
+        changeLog.append(2, "b");
+        changeLog.append(1, null);
+
+        TestObserver<StoreChange<Integer, String>> observer =
+                changeLog.getChangesSince(1, () -> Single.just(singletonList("unused"))).test();
+
+        observer.assertValueCount(2);
+        assertChange(observer.values().get(0), Type.PUT, 2, 2, "b");
+        assertChange(observer.values().get(1), Type.DELETE, 3, 1, null);
+        observer.assertNotComplete();
+    }
+
+    @Test
+    public void getChangesSince_WithLatestSequence_EmitsOnlyFutureChanges() {
+        changeLog.append(1, "a");
+
+        TestObserver<StoreChange<Integer, String>> observer =
+                changeLog.getChangesSince(1, () -> Single.just(singletonList("unused"))).test();
+        changeLog.append(2, "b");
+
+        observer.assertValueCount(1);
+        assertChange(observer.values().get(0), Type.PUT, 2, 2, "b");
+    }
+
+    @Test
+    public void getChangesSince_WithTruncatedLog_EmitsSnapshot() {
+        changeLog.append(1, "a");
+        changeLog.append(2, "b");
+        changeLog.append(3, "c");
+        changeLog.append(4, "d");
+        changeLog.append(5, "e");
+
+        TestObserver<StoreChange<Integer, String>> observer =
+                changeLog.getChangesSince(1, () -> Single.just(asList("a", "b"))).test();
+        changeLog.append(6, "f");
+
+        observer.assertValueCount(2);
+        StoreChange<Integer, String> snapshot = observer.values().get(0);
+        assertEquals(Type.SNAPSHOT, snapshot.type());
+        assertEquals(5, snapshot.sequence());
+        assertEquals(asList("a", "b"), snapshot.items());
+        assertChange(observer.values().get(1), Type.PUT, 6, 6, "f");
+    }
+
+    @Test
+    public void getChangesSince_WithSequenceAheadOfLog_EmitsSnapshot() {
+        changeLog.append(1, "a");
+
+        TestObserver<StoreChange<Integer, String>> observer =
+                changeLog.getChangesSince(10, () -> Single.just(singletonList("a"))).test();
+
+        observer.assertValueCount(1);
+        assertEquals(Type.SNAPSHOT, observer.values().get(0).type());
+    }
+
+    @Test
+    public void getChangesSince_WithSequenceOfSameEpoch_ReplaysMissedChanges() {
+        changeLog = new StoreChangeLog<>(3, 5);
+        changeLog.append(1, "a");
+        long sequence = changeLog.getLastSequence();
+        changeLog.append(2, "b");
+
+        TestObserver<StoreChange<Integer, String>> observer =
+                changeLog.getChangesSince(sequence, () -> Single.just(singletonList("unused"))).test();
+
+        observer.assertValueCount(1);
+        assertChange(observer.values().get(0), Type.PUT, 2, 2, "b");
+    }
+
+    @Test
+    public void getChangesSince_WithSequenceOfAnotherEpoch_EmitsSnapshot() {
+        StoreChangeLog<Integer, String> earlierLog = new StoreChangeLog<>(3, 1);
+        earlierLog.append(1, "a");
+        earlierLog.append(2, "b");
+        changeLog = new StoreChangeLog<>(3, 2);
+        changeLog.append(1, "c");
+        changeLog.append(2, "d");
+        changeLog.append(3, "e");
+
+        // The earlier log stopped at the second change, so the third one would otherwise be replayed.
+        TestObserver<StoreChange<Integer, String>> observer =
+                changeLog.getChangesSince(earlierLog.getLastSequence(), () -> Single.just(asList("c", "d", "e"))).test();
+
+        observer.assertValueCount(1);
+        assertEquals(Type.SNAPSHOT, observer.values().get(0).type());
+        assertEquals(asList("c", "d", "e"), observer.values().get(0).items());
+    }
+
+    @Test
+    public void getChangesSince_WithZeroCapacity_EmitsSnapshotAndFutureChanges() {
+        changeLog = new StoreChangeLog<>(0, 0);
+        changeLog.append(1, "a");
+        changeLog.append(2, "b");
+
+        TestObserver<StoreChange<Integer, String>> observer =
+                changeLog.getChangesSince(1, () -> Single.just(asList("a", "b"))).test();
+        changeLog.append(3, "c");
+
+        observer.assertValueCount(2);
+        assertEquals(Type.SNAPSHOT, observer.values().get(0).type());
+        assertEquals(2, observer.values().get(0).sequence());
+        assertChange(observer.values().get(1), Type.PUT, 3, 3, "c");
+    }
+
+    @Test
+    public void getChangesSince_WithMemoryStoreCore_RecordsPutsAndDeletes() {
+        MemoryStoreCore<Integer, String> memoryStoreCore = new MemoryStoreCore.Builder<Integer, String>()
+                .changeLogCapacity(3)
+                .build();
+        memoryStoreCore.put(1, "a");
+        memoryStoreCore.put(1, "a");
+        memoryStoreCore.put(2, "b");
+        memoryStoreCore.delete(1).test();
+
+        TestObserver<StoreChange<Integer, String>> observer = memoryStoreCore.getChangesSince(0).test();
+
+        observer.assertValueCount(3);
+        assertChange(observer.values().get(0), Type.PUT, 1, 1, "a");
+        assertChange(observer.values().get(1), Type.PUT, 2, 2, "b");
+        assertChange(observer.values().get(2), Type.DELETE, 3, 1, null);
+    }
+
+    private static void assertChange(StoreChange<Integer, String> change,
+                                     Type type, long sequence, int id, String item) {
+        assertEquals(type, change.type());
+        assertEquals(sequence, StoreChangeLog.sequenceOf(change.sequence()));
+        assertEquals(Integer.valueOf(id), change.id());
+        assertEquals(item, change.item());
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.functions.BiFunction;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class TieredStoreCoreTest {
+
+    private CountingStoreCore persistentCore;
+
+    private TieredStoreCore<Integer, String> tieredStoreCore;
+
+    @Before
+    public void setup() {
+        persistentCore = new CountingStoreCore((v1, v2) -> v2);
+        tieredStoreCore = new TieredStoreCore.Builder<Integer, String>()
+                .persistentCore(persistentCore)
+                .idForItem(TieredStoreCoreTest::getId)
+                .maxSize(2)
+                .build();
+    }
+
+    @Test
+    public void getCached_WithStoredValue_ReadsPersistentCoreOnce() {
+        persistentCore.put(1, "1:a").test();
+
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+
+        assertEquals(0, persistentCore.readCount.get());
+        assertEquals(2, tieredStoreCore.getHitCount());
+    }
+
+    @Test
+    public void getCached_WithValueNotInMemory_ReadsThrough() {
+        persistentCore.put(1, "1:a").test();
+        persistentCore.put(2, "2:a").test();
+        persistentCore.put(3, "3:a").test();
+
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+
+        assertEquals(1, persistentCore.readCount.get());
+        assertEquals(1, tieredStoreCore.getMissCount());
+        assertEquals(1, tieredStoreCore.getHitCount());
+    }
+
+    @Test
+    public void getCached_WithMissingValue_RemembersMissingId() {
+        tieredStoreCore.getCached(1).test().assertNoValues().assertComplete();
+        tieredStoreCore.getCached(1).test().assertNoValues().assertComplete();
+
+        assertEquals(1, persistentCore.readCount.get());
+        assertEquals(0.5, tieredStoreCore.getHitRate(), 0);
+    }
+
+    @Test
+    public void put_AfterMissingValue_ReturnsNewValue() {
+        tieredStoreCore.getCached(1).test().assertNoValues();
+
+        tieredStoreCore.put(1, "1:a").test().assertValue(true);
+
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+    }
+
+    @Test
+    public void put_WritesThroughToPersistentCore() {
+        tieredStoreCore.put(1, "1:a").test().assertValue(true);
+
+        persistentCore.getCached(1).test().assertValue("1:a");
+    }
+
+    @Test
+    public void put_KeepsRefreshedValueInMemory() {
+        tieredStoreCore.put(1, "1:a").test().assertValue(true);
+
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+
+        assertEquals(0, persistentCore.readCount.get());
+    }
+
+    @Test
+    public void put_WithoutPersistentStream_ReturnsNewValue() {
+        persistentCore = new CountingStoreCore((v1, v2) -> v2, false);
+        tieredStoreCore = new TieredStoreCore.Builder<Integer, String>()
+                .persistentCore(persistentCore)
+                .idForItem(TieredStoreCoreTest::getId)
+                .build();
+        tieredStoreCore.getCached(1).test().assertNoValues();
+        tieredStoreCore.put(2, "2:a").test();
+        tieredStoreCore.getCached(2).test().assertValue("2:a");
+
+        tieredStoreCore.put(1, "1:a").test().assertValue(true);
+        tieredStoreCore.put(2, "2:b").test().assertValue(true);
+
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+        tieredStoreCore.getCached(2).test().assertValue("2:b");
+    }
+
+    @Test
+    public void putAll_WithoutPersistentStream_ReturnsNewValues() {
+        persistentCore = new CountingStoreCore((v1, v2) -> v2, false);
+        tieredStoreCore = new TieredStoreCore.Builder<Integer, String>()
+                .persistentCore(persistentCore)
+                .idForItem(TieredStoreCoreTest::getId)
+                .build();
+        tieredStoreCore.getCached(1).test().assertNoValues();
+        Map<Integer, String> items = new LinkedHashMap<>();
+        items.put(1, "1:a");
+
+        tieredStoreCore.putAll(items).test();
+
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+    }
+
+    @Test
+    public void put_WithWriteBehind_MergesToMemoryAndPersistentCore() {
+        BiFunction<String, String, String> merge = (v1, v2) -> v1 + v2.substring(2);
+        tieredStoreCore = new TieredStoreCore.Builder<Integer, String>()
+                .persistentCore(persistentCore)
+                .idForItem(TieredStoreCoreTest::getId)
+                .writeBehind(merge)
+                .build();
+
+        tieredStoreCore.put(1, "1:a").test().assertValue(true);
+        tieredStoreCore.put(1, "1:b").test().assertValue(true);
+
+        tieredStoreCore.getCached(1).test().assertValue("1:ab");
+        persistentCore.getCached(1).test().assertValue("1:ab");
+    }
+
+    @Test
+    public void put_WithWriteBehind_MergesWithPersistedValueNotInMemory() {
+        persistentCore = new CountingStoreCore((v1, v2) -> v2, false);
+        persistentCore.put(1, "1:a").test();
+        tieredStoreCore = new TieredStoreCore.Builder<Integer, String>()
+                .persistentCore(persistentCore)
+                .idForItem(TieredStoreCoreTest::getId)
+                .writeBehind((v1, v2) -> v1 + v2.substring(2))
+                .build();
+
+        tieredStoreCore.put(1, "1:b").test().assertValue(true);
+
+        tieredStoreCore.getCached(1).test().assertValue("1:ab");
+        persistentCore.getCached(1).test().assertValue("1:ab");
+    }
+
+    @Test
+    public void putAll_WithWriteBehind_ReadsPersistedValuesOnce() {
+        persistentCore = new CountingStoreCore((v1, v2) -> v2, false);
+        persistentCore.put(1, "1:a").test();
+        persistentCore.put(2, "2:a").test();
+        tieredStoreCore = new TieredStoreCore.Builder<Integer, String>()
+                .persistentCore(persistentCore)
+                .idForItem(TieredStoreCoreTest::getId)
+                .writeBehind((v1, v2) -> v1 + v2.substring(2))
+                .build();
+        Map<Integer, String> items = new LinkedHashMap<>();
+        items.put(1, "1:b");
+        items.put(2, "2:b");
+
+        tieredStoreCore.putAll(items).test().assertValue(result -> result.get(1) && result.get(2));
+
+        persistentCore.getCached(1).test().assertValue("1:ab");
+        persistentCore.getCached(2).test().assertValue("2:ab");
+        assertEquals(1, persistentCore.multiReadCount.get());
+    }
+
+    @Test
+    public void dispose_StopsFollowingPersistentCore() {
+        persistentCore.put(1, "1:a").test();
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+
+        tieredStoreCore.dispose();
+        persistentCore.put(1, "1:b").test();
+
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+    }
+
+    @Test
+    public void delete_RemovesValueFromBothTiers() {
+        tieredStoreCore.put(1, "1:a").test();
+        tieredStoreCore.getCached(1).test().assertValue("1:a");
+
+        tieredStoreCore.delete(1).test().assertValue(true);
+
+        tieredStoreCore.getCached(1).test().assertNoValues().assertComplete();
+        persistentCore.getCached(1).test().assertNoValues();
+    }
+
+    @Test
+    public void getCached_WithIds_ReadsOnlyMissingIdsThrough() {
+        persistentCore.put(1, "1:a").test();
+        persistentCore.put(2, "2:a").test();
+        persistentCore.put(3, "3:a").test();
+
+        Map<Integer, String> items = tieredStoreCore.getCached(asList(2, 3, 4)).blockingGet();
+
+        assertEquals(2, items.size());
+        assertEquals("2:a", items.get(2));
+        assertEquals("3:a", items.get(3));
+        assertEquals(1, persistentCore.multiReadCount.get());
+        assertEquals(1, tieredStoreCore.getMissCount());
+    }
+
+    @NonNull
+    private static Integer getId(@NonNull final String item) {
+        return Integer.valueOf(item.substring(0, item.indexOf(':')));
+    }
+
+    private static class CountingStoreCore extends MemoryStoreCore<Integer, String> {
+        final AtomicInteger readCount = new AtomicInteger();
+        final AtomicInteger multiReadCount = new AtomicInteger();
+
+        // Without a stream the changes are not reported, as with a content provider that does not
+        // notify its observers.
+        private final boolean hasStream;
+
+        CountingStoreCore(@NonNull final BiFunction<String, String, String> putMergeFunction) {
+            this(putMergeFunction, true);
+        }
+
+        CountingStoreCore(@NonNull final BiFunction<String, String, String> putMergeFunction, boolean hasStream) {
+            super(putMergeFunction);
+
+            this.hasStream = hasStream;
+        }
+
+        @NonNull
+        @Override
+        public Observable<String> getStream() {
+            return hasStream ? super.getStream() : Observable.never();
+        }
+
+        @NonNull
+        @Override
+        public Maybe<String> getCached(@NonNull final Integer id) {
+            return Maybe.defer(() -> {
+                readCount.incrementAndGet();
+                return super.getCached(id);
+            });
+        }
+
+        @NonNull
+        @Override
+        public Single<Map<Integer, String>> getCached(@NonNull final Collection<Integer> ids) {
+            multiReadCount.incrementAndGet();
+            return super.getCached(ids);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.data.stores.cores.eviction;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LruEvictionPolicyTest {
+
+    @Test
+    public void onWrite_WithinMaxSize_EvictsNothing() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(2);
+
+        assertEquals(emptyList(), policy.onWrite(1, "a"));
+        assertEquals(emptyList(), policy.onWrite(2, "b"));
+        assertEquals(0, policy.getEvictionCount());
+    }
+
+    @Test
+    public void onWrite_OverMaxSize_EvictsLeastRecentlyWritten() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(2);
+        policy.onWrite(1, "a");
+        policy.onWrite(2, "b");
+
+        assertEquals(asList(1), policy.onWrite(3, "c"));
+        assertEquals(1, policy.getEvictionCount());
+        assertEquals(2, policy.getSize());
+    }
+
+    @Test
+    public void onWrite_WithSameKey_DoesNotEvict() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(2);
+        policy.onWrite(1, "a");
+        policy.onWrite(2, "b");
+
+        assertEquals(emptyList(), policy.onWrite(2, "c"));
+        assertEquals(0, policy.getEvictionCount());
+    }
+
+    @Test
+    public void onAccess_MakesKeyMostRecentlyUsed() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(2);
+        policy.onWrite(1, "a");
+        policy.onWrite(2, "b");
+
+        policy.onAccess(1);
+
+        assertEquals(asList(2), policy.onWrite(3, "c"));
+    }
+
+    @Test
+    public void onRemove_ReleasesWeight() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(2);
+        policy.onWrite(1, "a");
+        policy.onWrite(2, "b");
+
+        policy.onRemove(1);
+
+        assertEquals(emptyList(), policy.onWrite(3, "c"));
+        assertEquals(2, policy.getWeight());
+    }
+
+    @Test
+    public void onWrite_WithWeigher_EvictsUntilWithinMaxWeight() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(10, String::length);
+        policy.onWrite(1, "aaaa");
+        policy.onWrite(2, "bbbb");
+
+        assertEquals(asList(1, 2), policy.onWrite(3, "cccccccc"));
+        assertEquals(2, policy.getEvictionCount());
+        assertEquals(8, policy.getEvictedWeight());
+        assertEquals(8, policy.getWeight());
+    }
+
+    @Test
+    public void canHold_WithItemOverMaxWeight_ReturnsFalse() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(4, String::length);
+
+        assertTrue(policy.canHold("aaaa"));
+        assertFalse(policy.canHold("aaaaa"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void constructor_WithZeroMaxWeight_Throws() {
+        new LruEvictionPolicy<String>(0);
+    }
+}
@@ -29,6 +29,11 @@ import android.support.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.util.HashSet;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
@@ -72,6 +77,30 @@ public class OverwritablePojoTest {
         assertEquals("bar", pojo1.value);
     }
 
+    @Test
+    public void testChangedFieldsWithEqualPojo() {
+        TestPojo pojo1 = new TestPojo(100, "foo");
+        TestPojo pojo2 = new TestPojo(100, "foo");
+
+        assertEquals(emptySet(), pojo1.getChangedFields(pojo2));
+    }
+
+    @Test
+    public void testChangedFieldsWithChangedValue() {
+        TestPojo pojo1 = new TestPojo(100, "foo");
+        TestPojo pojo2 = new TestPojo(100, "bar");
+
+        assertEquals(singleton("value"), pojo1.getChangedFields(pojo2));
+    }
+
+    @Test
+    public void testChangedFieldsWithNullValue() {
+        TestPojo pojo1 = new TestPojo(100, "foo");
+        TestPojo pojo2 = new TestPojo(200, null);
+
+        assertEquals(new HashSet<>(asList("id", "value")), pojo1.getChangedFields(pojo2));
+    }
+
     private static final class TestPojo extends OverwritablePojo<TestPojo> {
         private final int id;
         private String value;
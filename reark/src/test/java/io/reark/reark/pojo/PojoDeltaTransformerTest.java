@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.pojo;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PojoDeltaTransformerTest {
+
+    @Test
+    public void firstValue_IsInitialWithAllFieldsChanged() {
+        TestObserver<PojoDelta<TestPojo>> observer = PublishSubject.<TestPojo>create()
+                .startWith(new TestPojo("foo", 1))
+                .compose(new PojoDeltaTransformer<>())
+                .test();
+
+        observer.assertValueCount(1);
+        PojoDelta<TestPojo> delta = observer.values().get(0);
+        assertTrue(delta.isInitial());
+        assertTrue(delta.hasChanged("name"));
+        assertTrue(delta.hasChanged("count"));
+    }
+
+    @Test
+    public void changedValue_EmitsChangedFieldsOnly() {
+        PublishSubject<TestPojo> subject = PublishSubject.create();
+        TestObserver<PojoDelta<TestPojo>> observer = subject
+                .compose(new PojoDeltaTransformer<>())
+                .test();
+
+        subject.onNext(new TestPojo("foo", 1));
+        subject.onNext(new TestPojo("foo", 2));
+
+        observer.assertValueCount(2);
+        PojoDelta<TestPojo> delta = observer.values().get(1);
+        assertFalse(delta.isInitial());
+        assertEquals(singleton("count"), delta.getChangedFields());
+        assertFalse(delta.hasChanged("name"));
+    }
+
+    @Test
+    public void equalValue_IsNotEmitted() {
+        PublishSubject<TestPojo> subject = PublishSubject.create();
+        TestObserver<PojoDelta<TestPojo>> observer = subject
+                .compose(new PojoDeltaTransformer<>())
+                .test();
+
+        subject.onNext(new TestPojo("foo", 1));
+        subject.onNext(new TestPojo("foo", 1));
+
+        observer.assertValueCount(1);
+    }
+
+    private static final class TestPojo extends OverwritablePojo<TestPojo> {
+        private final String name;
+        private final int count;
+
+        private TestPojo(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        @NonNull
+        @Override
+        protected Class<TestPojo> getTypeParameterClass() {
+            return TestPojo.class;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConflateTransformerTest {
+
+    private TestScheduler scheduler;
+
+    private AtomicLong conflatedCount;
+
+    private PublishSubject<Integer> subject;
+
+    private TestObserver<Integer> testObserver;
+
+    @Before
+    public void setup() {
+        scheduler = new TestScheduler();
+        conflatedCount = new AtomicLong();
+        subject = PublishSubject.create();
+        testObserver = subject
+                .compose(new ConflateTransformer<>(16, TimeUnit.MILLISECONDS, scheduler, conflatedCount))
+                .test();
+    }
+
+    @Test
+    public void firstItem_IsEmittedRightAway() {
+        subject.onNext(1);
+
+        testObserver.assertValues(1);
+    }
+
+    @Test
+    public void burst_EmitsFirstAndLatestItems() {
+        subject.onNext(1);
+        subject.onNext(2);
+        subject.onNext(3);
+        subject.onNext(4);
+
+        testObserver.assertValues(1);
+
+        scheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+
+        testObserver.assertValues(1, 4);
+        assertEquals(2, conflatedCount.get());
+    }
+
+    @Test
+    public void itemAfterQuietWindow_IsEmittedRightAway() {
+        subject.onNext(1);
+        scheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+
+        subject.onNext(2);
+
+        testObserver.assertValues(1, 2);
+        assertEquals(0, conflatedCount.get());
+    }
+
+    @Test
+    public void itemsInConsecutiveWindows_AreEmittedOncePerWindow() {
+        subject.onNext(1);
+        subject.onNext(2);
+        scheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+        subject.onNext(3);
+        subject.onNext(4);
+        scheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+
+        testObserver.assertValues(1, 2, 4);
+        assertEquals(1, conflatedCount.get());
+    }
+
+    @Test
+    public void complete_EmitsPendingItemFirst() {
+        subject.onNext(1);
+        subject.onNext(2);
+
+        subject.onComplete();
+
+        testObserver.assertValues(1, 2).assertComplete();
+    }
+
+    @Test
+    public void dispose_StopsEmissions() {
+        subject.onNext(1);
+        subject.onNext(2);
+
+        testObserver.dispose();
+        scheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+
+        testObserver.assertValues(1);
+    }
+}
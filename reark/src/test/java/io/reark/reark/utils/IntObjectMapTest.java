@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IntObjectMapTest {
+
+    private IntObjectMap<String> map;
+
+    @Before
+    public void setup() {
+        map = new IntObjectMap<>();
+    }
+
+    @Test
+    public void get_WithNoValue_ReturnsNull() {
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void put_StoresValue() {
+        assertNull(map.put(1, "one"));
+
+        assertEquals("one", map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void put_WithExistingKey_ReplacesValue() {
+        map.put(1, "one");
+
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals("uno", map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void put_WithZeroAndNegativeKeys_StoresValues() {
+        map.put(0, "zero");
+        map.put(-1, "minus one");
+
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+    }
+
+    @Test
+    public void remove_RemovesOnlyGivenKey() {
+        map.put(1, "one");
+        map.put(2, "two");
+
+        assertEquals("one", map.remove(1));
+        assertNull(map.remove(1));
+        assertNull(map.get(1));
+        assertEquals("two", map.get(2));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void addValuesTo_AddsAllValues() {
+        map.put(1, "one");
+        map.put(2, "two");
+        List<String> values = new ArrayList<>();
+
+        map.addValuesTo(values);
+
+        assertEquals(2, values.size());
+        assertTrue(values.contains("one"));
+        assertTrue(values.contains("two"));
+    }
+
+    @Test
+    public void nextSlot_IteratesAllEntries() {
+        map.put(1, "one");
+        map.put(2, "two");
+        Map<Integer, String> entries = new HashMap<>();
+
+        for (int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) {
+            entries.put(map.keyAt(slot), map.valueAt(slot));
+        }
+
+        assertEquals(2, entries.size());
+        assertEquals("one", entries.get(1));
+        assertEquals("two", entries.get(2));
+    }
+
+    @Test
+    public void operations_MatchHashMap_WithRandomKeys() {
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = String.valueOf(i);
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2013-2016 reark project contributors
+ *
+ * https://github.com/reark/reark/graphs/contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.reark.reark.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+
+public class ObjectLockQueueTest {
+
+    @Test(expected = NullPointerException.class)
+    public void acquire_WithNull_Throws() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+
+        queue.acquire(Collections.singletonList(null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void acquire_WithNoObjects_Throws() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+
+        queue.acquire(Collections.emptyList());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_BeforeAcquire_Throws() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+
+        queue.release(Collections.singletonList("object"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_WhileWaiting_Throws() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+        queue.acquire(Collections.singletonList("object")).test();
+        queue.acquire(Collections.singletonList("object")).test();
+
+        queue.release(Collections.singletonList("object"));
+        queue.release(Collections.singletonList("object"));
+        queue.release(Collections.singletonList("object"));
+    }
+
+    @Test
+    public void release_WithUnlockedObject_KeepsOtherLocks() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+        queue.acquire(Collections.singletonList("object 1")).test();
+
+        try {
+            queue.release(Arrays.asList("object 1", "object 2"));
+        } catch (IllegalStateException e) {
+            // Expected, as object 2 was not locked.
+        }
+        TestObserver<Void> testObserver = queue.acquire(Collections.singletonList("object 1")).test();
+
+        testObserver.assertNotComplete();
+    }
+
+    @Test
+    public void acquire_WithFreeObject_Completes() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+
+        queue.acquire(Collections.singletonList("object"))
+                .test()
+                .assertComplete();
+    }
+
+    @Test
+    public void acquire_WithHeldObject_CompletesAfterRelease() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+        queue.acquire(Collections.singletonList("object")).test();
+
+        TestObserver<Void> waiting = queue.acquire(Collections.singletonList("object")).test();
+        waiting.assertNotComplete();
+
+        queue.release(Collections.singletonList("object"));
+        waiting.assertComplete();
+    }
+
+    @Test
+    public void acquire_WithDifferentObjects_CompletesImmediately() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+        queue.acquire(Collections.singletonList("object")).test();
+
+        queue.acquire(Collections.singletonList("different"))
+                .test()
+                .assertComplete();
+    }
+
+    @Test
+    public void acquire_WithSeveralObjects_IsGrantedInRequestOrder() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+        List<String> order = new ArrayList<>();
+        queue.acquire(Collections.singletonList("a")).test();
+
+        queue.acquire(Arrays.asList("a", "b")).subscribe(() -> order.add("ab"));
+        queue.acquire(Collections.singletonList("b")).subscribe(() -> order.add("b"));
+        assertEquals(Collections.emptyList(), order);
+
+        queue.release(Collections.singletonList("a"));
+        assertEquals(Collections.singletonList("ab"), order);
+
+        queue.release(Arrays.asList("a", "b"));
+        assertEquals(Arrays.asList("ab", "b"), order);
+    }
+
+    @Test
+    public void dispose_WhileWaiting_GrantsNextRequest() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+        queue.acquire(Collections.singletonList("a")).test();
+        Disposable cancelled = queue.acquire(Arrays.asList("a", "b")).subscribe();
+
+        TestObserver<Void> waiting = queue.acquire(Collections.singletonList("b")).test();
+        waiting.assertNotComplete();
+
+        cancelled.dispose();
+        waiting.assertComplete();
+    }
+
+    @Test
+    public void withLocks_RunsTaskAndReleases() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+
+        queue.withLocks(Collections.singletonList("object"), Schedulers.trampoline(), () -> "result")
+                .test()
+                .assertValue("result");
+
+        queue.acquire(Collections.singletonList("object"))
+                .test()
+                .assertComplete();
+    }
+
+    @Test
+    public void withLocks_WithFailingTask_ReleasesAndFails() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+
+        queue.withLocks(Collections.singletonList("object"), Schedulers.trampoline(), () -> {
+            throw new IllegalArgumentException();
+        })
+                .test()
+                .assertError(IllegalArgumentException.class);
+
+        queue.acquire(Collections.singletonList("object"))
+                .test()
+                .assertComplete();
+    }
+
+    @Test
+    public void withLocks_WithHeldObject_RunsTaskAfterRelease() {
+        ObjectLockQueue<String> queue = new ObjectLockQueue<>();
+        queue.acquire(Collections.singletonList("object")).test();
+
+        TestObserver<String> waiting = queue.withLocks(
+                Collections.singletonList("object"), Schedulers.trampoline(), () -> "result")
+                .test();
+        waiting.assertNoValues();
+
+        queue.release(Collections.singletonList("object"));
+        waiting.assertValue("result");
+    }
+}